@@ -0,0 +1,244 @@
+import java.time.Instant;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.*;
+
+// Low-overhead logging facade over java.util.logging, shared by the Exercise 1 modules.
+// Compile a module against it with: javac -sourcepath ../../Common *.java
+//
+// Callers pay for a level check and, if enabled, one slot in a lock-free ring buffer:
+// messages are "{}" patterns whose arguments are captured by reference (or as primitives)
+// and formatted later by a background drainer, which hands the records to the
+// java.util.logging handlers. Arguments must therefore be immutable (strings, boxed values)
+// or primitives: a mutable argument is formatted with whatever state it has when the drainer
+// gets to it, which can be well after the call, so pass its toString() instead. When the
+// buffer is full the caller backs off until the drainer frees a slot, so no record is ever
+// lost to a full buffer. A record whose formatting or handler throws is reported on
+// System.err and skipped, and the drainer carries on with the next one.
+final class AsyncLog {
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private static final long FULL_PARK_NANOS = 1_000;
+    private static final long IDLE_EXIT_NANOS = 200_000_000;
+    private static final int MAX_SPINS = 100;
+
+    private static final byte ARGS_OBJECT = 0;
+    private static final byte ARGS_BOOLEAN = 1;
+    private static final byte ARGS_LONG = 2;
+
+    private static final Slot[] slots = new Slot[CAPACITY];
+    private static final AtomicLong claimed = new AtomicLong();
+    private static final LongAdder bufferFullWaits = new LongAdder();
+    private static final AtomicBoolean draining = new AtomicBoolean();
+    private static volatile long consumed;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    private final Logger delegate;
+
+    private AsyncLog(Logger delegate) {
+        this.delegate = delegate;
+    }
+
+    public static AsyncLog getLogger(Class<?> type) {
+        return new AsyncLog(Logger.getLogger(type.getName()));
+    }
+
+    public boolean isLoggable(Level level) {
+        return delegate.isLoggable(level);
+    }
+
+    public void info(String message) {
+        if (delegate.isLoggable(Level.INFO)) {
+            publish(Level.INFO, message, ARGS_OBJECT, null, null, 0);
+        }
+    }
+
+    public void info(String pattern, Object arg) {
+        if (delegate.isLoggable(Level.INFO)) {
+            publish(Level.INFO, pattern, ARGS_OBJECT, arg, null, 0);
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (delegate.isLoggable(Level.INFO)) {
+            publish(Level.INFO, pattern, ARGS_OBJECT, arg1, arg2, 0);
+        }
+    }
+
+    public void info(String pattern, boolean arg) {
+        if (delegate.isLoggable(Level.INFO)) {
+            publish(Level.INFO, pattern, ARGS_BOOLEAN, null, null, arg ? 1 : 0);
+        }
+    }
+
+    public void info(String pattern, long arg) {
+        if (delegate.isLoggable(Level.INFO)) {
+            publish(Level.INFO, pattern, ARGS_LONG, null, null, arg);
+        }
+    }
+
+    public void warning(String pattern, Object arg) {
+        if (delegate.isLoggable(Level.WARNING)) {
+            publish(Level.WARNING, pattern, ARGS_OBJECT, arg, null, 0);
+        }
+    }
+
+    public void warning(String pattern, Object arg1, Object arg2) {
+        if (delegate.isLoggable(Level.WARNING)) {
+            publish(Level.WARNING, pattern, ARGS_OBJECT, arg1, arg2, 0);
+        }
+    }
+
+    // Blocks until every record published so far has been handed to the handlers
+    public static void flush() {
+        long target = claimed.get();
+        while (consumed < target) {
+            startDrainer();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    // Number of times a caller found the buffer full and had to wait for the drainer
+    public static long getBufferFullWaits() {
+        return bufferFullWaits.sum();
+    }
+
+    private void publish(Level level, String pattern, byte argsKind, Object arg1, Object arg2, long primitive) {
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            if (sequence - consumed >= CAPACITY) {
+                bufferFullWaits.increment();
+                startDrainer();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        Slot slot = slots[(int) sequence & MASK];
+        slot.source = this;
+        slot.level = level;
+        slot.pattern = pattern;
+        slot.argsKind = argsKind;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        slot.primitive = primitive;
+        slot.millis = System.currentTimeMillis();
+        slot.published = sequence + 1;
+
+        if (!draining.get()) {
+            startDrainer();
+        }
+    }
+
+    // The drainer is a non-daemon thread that exits after a short idle period, so pending
+    // records are always delivered before the JVM shuts down normally.
+    private static void startDrainer() {
+        if (draining.compareAndSet(false, true)) {
+            Thread thread = new Thread(AsyncLog::drain, "async-log-drainer");
+            thread.start();
+        }
+    }
+
+    private static void drain() {
+        long idleSince = System.nanoTime();
+        int spins = 0;
+        while (true) {
+            long next = consumed;
+            Slot slot = slots[(int) next & MASK];
+            if (slot.published == next + 1) {
+                try {
+                    deliver(slot);
+                } catch (RuntimeException e) {
+                    System.err.println("AsyncLog could not deliver a record of " + slot.source.delegate.getName()
+                            + " with pattern [" + slot.pattern + "]: " + e);
+                } finally {
+                    slot.source = null;
+                    slot.arg1 = null;
+                    slot.arg2 = null;
+                    consumed = next + 1;
+                }
+                spins = 0;
+                idleSince = System.nanoTime();
+                continue;
+            }
+
+            if (claimed.get() != next) {
+                // A producer has claimed the slot but not published it yet
+                if (++spins < MAX_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                continue;
+            }
+            spins = 0;
+            if (System.nanoTime() - idleSince > IDLE_EXIT_NANOS) {
+                draining.set(false);
+                // A record published between the check above and the flag reset must not be stranded
+                if (claimed.get() == next || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private static void deliver(Slot slot) {
+        LogRecord record = new LogRecord(slot.level, format(slot));
+        record.setLoggerName(slot.source.delegate.getName());
+        record.setSourceClassName(slot.source.delegate.getName());
+        record.setInstant(Instant.ofEpochMilli(slot.millis));
+        slot.source.delegate.log(record);
+    }
+
+    private static String format(Slot slot) {
+        String pattern = slot.pattern;
+        Object first;
+        switch (slot.argsKind) {
+            case ARGS_BOOLEAN:
+                first = slot.primitive != 0;
+                break;
+            case ARGS_LONG:
+                first = slot.primitive;
+                break;
+            default:
+                first = slot.arg1;
+                break;
+        }
+
+        int placeholder = pattern.indexOf("{}");
+        if (placeholder < 0) {
+            return pattern;
+        }
+        StringBuilder message = new StringBuilder(pattern.length() + 32);
+        message.append(pattern, 0, placeholder).append(first);
+        int rest = placeholder + 2;
+        int second = pattern.indexOf("{}", rest);
+        if (second >= 0) {
+            message.append(pattern, rest, second).append(slot.arg2);
+            rest = second + 2;
+        }
+        return message.append(pattern, rest, pattern.length()).toString();
+    }
+
+    // One preallocated ring-buffer entry; published is written last and read first
+    private static final class Slot {
+        volatile long published;
+        AsyncLog source;
+        Level level;
+        String pattern;
+        byte argsKind;
+        Object arg1;
+        Object arg2;
+        long primitive;
+        long millis;
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+// Compares direct java.util.logging calls with eager string concatenation against AsyncLog,
+// with INFO disabled and with INFO enabled into a handler that formats and discards records.
+// For AsyncLog two figures are reported: the caller-side cost for bursts that fit in the ring
+// buffer (the hot-path latency components see), and the sustained cost including draining.
+// Usage: java AsyncLogBenchmark [threads] [callsPerThread]
+public class AsyncLogBenchmark {
+    private static final int BURST = 1024;
+
+    private static final Logger direct = Logger.getLogger("benchmark.direct");
+    private static final AsyncLog async = AsyncLog.getLogger(AsyncLogBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        Logger root = Logger.getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            root.removeHandler(handler);
+        }
+        root.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                record.getMessage().length();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        for (Level level : new Level[] {Level.WARNING, Level.INFO}) {
+            root.setLevel(level);
+            String label = level == Level.INFO ? "INFO enabled " : "INFO disabled";
+            BenchmarkHarness.warmUpThenMeasure(report -> {
+                double directNanos = run(threads, calls, i -> direct.info("Windows text field updated: " + i), false);
+                double burstNanos = run(threads, calls, i -> async.info("Windows text field updated: {}", (long) i), true);
+                double sustainedNanos = run(threads, calls, i -> async.info("Windows text field updated: {}", (long) i), false);
+                if (report) {
+                    System.out.printf("%s, %d threads: Logger.info %.1f ns/call, AsyncLog %.1f ns/call in bursts, "
+                            + "%.1f ns/call sustained%n", label, threads, directNanos, burstNanos, sustainedNanos);
+                }
+            });
+        }
+        System.out.println("AsyncLog callers that waited on a full buffer: " + AsyncLog.getBufferFullWaits());
+    }
+
+    // Returns nanoseconds per call. In burst mode each thread logs BURST records, then the
+    // buffer is drained outside the timed region; otherwise the final drain is timed too.
+    private static double run(int threads, int calls, LogCall call, boolean bursts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int burst = Math.max(1, BURST / threads);
+        long elapsed = 0;
+        for (int done = 0; done < calls; done += burst) {
+            int count = Math.min(burst, calls - done);
+            int offset = done;
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < count; i++) {
+                        call.log(offset + i);
+                    }
+                    return null;
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed += System.nanoTime() - begin;
+            if (bursts) {
+                AsyncLog.flush();
+            }
+        }
+        if (!bursts) {
+            long begin = System.nanoTime();
+            AsyncLog.flush();
+            elapsed += System.nanoTime() - begin;
+        }
+        executor.shutdown();
+        return (double) elapsed / calls;
+    }
+
+    private interface LogCall {
+        void log(int i);
+    }
+}
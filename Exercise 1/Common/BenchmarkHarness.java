@@ -0,0 +1,80 @@
+import java.lang.management.ManagementFactory;
+
+// Warm-up and measurement helpers for the benchmarks of the Exercise 1 modules and Exercise 2's
+// Virtual Class, compiled in the same way as LatencyHistogram.
+//
+// A benchmark runs its passes twice and prints only the second one, once the JIT has compiled
+// the measured code. Allocation is read from the JVM's per-thread counter, so measuring costs
+// nothing while the measured code runs.
+final class BenchmarkHarness {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    interface Pass<E extends Exception> {
+        void run(boolean report) throws E;
+    }
+
+    interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    private BenchmarkHarness() {
+    }
+
+    // Runs the pass once as JIT warm-up, then again with report set for printing the results
+    static <E extends Exception> void warmUpThenMeasure(Pass<E> pass) throws E {
+        pass.run(false);
+        pass.run(true);
+    }
+
+    // Times one run of the task on the calling thread
+    static <E extends Exception> Measurement measure(Task<E> task) throws E {
+        return measure(1, task);
+    }
+
+    // Times the given number of runs of the operation on the calling thread
+    static <E extends Exception> Measurement measure(long operations, Task<E> operation) throws E {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (long i = 0; i < operations; i++) {
+            operation.run();
+        }
+        long nanos = System.nanoTime() - start;
+        // Read before the Measurement exists, so it is not counted
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new Measurement(operations, nanos, allocated);
+    }
+
+    // Bytes allocated so far by the calling thread
+    static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static final class Measurement {
+        private final long operations;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Measurement(long operations, long nanos, long allocatedBytes) {
+            this.operations = operations;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double getNanosPerOperation() {
+            return (double) nanos / operations;
+        }
+
+        public double getBytesPerOperation() {
+            return (double) allocatedBytes / operations;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+// Base class for concrete products: owns the dirty flag and the renderer slot.
+// A component starts dirty so that the first frame draws it.
+abstract class AbstractUIComponent implements UIComponent {
+    private RenderBatch batch;
+    private int slot = -1;
+    private boolean dirty = true;
+
+    @Override
+    public void attach(RenderBatch batch, int slot) {
+        this.batch = batch;
+        this.slot = slot;
+        if (dirty) {
+            batch.markDirty(slot);
+        }
+    }
+
+    protected void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            if (batch != null) {
+                batch.markDirty(slot);
+            }
+        }
+    }
+
+    @Override
+    public final void draw() {
+        present();
+        dirty = false;
+    }
+
+    // Copies the current state into the retained (presented) state
+    protected abstract void present();
+}
@@ -0,0 +1,4 @@
+// Abstract Product: Button
+interface Button extends UIComponent {
+    void onClick();
+}
@@ -0,0 +1,5 @@
+// Abstract Product: Checkbox
+interface Checkbox extends UIComponent {
+    boolean isChecked();
+    void setChecked(boolean checked);
+}
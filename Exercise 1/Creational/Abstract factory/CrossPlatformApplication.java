@@ -0,0 +1,52 @@
+import java.util.*;
+import java.util.logging.*;
+
+// Application using the Abstract Factory
+class CrossPlatformApplication {
+    private final UIComponentFactory factory;
+    private final List<Integer> buttonIds = new ArrayList<>();
+    private final List<Integer> checkboxIds = new ArrayList<>();
+    private final List<Integer> textFieldIds = new ArrayList<>();
+    private final RetainedRenderer renderer = new RetainedRenderer();
+    private final UIEventLoop eventLoop = new UIEventLoop(renderer);
+    private static final Logger logger = Logger.getLogger(CrossPlatformApplication.class.getName());
+
+    public CrossPlatformApplication(UIComponentFactory factory) {
+        this.factory = factory;
+    }
+
+    public void createUI() {
+        buttonIds.add(eventLoop.register(factory.createButton()));
+        checkboxIds.add(eventLoop.register(factory.createCheckbox()));
+        textFieldIds.add(eventLoop.register(factory.createTextField()));
+        logger.info("UI components created");
+    }
+
+    public void renderUI() {
+        int drawn = renderer.renderFrame();
+        logger.info("UI rendered (" + drawn + " components redrawn)");
+    }
+
+    public void simulateUserInteraction() {
+        try {
+            for (int id : buttonIds) {
+                eventLoop.post(UIEvent.click(id));
+            }
+            for (int id : checkboxIds) {
+                eventLoop.post(UIEvent.click(id));
+            }
+            for (int id : textFieldIds) {
+                eventLoop.post(UIEvent.text(id, "Hello, Abstract Factory!"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        eventLoop.processFrame();
+        logger.info("User interaction simulated");
+    }
+
+    public UIEventLoop getEventLoop() {
+        return eventLoop;
+    }
+}
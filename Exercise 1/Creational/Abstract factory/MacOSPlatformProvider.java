@@ -0,0 +1,12 @@
+// ServiceLoader entry point for the MacOS UI stack
+public class MacOSPlatformProvider implements UIPlatformProvider {
+    @Override
+    public String getPlatformName() {
+        return "MacOS";
+    }
+
+    @Override
+    public UIComponentFactory createFactory() {
+        return new MacOSUIComponentFactory();
+    }
+}
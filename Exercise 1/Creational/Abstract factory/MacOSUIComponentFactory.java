@@ -0,0 +1,112 @@
+// Concrete Products for MacOS
+class MacOSButton extends AbstractUIComponent implements Button {
+    private static final AsyncLog logger = AsyncLog.getLogger(MacOSButton.class);
+
+    @Override
+    public void render() {
+        logger.info("Rendering MacOS-style button");
+    }
+
+    @Override
+    public String getStyle() {
+        return "MacOS-style button";
+    }
+
+    @Override
+    protected void present() {
+        // Buttons carry no mutable state; drawing only refreshes the frame
+    }
+
+    @Override
+    public void onClick() {
+        logger.info("MacOS button clicked");
+    }
+}
+
+class MacOSCheckbox extends AbstractUIComponent implements Checkbox {
+    private static final AsyncLog logger = AsyncLog.getLogger(MacOSCheckbox.class);
+    private boolean checked = false;
+    private boolean presentedChecked = false;
+
+    @Override
+    public void render() {
+        logger.info("Rendering MacOS-style checkbox");
+    }
+
+    @Override
+    public String getStyle() {
+        return "MacOS-style checkbox";
+    }
+
+    @Override
+    protected void present() {
+        presentedChecked = checked;
+    }
+
+    @Override
+    public boolean isChecked() {
+        return checked;
+    }
+
+    @Override
+    public void setChecked(boolean checked) {
+        if (this.checked != checked) {
+            this.checked = checked;
+            markDirty();
+        }
+        logger.info("MacOS checkbox state changed to: {}", checked);
+    }
+}
+
+class MacOSTextField extends AbstractUIComponent implements TextField {
+    private static final AsyncLog logger = AsyncLog.getLogger(MacOSTextField.class);
+    private String text = "";
+    private String presentedText = "";
+
+    @Override
+    public void render() {
+        logger.info("Rendering MacOS-style text field");
+    }
+
+    @Override
+    public String getStyle() {
+        return "MacOS-style text field";
+    }
+
+    @Override
+    protected void present() {
+        presentedText = text;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public void setText(String text) {
+        if (!this.text.equals(text)) {
+            this.text = text;
+            markDirty();
+        }
+        logger.info("MacOS text field updated: {}", text);
+    }
+}
+
+// Concrete Factory for MacOS
+class MacOSUIComponentFactory implements UIComponentFactory {
+    @Override
+    public Button createButton() {
+        return new MacOSButton();
+    }
+
+    @Override
+    public Checkbox createCheckbox() {
+        return new MacOSCheckbox();
+    }
+
+    @Override
+    public TextField createTextField() {
+        return new MacOSTextField();
+    }
+}
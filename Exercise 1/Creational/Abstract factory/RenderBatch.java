@@ -0,0 +1,91 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Retained-mode draw list for one concrete component type.
+// Components queue their own slot when they become dirty, so a frame only visits what changed.
+// A component is queued at most once per frame, so the dirty list never outgrows the batch;
+// slots are claimed with an atomic counter so event lanes can mark components concurrently.
+class RenderBatch {
+    private final String style;
+    private UIComponent[] components = new UIComponent[16];
+    private int size;
+    private int[] dirtySlots = new int[16];
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+
+    public RenderBatch(String style) {
+        this.style = style;
+    }
+
+    public String getStyle() {
+        return style;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount.get();
+    }
+
+    // Registration is single-threaded and must not overlap with event dispatch
+    public void add(UIComponent component) {
+        if (size == components.length) {
+            components = Arrays.copyOf(components, size * 2);
+            dirtySlots = Arrays.copyOf(dirtySlots, size * 2);
+        }
+        int slot = size++;
+        components[slot] = component;
+        component.attach(this, slot);
+    }
+
+    public void markDirty(int slot) {
+        dirtySlots[dirtyCount.getAndIncrement()] = slot;
+    }
+
+    // Draws every dirty component, splitting large batches across the pool
+    public int flush(ForkJoinPool pool, int parallelThreshold) {
+        int count = dirtyCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        if (count >= parallelThreshold) {
+            pool.invoke(new DrawTask(0, count, parallelThreshold));
+        } else {
+            drawRange(0, count);
+        }
+        dirtyCount.set(0);
+        return count;
+    }
+
+    private void drawRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            components[dirtySlots[i]].draw();
+        }
+    }
+
+    private class DrawTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        DrawTask(int from, int to, int threshold) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                drawRange(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DrawTask(from, mid, threshold), new DrawTask(mid, to, threshold));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.*;
+import java.util.logging.*;
+
+// Compares immediate-mode rendering (render() on every component) with the retained renderer
+// on a large component tree where only a small fraction changes per frame.
+// Usage: java RenderBenchmark [components] [frames] [changeRatio]
+public class RenderBenchmark {
+    private static long drawn;
+
+    public static void main(String[] args) {
+        int componentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double changeRatio = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+
+        // Keep per-component log records out of the measurement
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        UIComponentFactory factory = new WindowsUIComponentFactory();
+        RetainedRenderer renderer = new RetainedRenderer();
+        List<UIComponent> components = new ArrayList<>(componentCount);
+        List<Checkbox> checkboxes = new ArrayList<>();
+        List<TextField> textFields = new ArrayList<>();
+
+        for (int i = 0; i < componentCount; i++) {
+            UIComponent component;
+            switch (i % 3) {
+                case 0:
+                    component = factory.createButton();
+                    break;
+                case 1:
+                    Checkbox checkbox = factory.createCheckbox();
+                    checkboxes.add(checkbox);
+                    component = checkbox;
+                    break;
+                default:
+                    TextField textField = factory.createTextField();
+                    textFields.add(textField);
+                    component = textField;
+                    break;
+            }
+            components.add(component);
+            renderer.register(component);
+        }
+
+        BenchmarkHarness.Measurement initial = BenchmarkHarness.measure(() -> drawn = renderer.renderFrame());
+        System.out.printf("Initial frame: %d components in %.2f ms%n", drawn, initial.getNanos() / 1e6);
+
+        int changesPerFrame = Math.max(1, (int) (componentCount * changeRatio));
+        Random random = new Random(42);
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            long immediateNanos = 0;
+            long retainedNanos = 0;
+            drawn = 0;
+            for (int frame = 0; frame < frames; frame++) {
+                for (int i = 0; i < changesPerFrame; i++) {
+                    if (random.nextBoolean()) {
+                        Checkbox checkbox = checkboxes.get(random.nextInt(checkboxes.size()));
+                        checkbox.setChecked(!checkbox.isChecked());
+                    } else {
+                        textFields.get(random.nextInt(textFields.size())).setText("frame-" + frame);
+                    }
+                }
+
+                immediateNanos += BenchmarkHarness.measure(() -> {
+                    for (UIComponent component : components) {
+                        component.render();
+                    }
+                }).getNanos();
+                retainedNanos += BenchmarkHarness.measure(() -> drawn += renderer.renderFrame()).getNanos();
+            }
+
+            if (report) {
+                System.out.printf("Components: %d, frames: %d, changes/frame: %d%n", componentCount, frames, changesPerFrame);
+                System.out.printf("Immediate mode: %.3f ms/frame%n", immediateNanos / 1e6 / frames);
+                System.out.printf("Retained mode:  %.3f ms/frame (%d components drawn/frame)%n",
+                        retainedNanos / 1e6 / frames, drawn / frames);
+            }
+        });
+    }
+}
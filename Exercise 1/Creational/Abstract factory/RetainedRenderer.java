@@ -0,0 +1,51 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+// Retained-mode renderer: groups components by concrete type and redraws only dirty ones
+class RetainedRenderer {
+    private static final Logger logger = Logger.getLogger(RetainedRenderer.class.getName());
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    private final Map<Class<?>, RenderBatch> batches = new LinkedHashMap<>();
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public RetainedRenderer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public RetainedRenderer(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void register(UIComponent component) {
+        batches.computeIfAbsent(component.getClass(), type -> new RenderBatch(component.getStyle()))
+                .add(component);
+    }
+
+    // Renders one frame and returns the number of components drawn
+    public int renderFrame() {
+        int drawn = 0;
+        for (RenderBatch batch : batches.values()) {
+            int count = batch.flush(pool, parallelThreshold);
+            if (count > 0 && logger.isLoggable(Level.FINE)) {
+                logger.fine("Drew " + count + " of " + batch.size() + " " + batch.getStyle() + " components");
+            }
+            drawn += count;
+        }
+        return drawn;
+    }
+
+    public int getDirtyCount() {
+        int dirty = 0;
+        for (RenderBatch batch : batches.values()) {
+            dirty += batch.getDirtyCount();
+        }
+        return dirty;
+    }
+}
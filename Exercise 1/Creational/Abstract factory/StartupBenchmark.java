@@ -0,0 +1,69 @@
+import java.lang.management.*;
+import java.util.*;
+import java.util.logging.*;
+
+// Measures application startup with lazy platform loading (only the requested platform's
+// factory and components are loaded) against eager loading of every registered platform.
+// Each run happens in a fresh JVM so class loading is measured from a cold start.
+// Usage: java StartupBenchmark [runs] [platform]
+public class StartupBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("child")) {
+            runChild(args[1], args[2]);
+            return;
+        }
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String platform = args.length > 1 ? args[1] : "windows";
+
+        for (String mode : new String[] {"lazy", "eager"}) {
+            long[] startupMicros = new long[runs];
+            long[] processMicros = new long[runs];
+            long classes = 0;
+            for (int i = 0; i < runs; i++) {
+                String[][] result = new String[1][];
+                BenchmarkHarness.Measurement child = BenchmarkHarness.measure(() -> {
+                    Process process = new ProcessBuilder(
+                            System.getProperty("java.home") + "/bin/java",
+                            "-cp", System.getProperty("java.class.path"),
+                            StartupBenchmark.class.getName(), "child", mode, platform)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start();
+                    result[0] = new String(process.getInputStream().readAllBytes()).trim().split(" ");
+                    if (process.waitFor() != 0) {
+                        throw new IllegalStateException("Benchmark child failed in " + mode + " mode");
+                    }
+                });
+                processMicros[i] = child.getNanos() / 1_000;
+                startupMicros[i] = Long.parseLong(result[0][0]);
+                classes = Long.parseLong(result[0][1]);
+            }
+            System.out.printf("%-5s: UI startup %d us (median), process %d us (median), %d classes loaded%n",
+                    mode, median(startupMicros), median(processMicros), classes);
+        }
+    }
+
+    // No warm-up here: a cold start is what is measured
+    private static void runChild(String mode, String platform) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        BenchmarkHarness.Measurement startup = BenchmarkHarness.measure(() -> {
+            UIFactoryRegistry registry = UIFactoryRegistry.getDefault();
+            if (mode.equals("eager")) {
+                registry.preloadAll();
+            }
+            CrossPlatformApplication app = new CrossPlatformApplication(registry.getFactory(platform));
+            app.createUI();
+            app.renderUI();
+        });
+
+        long micros = startup.getNanos() / 1_000;
+        long classes = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        System.out.println(micros + " " + classes);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
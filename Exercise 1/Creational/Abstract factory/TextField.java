@@ -0,0 +1,5 @@
+// Abstract Product: TextField
+interface TextField extends UIComponent {
+    String getText();
+    void setText(String text);
+}
@@ -0,0 +1,7 @@
+// Common supertype of all abstract products, as seen by the retained-mode renderer
+interface UIComponent {
+    void render();
+    String getStyle();
+    void attach(RenderBatch batch, int slot);
+    void draw();
+}
@@ -0,0 +1,7 @@
+// Abstract Factory
+// Platform stacks live in their own files and are discovered through UIPlatformProvider
+interface UIComponentFactory {
+    Button createButton();
+    Checkbox createCheckbox();
+    TextField createTextField();
+}
@@ -0,0 +1,66 @@
+// Input event targeting a component registered with a UIEventLoop
+class UIEvent {
+    enum Type { CLICK, TEXT }
+
+    private final Type type;
+    private final int componentId;
+    private final String text;
+
+    private UIEvent(Type type, int componentId, String text) {
+        this.type = type;
+        this.componentId = componentId;
+        this.text = text;
+    }
+
+    public static UIEvent click(int componentId) {
+        return new UIEvent(Type.CLICK, componentId, null);
+    }
+
+    public static UIEvent text(int componentId, String text) {
+        return new UIEvent(Type.TEXT, componentId, text);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getComponentId() {
+        return componentId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // Applies the event to its target; returns false if the component cannot handle it
+    public boolean apply(UIComponent component) {
+        switch (type) {
+            case CLICK:
+                if (component instanceof Button) {
+                    ((Button) component).onClick();
+                    return true;
+                }
+                if (component instanceof Checkbox) {
+                    Checkbox checkbox = (Checkbox) component;
+                    checkbox.setChecked(!checkbox.isChecked());
+                    return true;
+                }
+                return false;
+            case TEXT:
+                if (component instanceof TextField) {
+                    ((TextField) component).setText(text);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.TEXT
+                ? "UIEvent{TEXT, component=" + componentId + ", text='" + text + "'}"
+                : "UIEvent{" + type + ", component=" + componentId + "}";
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+// Event dispatch subsystem: a bounded input queue drained once per frame.
+// Each frame coalesces redundant text events, spreads the rest over lanes keyed by component ID
+// (so one component's events stay in order on one thread), dispatches the lanes in parallel
+// and then renders the dirty components.
+class UIEventLoop {
+    private static final Logger logger = Logger.getLogger(UIEventLoop.class.getName());
+    private static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+    private static final int DEFAULT_MAX_EVENTS_PER_FRAME = 16_384;
+    private static final int PARALLEL_THRESHOLD = 256;
+    // getEventsPerSecond() covers this many seconds, the current one included
+    private static final int RATE_WINDOW_SECONDS = 5;
+
+    private final List<UIComponent> components = new ArrayList<>();
+    private final BlockingQueue<UIEvent> queue;
+    private final RetainedRenderer renderer;
+    private final ForkJoinPool pool;
+    private final int laneCount;
+    private final int maxEventsPerFrame;
+
+    // Frame buffers, only touched by the thread running processFrame()
+    private final List<UIEvent> frameEvents = new ArrayList<>();
+    private final Map<Integer, Integer> lastTextEvent = new HashMap<>();
+    private final List<List<UIEvent>> lanes = new ArrayList<>();
+
+    private final LongAdder processedEvents = new LongAdder();
+    private final LongAdder coalescedEvents = new LongAdder();
+    private final LongAdder rejectedEvents = new LongAdder();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    // Events processed per second since start, in a ring of the last RATE_WINDOW_SECONDS
+    // seconds; a slot's count is cleared before its second is moved on
+    private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    private volatile int componentCount;
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public UIEventLoop(RetainedRenderer renderer) {
+        this(renderer, ForkJoinPool.commonPool(), DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_EVENTS_PER_FRAME);
+    }
+
+    public UIEventLoop(RetainedRenderer renderer, ForkJoinPool pool, int queueCapacity, int maxEventsPerFrame) {
+        if (queueCapacity < 1 || maxEventsPerFrame < 1) {
+            throw new IllegalArgumentException("Queue capacity and frame size must be positive");
+        }
+        this.renderer = renderer;
+        this.pool = pool;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxEventsPerFrame = maxEventsPerFrame;
+        this.laneCount = pool.getParallelism();
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            rateSeconds.set(i, -1);
+        }
+    }
+
+    // Registers a component with the loop and its renderer; events address it by the returned ID.
+    // Components must be registered before events for them are posted.
+    public synchronized int register(UIComponent component) {
+        components.add(component);
+        renderer.register(component);
+        componentCount = components.size();
+        return componentCount - 1;
+    }
+
+    // Blocks while the queue is full, pushing back on the producer
+    public void post(UIEvent event) throws InterruptedException {
+        checkTarget(event);
+        queue.put(event);
+        recordDepth();
+    }
+
+    // Waits at most the given time for queue space; returns false if the event was rejected
+    public boolean offer(UIEvent event, long timeout, TimeUnit unit) throws InterruptedException {
+        checkTarget(event);
+        if (!queue.offer(event, timeout, unit)) {
+            rejectedEvents.increment();
+            return false;
+        }
+        recordDepth();
+        return true;
+    }
+
+    // Dispatches up to one frame's worth of queued events, renders, and returns the events applied
+    public synchronized int processFrame() {
+        queue.drainTo(frameEvents, maxEventsPerFrame - frameEvents.size());
+        if (frameEvents.isEmpty()) {
+            return 0;
+        }
+
+        int applied;
+        try {
+            applied = coalesce();
+            if (applied < PARALLEL_THRESHOLD) {
+                for (UIEvent event : frameEvents) {
+                    if (event != null) {
+                        dispatch(event);
+                    }
+                }
+            } else {
+                dispatchInLanes();
+            }
+        } finally {
+            frameEvents.clear();
+            for (List<UIEvent> lane : lanes) {
+                lane.clear();
+            }
+        }
+
+        processedEvents.add(applied);
+        recordRate(applied);
+        renderer.renderFrame();
+        return applied;
+    }
+
+    // Starts a dispatcher thread that processes frames as events arrive
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::runLoop, "ui-event-loop");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("UI event loop started with " + laneCount + " lanes");
+    }
+
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = dispatcher;
+            dispatcher = null;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+        processFrame();
+        logger.info("UI event loop stopped: " + getProcessedCount() + " events, "
+                + String.format("%.0f", getEventsPerSecond()) + " events/sec, peak queue depth " + getPeakQueueDepth());
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    public long getProcessedCount() {
+        return processedEvents.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedEvents.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedEvents.sum();
+    }
+
+    // Events processed per second over the last RATE_WINDOW_SECONDS seconds, so the rate
+    // follows the current load and falls to zero within that time once events stop
+    public double getEventsPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        long second = elapsed / 1_000_000_000L;
+        long oldest = Math.max(0, second - RATE_WINDOW_SECONDS + 1);
+        long events = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            long slotSecond = rateSeconds.get(i);
+            if (slotSecond >= oldest && slotSecond <= second) {
+                events += rateCounts.get(i);
+            }
+        }
+        double seconds = (elapsed - oldest * 1_000_000_000L) / 1e9;
+        return seconds > 0 ? events / seconds : 0;
+    }
+
+    // Called by processFrame(), so only one thread at a time moves a slot on
+    private void recordRate(long events) {
+        long second = (System.nanoTime() - startNanos) / 1_000_000_000L;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        if (rateSeconds.get(slot) != second) {
+            rateCounts.set(slot, 0);
+            rateSeconds.set(slot, second);
+        }
+        rateCounts.addAndGet(slot, events);
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                UIEvent first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    synchronized (this) {
+                        frameEvents.add(first);
+                        processFrame();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Event dispatch failed", e);
+            }
+        }
+    }
+
+    // Keeps only the last text event per component; returns the number of events left
+    private int coalesce() {
+        int remaining = frameEvents.size();
+        for (int i = 0; i < frameEvents.size(); i++) {
+            UIEvent event = frameEvents.get(i);
+            if (event.getType() == UIEvent.Type.TEXT) {
+                Integer previous = lastTextEvent.put(event.getComponentId(), i);
+                if (previous != null) {
+                    frameEvents.set(previous, null);
+                    remaining--;
+                }
+            }
+        }
+        lastTextEvent.clear();
+        coalescedEvents.add(frameEvents.size() - remaining);
+        return remaining;
+    }
+
+    private void dispatchInLanes() {
+        for (UIEvent event : frameEvents) {
+            if (event != null) {
+                lanes.get(Math.floorMod(event.getComponentId(), laneCount)).add(event);
+            }
+        }
+        List<LaneTask> tasks = new ArrayList<>(laneCount);
+        for (List<UIEvent> lane : lanes) {
+            if (!lane.isEmpty()) {
+                tasks.add(new LaneTask(lane));
+            }
+        }
+        pool.invoke(new FrameTask(tasks));
+    }
+
+    private void dispatch(UIEvent event) {
+        if (!event.apply(components.get(event.getComponentId()))) {
+            logger.warning("Ignored " + event + ": unsupported by target component");
+        }
+    }
+
+    private void checkTarget(UIEvent event) {
+        int id = event.getComponentId();
+        if (id < 0 || id >= componentCount) {
+            throw new IllegalArgumentException("Unknown component ID: " + id);
+        }
+    }
+
+    private void recordDepth() {
+        int depth = queue.size();
+        int peak = peakQueueDepth.get();
+        while (depth > peak && !peakQueueDepth.compareAndSet(peak, depth)) {
+            peak = peakQueueDepth.get();
+        }
+    }
+
+    private class LaneTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<UIEvent> events;
+
+        LaneTask(List<UIEvent> events) {
+            this.events = events;
+        }
+
+        @Override
+        protected void compute() {
+            for (UIEvent event : events) {
+                dispatch(event);
+            }
+        }
+    }
+
+    private static class FrameTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<LaneTask> lanes;
+
+        FrameTask(List<LaneTask> lanes) {
+            this.lanes = lanes;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(lanes);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+// Registry of UI component factories keyed by platform name.
+// Providers are discovered through ServiceLoader on the first lookup, and a platform's factory
+// is created the first time it is requested. Later lookups are a lock-free ConcurrentHashMap read.
+class UIFactoryRegistry {
+    private static final Logger logger = Logger.getLogger(UIFactoryRegistry.class.getName());
+    private static final UIFactoryRegistry DEFAULT = new UIFactoryRegistry(UIFactoryRegistry.class.getClassLoader());
+
+    private final ClassLoader classLoader;
+    private final ConcurrentMap<String, UIComponentFactory> factories = new ConcurrentHashMap<>();
+    private volatile Map<String, UIPlatformProvider> providers;
+
+    public UIFactoryRegistry(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public static UIFactoryRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public UIComponentFactory getFactory(String platform) {
+        String key = platform.toLowerCase(Locale.ROOT);
+        UIComponentFactory factory = factories.get(key);
+        if (factory != null) {
+            return factory;
+        }
+        return factories.computeIfAbsent(key, this::createFactory);
+    }
+
+    public Set<String> getAvailablePlatforms() {
+        Set<String> names = new TreeSet<>();
+        for (UIPlatformProvider provider : getProviders().values()) {
+            names.add(provider.getPlatformName());
+        }
+        return names;
+    }
+
+    // Eagerly creates every platform's factory and one component of each kind,
+    // reproducing the footprint of having all platform stacks loaded up front
+    public void preloadAll() {
+        for (String key : getProviders().keySet()) {
+            UIComponentFactory factory = getFactory(key);
+            factory.createButton();
+            factory.createCheckbox();
+            factory.createTextField();
+        }
+    }
+
+    private UIComponentFactory createFactory(String key) {
+        UIPlatformProvider provider = getProviders().get(key);
+        if (provider == null) {
+            throw new UnsupportedOperationException("Unsupported platform choice: " + key);
+        }
+        logger.info("Loading UI platform: " + provider.getPlatformName());
+        return provider.createFactory();
+    }
+
+    private Map<String, UIPlatformProvider> getProviders() {
+        Map<String, UIPlatformProvider> result = providers;
+        if (result == null) {
+            synchronized (this) {
+                result = providers;
+                if (result == null) {
+                    result = new HashMap<>();
+                    for (UIPlatformProvider provider : ServiceLoader.load(UIPlatformProvider.class, classLoader)) {
+                        result.put(provider.getPlatformName().toLowerCase(Locale.ROOT), provider);
+                    }
+                    providers = result = Collections.unmodifiableMap(result);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+// Service Provider Interface for UI platforms, discovered through ServiceLoader.
+// Providers are deliberately tiny: the factory and its component classes are only
+// loaded when createFactory() is called for the platform the user picks.
+interface UIPlatformProvider {
+    String getPlatformName();
+    UIComponentFactory createFactory();
+}
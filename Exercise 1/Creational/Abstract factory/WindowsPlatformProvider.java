@@ -0,0 +1,12 @@
+// ServiceLoader entry point for the Windows UI stack
+public class WindowsPlatformProvider implements UIPlatformProvider {
+    @Override
+    public String getPlatformName() {
+        return "Windows";
+    }
+
+    @Override
+    public UIComponentFactory createFactory() {
+        return new WindowsUIComponentFactory();
+    }
+}
@@ -0,0 +1,112 @@
+// Concrete Products for Windows
+class WindowsButton extends AbstractUIComponent implements Button {
+    private static final AsyncLog logger = AsyncLog.getLogger(WindowsButton.class);
+
+    @Override
+    public void render() {
+        logger.info("Rendering Windows-style button");
+    }
+
+    @Override
+    public String getStyle() {
+        return "Windows-style button";
+    }
+
+    @Override
+    protected void present() {
+        // Buttons carry no mutable state; drawing only refreshes the frame
+    }
+
+    @Override
+    public void onClick() {
+        logger.info("Windows button clicked");
+    }
+}
+
+class WindowsCheckbox extends AbstractUIComponent implements Checkbox {
+    private static final AsyncLog logger = AsyncLog.getLogger(WindowsCheckbox.class);
+    private boolean checked = false;
+    private boolean presentedChecked = false;
+
+    @Override
+    public void render() {
+        logger.info("Rendering Windows-style checkbox");
+    }
+
+    @Override
+    public String getStyle() {
+        return "Windows-style checkbox";
+    }
+
+    @Override
+    protected void present() {
+        presentedChecked = checked;
+    }
+
+    @Override
+    public boolean isChecked() {
+        return checked;
+    }
+
+    @Override
+    public void setChecked(boolean checked) {
+        if (this.checked != checked) {
+            this.checked = checked;
+            markDirty();
+        }
+        logger.info("Windows checkbox state changed to: {}", checked);
+    }
+}
+
+class WindowsTextField extends AbstractUIComponent implements TextField {
+    private static final AsyncLog logger = AsyncLog.getLogger(WindowsTextField.class);
+    private String text = "";
+    private String presentedText = "";
+
+    @Override
+    public void render() {
+        logger.info("Rendering Windows-style text field");
+    }
+
+    @Override
+    public String getStyle() {
+        return "Windows-style text field";
+    }
+
+    @Override
+    protected void present() {
+        presentedText = text;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public void setText(String text) {
+        if (!this.text.equals(text)) {
+            this.text = text;
+            markDirty();
+        }
+        logger.info("Windows text field updated: {}", text);
+    }
+}
+
+// Concrete Factory for Windows
+class WindowsUIComponentFactory implements UIComponentFactory {
+    @Override
+    public Button createButton() {
+        return new WindowsButton();
+    }
+
+    @Override
+    public Checkbox createCheckbox() {
+        return new WindowsCheckbox();
+    }
+
+    @Override
+    public TextField createTextField() {
+        return new WindowsTextField();
+    }
+}
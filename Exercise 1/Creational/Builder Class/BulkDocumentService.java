@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.Stream;
+
+// Builds and renders large batches of documents in parallel.
+// Specs are pulled from the stream on the calling thread and handed to a work-stealing pool;
+// a semaphore caps how many documents are in flight, which bounds memory regardless of
+// batch size. Values shared by the batch (timestamp, author) are computed once, repeated
+// sections and images are stored once, and repeated sections are rendered once.
+class BulkDocumentService {
+    private static final AsyncLog logger = AsyncLog.getLogger(BulkDocumentService.class);
+    private static final int DEFAULT_PROGRESS_INTERVAL = 10_000;
+    private static final int FRAGMENT_CACHE_CAPACITY = 65_536;
+
+    // Opens the destination for one rendered document; the service closes it afterwards
+    interface DocumentSink {
+        WritableByteChannel open(ReportSpec spec) throws IOException;
+    }
+
+    private final DocumentGenerator generator;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final int progressInterval;
+
+    public BulkDocumentService(DocumentGenerator generator) {
+        this(generator, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism() * 4,
+                DEFAULT_PROGRESS_INTERVAL);
+    }
+
+    public BulkDocumentService(DocumentGenerator generator, ForkJoinPool pool, int maxInFlight, int progressInterval) {
+        if (maxInFlight < 1 || progressInterval < 1) {
+            throw new IllegalArgumentException("In-flight limit and progress interval must be positive");
+        }
+        this.generator = generator;
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+        this.progressInterval = progressInterval;
+    }
+
+    // Generates every spec and blocks until the batch is done. Failures are counted and
+    // logged; they do not stop the batch.
+    public BatchStats generate(Stream<ReportSpec> specs, DocumentSink sink) throws InterruptedException {
+        ContentStore contentStore = new ContentStore();
+        FragmentCache fragmentCache = new FragmentCache(FRAGMENT_CACHE_CAPACITY);
+        GenerationContext context = new GenerationContext(LocalDateTime.now(), System.getProperty("user.name"),
+                contentStore);
+        BatchStats stats = new BatchStats();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        Iterator<ReportSpec> iterator = specs.iterator();
+        try {
+            while (iterator.hasNext()) {
+                ReportSpec spec = iterator.next();
+                inFlight.acquire();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            generateOne(spec, sink, context, fragmentCache, stats);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // Rejected, so the task will never give the permit back
+                    inFlight.release();
+                    throw e;
+                }
+                stats.submitted.increment();
+            }
+        } finally {
+            // Wait for the documents already submitted, even if the stream or caller failed
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+            stats.finish();
+        }
+
+        logger.info("Bulk generation finished: {}", stats);
+        logger.info("Content store: {}; fragment cache: {}", contentStore, fragmentCache);
+        return stats;
+    }
+
+    private void generateOne(ReportSpec spec, DocumentSink sink, GenerationContext context,
+                             FragmentCache fragmentCache, BatchStats stats) {
+        try {
+            Document document = spec.create(generator, context);
+            try (WritableByteChannel channel = sink.open(spec)) {
+                CountingChannel counting = new CountingChannel(channel);
+                document.render(counting, fragmentCache);
+                stats.bytes.add(counting.count);
+            }
+            long done = stats.completed.incrementAndGet();
+            if (done % progressInterval == 0) {
+                logger.info("Bulk generation progress: {} documents, {} docs/sec", done, (long) stats.getDocumentsPerSecond());
+            }
+        } catch (IOException | RuntimeException e) {
+            stats.failed.increment();
+            logger.warning("Failed to generate {}: {}", spec, e);
+        }
+    }
+
+    // Progress and throughput of one batch; readable while the batch is running
+    static class BatchStats {
+        private final LongAdder submitted = new LongAdder();
+        private final AtomicLong completed = new AtomicLong();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+
+        public long getCompleted() {
+            return completed.get();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getBytesWritten() {
+            return bytes.sum();
+        }
+
+        public double getElapsedSeconds() {
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            return (end - startNanos) / 1e9;
+        }
+
+        public double getDocumentsPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds > 0 ? completed.get() / seconds : 0;
+        }
+
+        public double getMegabytesPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds > 0 ? bytes.sum() / seconds / (1024 * 1024) : 0;
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d completed, %d failed, %.1f s, %.0f docs/sec, %.1f MB/sec",
+                    getCompleted(), getFailed(), getElapsedSeconds(), getDocumentsPerSecond(), getMegabytesPerSecond());
+        }
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+        private long count;
+
+        CountingChannel(WritableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = delegate.write(src);
+            count += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
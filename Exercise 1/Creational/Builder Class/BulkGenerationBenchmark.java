@@ -0,0 +1,48 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.*;
+import java.util.stream.*;
+
+// Drives BulkDocumentService with a synthetic nightly batch rendered to a discarding sink,
+// comparing it with generating the same documents one by one on the calling thread.
+// Usage: java BulkGenerationBenchmark [documents] [sectionsPerDocument]
+public class BulkGenerationBenchmark {
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int sectionsPerDocument = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        List<String> sections = new ArrayList<>();
+        for (int i = 0; i < sectionsPerDocument; i++) {
+            sections.add("Section " + i + ": revenue, costs & outlook for the quarter");
+        }
+        Map<String, String> metadata = Map.of("Department", "Finance", "Classification", "Internal");
+        List<String> images = List.of("charts/revenue.png", "charts/costs.png");
+
+        DocumentGenerator generator = new DocumentGenerator();
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            BenchmarkHarness.Measurement sequential = BenchmarkHarness.measure(() -> {
+                for (int i = 0; i < documents; i++) {
+                    Document document = i % 2 == 0
+                            ? generator.createDetailedReport("Report " + i, sections, metadata)
+                            : generator.createRichMediaPresentation("Presentation " + i, sections, images);
+                    document.render(new DiscardingChannel());
+                }
+            });
+            double sequentialSeconds = sequential.getNanos() / 1e9;
+
+            BulkDocumentService service = new BulkDocumentService(generator, ForkJoinPool.commonPool(),
+                    ForkJoinPool.commonPool().getParallelism() * 4, Math.max(1, documents / 10));
+            Stream<ReportSpec> specs = IntStream.range(0, documents).mapToObj(i -> i % 2 == 0
+                    ? ReportSpec.detailedReport("Report " + i, sections, metadata)
+                    : ReportSpec.richMediaPresentation("Presentation " + i, sections, images));
+            BulkDocumentService.BatchStats stats = service.generate(specs, spec -> new DiscardingChannel());
+            if (report) {
+                System.out.printf("Sequential: %d documents in %.1f s, %.0f docs/sec%n",
+                        documents, sequentialSeconds, documents / sequentialSeconds);
+                System.out.println("Bulk service (" + ForkJoinPool.commonPool().getParallelism() + " workers): " + stats);
+            }
+        });
+    }
+}
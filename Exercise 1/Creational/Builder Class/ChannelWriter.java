@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+
+// Encodes text into a fixed-size byte buffer and writes it to a channel whenever the buffer fills,
+// so memory use is bounded by the buffer size no matter how much text passes through.
+class ChannelWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> threadBuffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final FragmentCache fragmentCache;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long bytesWritten;
+
+    public ChannelWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.fragmentCache = null;
+    }
+
+    private ChannelWriter(WritableByteChannel channel, ByteBuffer buffer, FragmentCache fragmentCache) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.fragmentCache = fragmentCache;
+        buffer.clear();
+    }
+
+    // Writer backed by the calling thread's reusable buffer, which saves allocating a direct
+    // buffer per document. Only one such writer may be in use per thread at a time.
+    public static ChannelWriter pooled(WritableByteChannel channel) {
+        return pooled(channel, null);
+    }
+
+    public static ChannelWriter pooled(WritableByteChannel channel, FragmentCache fragmentCache) {
+        return new ChannelWriter(channel, threadBuffers.get(), fragmentCache);
+    }
+
+    // Cache of pre-encoded section fragments for renderers to use, or null
+    public FragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    // Writes bytes that are already encoded
+    public ChannelWriter write(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+        return this;
+    }
+
+    public ChannelWriter write(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                return this;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    public ChannelWriter write(char c) throws IOException {
+        if (c < 0x80) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            return this;
+        }
+        return write(String.valueOf(c));
+    }
+
+    public ChannelWriter writeLine(CharSequence text) throws IOException {
+        return write(text).write('\n');
+    }
+
+    // Writes everything still buffered to the channel
+    public void flush() throws IOException {
+        drain();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
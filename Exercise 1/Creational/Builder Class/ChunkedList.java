@@ -0,0 +1,165 @@
+import java.util.*;
+
+// Immutable list that supports cheap edits anywhere, used for the sections of edited documents.
+// Elements live in small chunks; an edit copies only the chunk it touches plus the chunk
+// table, and every other chunk is shared with the previous version. Because unchanged chunks
+// are the same objects in both versions, IncrementalRenderer can find what changed between
+// two versions by comparing chunk references.
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+    static final int CHUNK_SIZE = 64;
+    private static final int MAX_CHUNK_SIZE = 2 * CHUNK_SIZE;
+    private static final ChunkedList<?> EMPTY = new ChunkedList<>(new Object[0][], new int[0]);
+
+    private final Object[][] chunks;
+    // ends[i] is the index just past the last element of chunks[i]
+    private final int[] ends;
+
+    private ChunkedList(Object[][] chunks, int[] ends) {
+        this.chunks = chunks;
+        this.ends = ends;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedList<E> empty() {
+        return (ChunkedList<E>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof ChunkedList) {
+            return (ChunkedList<E>) elements;
+        }
+        Object[] all = elements.toArray();
+        int chunkCount = (all.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Object[][] chunks = new Object[chunkCount][];
+        int[] ends = new int[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int from = i * CHUNK_SIZE;
+            int to = Math.min(all.length, from + CHUNK_SIZE);
+            chunks[i] = Arrays.copyOfRange(all, from, to);
+            ends[i] = to;
+        }
+        return new ChunkedList<>(chunks, ends);
+    }
+
+    // Returns a new version with the element at index replaced
+    public ChunkedList<E> with(int index, E element) {
+        Objects.checkIndex(index, size());
+        int chunk = chunkOf(index);
+        Object[] replaced = chunks[chunk].clone();
+        replaced[index - start(chunk)] = element;
+        Object[][] newChunks = chunks.clone();
+        newChunks[chunk] = replaced;
+        return new ChunkedList<>(newChunks, ends);
+    }
+
+    // Returns a new version with the element inserted before index (or appended at size())
+    public ChunkedList<E> inserted(int index, E element) {
+        Objects.checkIndex(index, size() + 1);
+        if (chunks.length == 0) {
+            return new ChunkedList<>(new Object[][] {{element}}, new int[] {1});
+        }
+        int chunk = index == size() ? chunks.length - 1 : chunkOf(index);
+        Object[] old = chunks[chunk];
+        int offset = index - start(chunk);
+        Object[] grown = new Object[old.length + 1];
+        System.arraycopy(old, 0, grown, 0, offset);
+        grown[offset] = element;
+        System.arraycopy(old, offset, grown, offset + 1, old.length - offset);
+
+        if (grown.length <= MAX_CHUNK_SIZE) {
+            Object[][] newChunks = chunks.clone();
+            newChunks[chunk] = grown;
+            int[] newEnds = ends.clone();
+            for (int i = chunk; i < newEnds.length; i++) {
+                newEnds[i]++;
+            }
+            return new ChunkedList<>(newChunks, newEnds);
+        }
+
+        // Split the overfull chunk in two
+        int half = grown.length / 2;
+        Object[][] newChunks = new Object[chunks.length + 1][];
+        int[] newEnds = new int[ends.length + 1];
+        System.arraycopy(chunks, 0, newChunks, 0, chunk);
+        System.arraycopy(ends, 0, newEnds, 0, chunk);
+        newChunks[chunk] = Arrays.copyOfRange(grown, 0, half);
+        newChunks[chunk + 1] = Arrays.copyOfRange(grown, half, grown.length);
+        newEnds[chunk] = start(chunk) + half;
+        newEnds[chunk + 1] = ends[chunk] + 1;
+        System.arraycopy(chunks, chunk + 1, newChunks, chunk + 2, chunks.length - chunk - 1);
+        for (int i = chunk + 1; i < ends.length; i++) {
+            newEnds[i + 1] = ends[i] + 1;
+        }
+        return new ChunkedList<>(newChunks, newEnds);
+    }
+
+    // Returns a new version without the element at index
+    public ChunkedList<E> removed(int index) {
+        Objects.checkIndex(index, size());
+        int chunk = chunkOf(index);
+        Object[] old = chunks[chunk];
+        if (old.length == 1) {
+            Object[][] newChunks = new Object[chunks.length - 1][];
+            int[] newEnds = new int[ends.length - 1];
+            System.arraycopy(chunks, 0, newChunks, 0, chunk);
+            System.arraycopy(ends, 0, newEnds, 0, chunk);
+            System.arraycopy(chunks, chunk + 1, newChunks, chunk, chunks.length - chunk - 1);
+            for (int i = chunk + 1; i < ends.length; i++) {
+                newEnds[i - 1] = ends[i] - 1;
+            }
+            return new ChunkedList<>(newChunks, newEnds);
+        }
+        int offset = index - start(chunk);
+        Object[] shrunk = new Object[old.length - 1];
+        System.arraycopy(old, 0, shrunk, 0, offset);
+        System.arraycopy(old, offset + 1, shrunk, offset, old.length - offset - 1);
+        Object[][] newChunks = chunks.clone();
+        newChunks[chunk] = shrunk;
+        int[] newEnds = ends.clone();
+        for (int i = chunk; i < newEnds.length; i++) {
+            newEnds[i]--;
+        }
+        return new ChunkedList<>(newChunks, newEnds);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size());
+        int chunk = chunkOf(index);
+        return (E) chunks[chunk][index - start(chunk)];
+    }
+
+    @Override
+    public int size() {
+        return ends.length == 0 ? 0 : ends[ends.length - 1];
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    // The chunk itself, shared between versions; callers must not modify it
+    Object[] chunk(int index) {
+        return chunks[index];
+    }
+
+    private int start(int chunk) {
+        return chunk == 0 ? 0 : ends[chunk - 1];
+    }
+
+    private int chunkOf(int index) {
+        int low = 0;
+        int high = ends.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
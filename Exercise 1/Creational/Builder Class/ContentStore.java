@@ -0,0 +1,81 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Content-addressed store for section text and image references shared across a batch.
+// Content is stored once, and every document holds a reference to that single canonical copy
+// instead of its own duplicate.
+// The address is the String's own hash, which the map uses to find the bucket before an
+// equality check confirms the match. A digest such as SHA-256 as the key would only add a
+// pass over every section: the store lives in one heap for one batch, so nothing needs an
+// address that outlives the String or can be compared without the content.
+class ContentStore {
+    // Approximate per-String overhead (header, fields, backing array header) on a 64-bit JVM
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final ConcurrentMap<String, String> contents = new ConcurrentHashMap<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesStored = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    // Returns the canonical copy of the content, storing it if it has not been seen before
+    public String intern(String content) {
+        lookups.increment();
+        String existing = contents.get(content);
+        if (existing == null) {
+            existing = contents.putIfAbsent(content, content);
+            if (existing == null) {
+                bytesStored.add(estimateBytes(content));
+                return content;
+            }
+        }
+        hits.increment();
+        if (existing != content) {
+            bytesSaved.add(estimateBytes(content));
+        }
+        return existing;
+    }
+
+    public List<String> internAll(Collection<String> contents) {
+        String[] canonical = new String[contents.size()];
+        int i = 0;
+        for (String content : contents) {
+            canonical[i++] = intern(content);
+        }
+        return Arrays.asList(canonical);
+    }
+
+    public int getUniqueCount() {
+        return contents.size();
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getBytesStored() {
+        return bytesStored.sum();
+    }
+
+    // Estimated heap no longer held by duplicate copies once callers drop them
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    @Override
+    public String toString() {
+        long lookupCount = getLookups();
+        return String.format("%d unique of %d lookups (%.1f%% hits), ~%,d KB stored, ~%,d KB deduplicated",
+                getUniqueCount(), lookupCount, lookupCount == 0 ? 0.0 : 100.0 * getHits() / lookupCount,
+                getBytesStored() / 1024, getBytesSaved() / 1024);
+    }
+
+    private static long estimateBytes(String content) {
+        return STRING_OVERHEAD_BYTES + content.length();
+    }
+}
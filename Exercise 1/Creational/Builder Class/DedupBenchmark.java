@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.logging.*;
+
+// Generates a batch of presentations whose sections are mostly boilerplate (drawn from a
+// small pool, popular paragraphs far more often than rare ones) and whose images come from a
+// shared asset pool, as a content pipeline fed from many sources would. Every document gets
+// its own String copies, like text parsed from separate inputs.
+// Reports the heap retained by the batch with and without the content store, and render
+// throughput with and without the fragment cache.
+// Usage: java DedupBenchmark [documents] [sectionsPerDocument]
+public class DedupBenchmark {
+    private static final int BOILERPLATE_SECTIONS = 500;
+    private static final int IMAGES = 200;
+    private static final double UNIQUE_SECTION_SHARE = 0.1;
+
+    public static void main(String[] args) throws IOException {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int sectionsPerDocument = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        String[] boilerplate = new String[BOILERPLATE_SECTIONS];
+        for (int i = 0; i < boilerplate.length; i++) {
+            boilerplate[i] = "Standard paragraph " + i + ": this section describes policy terms, "
+                    + "reporting obligations and the review procedure that applies to <all> departments & teams.";
+        }
+        DocumentGenerator generator = new DocumentGenerator();
+
+        long plainBytes = retainedBytes(() -> generateBatch(generator, null, boilerplate, documents, sectionsPerDocument));
+        ContentStore store = new ContentStore();
+        long dedupBytes = retainedBytes(() -> generateBatch(generator, store, boilerplate, documents, sectionsPerDocument));
+        System.out.printf("Retained by %,d documents: %,d KB without store, %,d KB with store (%.0f%% less)%n",
+                documents, plainBytes / 1024, dedupBytes / 1024, 100.0 * (plainBytes - dedupBytes) / plainBytes);
+        System.out.println("Content store: " + store);
+
+        List<Document> batch = generateBatch(generator, store, boilerplate, documents, sectionsPerDocument);
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            BenchmarkHarness.Measurement plain = BenchmarkHarness.measure(() -> {
+                for (Document document : batch) {
+                    document.render(new DiscardingChannel());
+                }
+            });
+
+            FragmentCache cache = new FragmentCache(65_536);
+            BenchmarkHarness.Measurement cached = BenchmarkHarness.measure(() -> {
+                for (Document document : batch) {
+                    document.render(new DiscardingChannel(), cache);
+                }
+            });
+
+            if (report) {
+                System.out.printf("Render without cache: %8.0f docs/sec%n", documents / (plain.getNanos() / 1e9));
+                System.out.printf("Render with cache:    %8.0f docs/sec (%s)%n",
+                        documents / (cached.getNanos() / 1e9), cache);
+            }
+        });
+    }
+
+    private static List<Document> generateBatch(DocumentGenerator generator, ContentStore store, String[] boilerplate,
+                                                int documents, int sectionsPerDocument) {
+        Random random = new Random(42);
+        GenerationContext context = new GenerationContext(LocalDateTime.now(), "benchmark", store);
+        List<Document> batch = new ArrayList<>(documents);
+        for (int d = 0; d < documents; d++) {
+            List<String> sections = new ArrayList<>(sectionsPerDocument);
+            for (int s = 0; s < sectionsPerDocument; s++) {
+                if (random.nextDouble() < UNIQUE_SECTION_SHARE) {
+                    sections.add("Notes for document " + d + ", section " + s);
+                } else {
+                    sections.add(new String(boilerplate[zipf(random, boilerplate.length)].toCharArray()));
+                }
+            }
+            List<String> images = Arrays.asList(
+                    "assets/image-" + zipf(random, IMAGES) + ".png",
+                    "assets/image-" + zipf(random, IMAGES) + ".png");
+            batch.add(generator.createRichMediaPresentation("Presentation " + d, sections, images, context));
+        }
+        return batch;
+    }
+
+    // Rank in [0, n) with probability roughly proportional to 1 / (rank + 1)
+    private static int zipf(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, random.nextDouble())) - 1);
+    }
+
+    private static long retainedBytes(BatchSupplier supplier) {
+        Runtime runtime = Runtime.getRuntime();
+        gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        List<Document> batch = supplier.get();
+        gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        if (batch.isEmpty()) {
+            throw new IllegalStateException("Empty batch");
+        }
+        return after - before;
+    }
+
+    private static void gc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+    }
+
+    private interface BatchSupplier {
+        List<Document> get();
+    }
+}
@@ -0,0 +1,21 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Channel that accepts and drops every byte; used to measure rendering without I/O
+class DiscardingChannel implements WritableByteChannel {
+    @Override
+    public int write(ByteBuffer src) {
+        int remaining = src.remaining();
+        src.position(src.limit());
+        return remaining;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
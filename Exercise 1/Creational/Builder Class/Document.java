@@ -0,0 +1,266 @@
+import java.util.*;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+// Product: Document
+class Document implements RenderableDocument {
+    private final String title;
+    private final String header;
+    private final String footer;
+    private final List<String> sections;
+    private final Map<String, String> metadata;
+    private final List<String> images;
+    private final String format;
+    private final long version;
+
+    // Used by DocumentPrototype, which validates templates when they are compiled
+    Document(String title, String header, String footer, List<String> sections,
+             Map<String, String> metadata, List<String> images, String format) {
+        this(title, header, footer, sections, metadata, images, format, 0);
+    }
+
+    private Document(String title, String header, String footer, List<String> sections,
+                     Map<String, String> metadata, List<String> images, String format, long version) {
+        this.title = title;
+        this.header = header;
+        this.footer = footer;
+        this.sections = sections;
+        this.metadata = metadata;
+        this.images = images;
+        this.format = format;
+        this.version = version;
+    }
+
+    private Document(DocumentBuilder builder) {
+        this.title = builder.title;
+        this.header = builder.header;
+        this.footer = builder.footer;
+        this.sections = builder.sections;
+        this.metadata = builder.metadata;
+        this.images = builder.images;
+        this.format = builder.format;
+        this.version = 0;
+    }
+
+    // Versioned edits. Each returns the next version of the document and leaves this one
+    // unchanged; sections are kept in a ChunkedList, so an edit copies a small chunk rather
+    // than the whole section list, and IncrementalRenderer can re-emit just what changed.
+    public Document withSectionInserted(int index, String section) {
+        return withSections(ChunkedList.copyOf(sections).inserted(index, section));
+    }
+
+    public Document withSectionReplaced(int index, String section) {
+        return withSections(ChunkedList.copyOf(sections).with(index, section));
+    }
+
+    public Document withSectionRemoved(int index) {
+        if (sections.size() == 1) {
+            throw new IllegalStateException("Invalid document: Document must have at least one section");
+        }
+        return withSections(ChunkedList.copyOf(sections).removed(index));
+    }
+
+    public Document withMetadata(String key, String value) {
+        Map<String, String> updated = new LinkedHashMap<>(metadata);
+        updated.put(Objects.requireNonNull(key, "Metadata key"), value);
+        return new Document(title, header, footer, sections, Collections.unmodifiableMap(updated), images,
+                format, version + 1);
+    }
+
+    private Document withSections(List<String> edited) {
+        return new Document(title, header, footer, edited, metadata, images, format, version + 1);
+    }
+
+    // 0 for a newly built document, incremented by every edit
+    public long getVersion() {
+        return version;
+    }
+
+    public List<String> getSections() {
+        // Section lists shared with templates or earlier versions are already immutable
+        if (sections instanceof ChunkedList || sections instanceof PersistentList) {
+            return sections;
+        }
+        return Collections.unmodifiableList(sections);
+    }
+
+    public void printDocument() {
+        System.out.println("Title: " + title);
+        System.out.println("Header: " + header);
+        System.out.println("Footer: " + footer);
+        System.out.println("Sections:");
+        for (String section : sections) {
+            System.out.println("- " + section);
+        }
+        System.out.println("Metadata: " + metadata);
+        System.out.println("Images: " + images);
+        System.out.println("Format: " + format);
+    }
+
+    // Writes the document to the channel in its format through a bounded buffer; the channel is not closed
+    public void render(WritableByteChannel channel) throws IOException {
+        DocumentRenderer.forFormat(format).render(this, channel);
+    }
+
+    // As above, reusing already rendered sections from the cache
+    public void render(WritableByteChannel channel, FragmentCache cache) throws IOException {
+        DocumentRenderer.forFormat(format).render(this, channel, cache);
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String getHeader() {
+        return header;
+    }
+
+    @Override
+    public String getFooter() {
+        return footer;
+    }
+
+    @Override
+    public Iterator<String> sectionIterator() {
+        return sections.iterator();
+    }
+
+    @Override
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public List<String> getImages() {
+        return images;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public String toString() {
+        return "Document{" +
+                "title='" + title + '\'' +
+                ", header='" + header + '\'' +
+                ", footer='" + footer + '\'' +
+                ", sections=" + sections +
+                ", metadata=" + metadata +
+                ", images=" + images +
+                ", format='" + format + '\'' +
+                '}';
+    }
+
+    // Builder
+    static class DocumentBuilder {
+        private String title;
+        private String header;
+        private String footer;
+        private List<String> sections = new ArrayList<>();
+        private Map<String, String> metadata = new HashMap<>();
+        private List<String> images = new ArrayList<>();
+        private String format;
+        private Iterator<String> sectionSource;
+        private static final AsyncLog logger = AsyncLog.getLogger(DocumentBuilder.class);
+
+        public DocumentBuilder(String title) {
+            this.title = title;
+        }
+
+        public DocumentBuilder addHeader(String header) {
+            this.header = header;
+            return this;
+        }
+
+        public DocumentBuilder addFooter(String footer) {
+            this.footer = footer;
+            return this;
+        }
+
+        public DocumentBuilder addSection(String section) {
+            this.sections.add(section);
+            return this;
+        }
+
+        // Appends sections pulled lazily from the iterator. buildStreaming() keeps them lazy;
+        // build() copies them into the document.
+        public DocumentBuilder addSections(Iterator<String> sections) {
+            if (sectionSource != null) {
+                throw new IllegalStateException("A section source has already been added");
+            }
+            this.sectionSource = sections;
+            return this;
+        }
+
+        public DocumentBuilder addMetadata(String key, String value) {
+            this.metadata.put(key, value);
+            return this;
+        }
+
+        public DocumentBuilder addImage(String imagePath) {
+            this.images.add(imagePath);
+            return this;
+        }
+
+        public DocumentBuilder setFormat(String format) {
+            this.format = format;
+            return this;
+        }
+
+        public Document build() {
+            logger.info("Building document: {}", title);
+            if (sectionSource != null) {
+                sectionSource.forEachRemaining(sections::add);
+                sectionSource = null;
+            }
+            validateDocument();
+            return new Document(this);
+        }
+
+        // Builds a single-use document whose sections are produced while it renders
+        public StreamingDocument buildStreaming() {
+            logger.info("Building streaming document: {}", title);
+            validateDocument();
+            Iterator<String> source = sectionSource == null ? Collections.emptyIterator() : sectionSource;
+            Iterator<String> allSections = sections.isEmpty() ? source : concat(sections.iterator(), source);
+            return new StreamingDocument(title, header, footer, allSections,
+                    Collections.unmodifiableMap(metadata), Collections.unmodifiableList(images), format);
+        }
+
+        private static Iterator<String> concat(Iterator<String> first, Iterator<String> second) {
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return first.hasNext() || second.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return first.hasNext() ? first.next() : second.next();
+                }
+            };
+        }
+
+        private void validateDocument() {
+            List<String> errors = new ArrayList<>();
+
+            if (title == null || title.isEmpty()) {
+                errors.add("Title is required");
+            }
+            if (sections.isEmpty() && (sectionSource == null || !sectionSource.hasNext())) {
+                errors.add("Document must have at least one section");
+            }
+            if (format == null || format.isEmpty()) {
+                errors.add("Document format must be specified");
+            }
+
+            if (!errors.isEmpty()) {
+                throw new IllegalStateException("Invalid document: " + String.join(", ", errors));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Director: DocumentGenerator
+// Documents are created from pre-compiled templates. Values shared by a batch are stamped
+// into a per-context copy of the template once, so each document only adds its own data.
+// Documents created one at a time add their timestamp with their own metadata instead, so
+// they don't derive and compile a new template each.
+class DocumentGenerator {
+    private static final AsyncLog logger = AsyncLog.getLogger(DocumentGenerator.class);
+
+    static final DocumentPrototype BASIC_DOCUMENT = new DocumentPrototype.TemplateBuilder("Basic Document")
+            .setFormat("txt")
+            .compile();
+    static final DocumentPrototype CONFIDENTIAL_REPORT = new DocumentPrototype.TemplateBuilder("Confidential Report")
+            .addHeader("Confidential Report")
+            .addFooter("Page {page} of {total}")
+            .setFormat("pdf")
+            .compile();
+    static final DocumentPrototype INTERACTIVE_PRESENTATION = new DocumentPrototype.TemplateBuilder("Interactive Presentation")
+            .addHeader("Interactive Presentation")
+            .setFormat("html")
+            .compile();
+
+    private final Map<String, DocumentPrototype> templates = new ConcurrentHashMap<>();
+    // INTERACTIVE_PRESENTATION stamped with the author and copyright footer, by year
+    private final Map<Integer, DocumentPrototype> presentationTemplates = new ConcurrentHashMap<>();
+
+    public DocumentGenerator() {
+        registerTemplate(BASIC_DOCUMENT);
+        registerTemplate(CONFIDENTIAL_REPORT);
+        registerTemplate(INTERACTIVE_PRESENTATION);
+    }
+
+    public void registerTemplate(DocumentPrototype template) {
+        templates.put(template.getName(), template);
+    }
+
+    public Document createFromTemplate(String templateName, String title, List<String> sections,
+                                       Map<String, String> metadata) {
+        DocumentPrototype template = templates.get(templateName);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown document template: " + templateName);
+        }
+        logger.info("Creating document from template {}: {}", templateName, title);
+        return template.instantiate(title, sections, metadata);
+    }
+
+    public Document createBasicDocument(String title, String content) {
+        logger.info("Creating basic document: {}", title);
+        return BASIC_DOCUMENT.instantiate(title, Collections.singletonList(content), Collections.emptyMap());
+    }
+
+    public Document createDetailedReport(String title, List<String> sections, Map<String, String> metadata) {
+        logger.info("Creating detailed report: {}", title);
+        // The generation timestamp always wins over caller metadata
+        Map<String, String> stamped = new LinkedHashMap<>();
+        stamped.put("Generated", GenerationContext.timestamp(LocalDateTime.now()));
+        metadata.forEach(stamped::putIfAbsent);
+        return CONFIDENTIAL_REPORT.instantiate(title, sections, stamped);
+    }
+
+    // Variant for batch generation: timestamp and author come from the shared context
+    public Document createDetailedReport(String title, List<String> sections, Map<String, String> metadata,
+                                         GenerationContext context) {
+        logger.info("Creating detailed report: {}", title);
+        DocumentPrototype template = context.stamp(CONFIDENTIAL_REPORT, prototype -> prototype
+                .derive(prototype.getName())
+                .addMetadata("Generated", context.getTimestamp())
+                .compile());
+
+        if (metadata.containsKey("Generated")) {
+            // The generation timestamp always wins over caller metadata
+            metadata = new HashMap<>(metadata);
+            metadata.remove("Generated");
+        }
+        return template.instantiate(title, context.intern(sections), metadata);
+    }
+
+    public Document createRichMediaPresentation(String title, List<String> sections, List<String> imagePaths) {
+        logger.info("Creating rich media presentation: {}", title);
+        LocalDateTime time = LocalDateTime.now();
+        DocumentPrototype template = presentationTemplates.computeIfAbsent(time.getYear(),
+                year -> INTERACTIVE_PRESENTATION
+                        .derive(INTERACTIVE_PRESENTATION.getName())
+                        .addFooter(GenerationContext.copyrightFooter(year))
+                        .addMetadata("Author", System.getProperty("user.name"))
+                        .compile());
+        return template.instantiate(title, sections,
+                Collections.singletonMap("Created", GenerationContext.timestamp(time)), imagePaths);
+    }
+
+    public Document createRichMediaPresentation(String title, List<String> sections, List<String> imagePaths,
+                                                GenerationContext context) {
+        logger.info("Creating rich media presentation: {}", title);
+        DocumentPrototype template = context.stamp(INTERACTIVE_PRESENTATION, prototype -> prototype
+                .derive(prototype.getName())
+                .addFooter(context.getCopyrightFooter())
+                .addMetadata("Author", context.getAuthor())
+                .addMetadata("Created", context.getTimestamp())
+                .compile());
+        return template.instantiate(title, context.intern(sections), Collections.emptyMap(),
+                context.intern(imagePaths));
+    }
+}
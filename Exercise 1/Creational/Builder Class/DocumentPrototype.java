@@ -0,0 +1,142 @@
+import java.util.*;
+
+// Immutable, pre-validated document template such as "Confidential Report".
+// A template is validated once when it is compiled. Documents created from it share the
+// template's sections, metadata and images through persistent collections, so creating one
+// copies only the per-document data and re-checks only the per-document parts.
+final class DocumentPrototype {
+    private final String name;
+    private final String header;
+    private final String footer;
+    private final String format;
+    private final PersistentList<String> sections;
+    private final PersistentMap<String, String> metadata;
+    private final PersistentList<String> images;
+
+    private DocumentPrototype(String name, String header, String footer, String format,
+                              PersistentList<String> sections, PersistentMap<String, String> metadata,
+                              PersistentList<String> images) {
+        this.name = name;
+        this.header = header;
+        this.footer = footer;
+        this.format = format;
+        this.sections = sections;
+        this.metadata = metadata;
+        this.images = images;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Creates a document from the template, appending the given sections, metadata and images
+    public Document instantiate(String title, Collection<String> extraSections,
+                                Map<String, String> extraMetadata, Collection<String> extraImages) {
+        if (title == null || title.isEmpty()) {
+            throw new IllegalStateException("Invalid document: Title is required");
+        }
+        if (sections.isEmpty() && extraSections.isEmpty()) {
+            throw new IllegalStateException("Invalid document: Document must have at least one section");
+        }
+        return new Document(title, header, footer, sections.plusAll(extraSections),
+                metadata.plusAll(extraMetadata), images.plusAll(extraImages), format);
+    }
+
+    public Document instantiate(String title, Collection<String> extraSections, Map<String, String> extraMetadata) {
+        return instantiate(title, extraSections, extraMetadata, Collections.emptyList());
+    }
+
+    // Starts a new template from this one, sharing its content
+    public TemplateBuilder derive(String name) {
+        return new TemplateBuilder(name, this);
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentPrototype{name='" + name + "', format='" + format + "'}";
+    }
+
+    // Builder for templates, mirroring Document.DocumentBuilder. Additions are collected and
+    // appended to the parent's content as a single layer when the template is compiled.
+    static class TemplateBuilder {
+        private final String name;
+        private String header;
+        private String footer;
+        private String format;
+        private final PersistentList<String> baseSections;
+        private final PersistentMap<String, String> baseMetadata;
+        private final PersistentList<String> baseImages;
+        private final List<String> sections = new ArrayList<>();
+        private final Map<String, String> metadata = new LinkedHashMap<>();
+        private final List<String> images = new ArrayList<>();
+
+        public TemplateBuilder(String name) {
+            this.name = name;
+            this.baseSections = PersistentList.empty();
+            this.baseMetadata = PersistentMap.empty();
+            this.baseImages = PersistentList.empty();
+        }
+
+        private TemplateBuilder(String name, DocumentPrototype parent) {
+            this.name = name;
+            this.header = parent.header;
+            this.footer = parent.footer;
+            this.format = parent.format;
+            this.baseSections = parent.sections;
+            this.baseMetadata = parent.metadata;
+            this.baseImages = parent.images;
+        }
+
+        public TemplateBuilder addHeader(String header) {
+            this.header = header;
+            return this;
+        }
+
+        public TemplateBuilder addFooter(String footer) {
+            this.footer = footer;
+            return this;
+        }
+
+        public TemplateBuilder addSection(String section) {
+            this.sections.add(section);
+            return this;
+        }
+
+        public TemplateBuilder addMetadata(String key, String value) {
+            this.metadata.put(key, value);
+            return this;
+        }
+
+        public TemplateBuilder addImage(String imagePath) {
+            this.images.add(imagePath);
+            return this;
+        }
+
+        public TemplateBuilder setFormat(String format) {
+            this.format = format;
+            return this;
+        }
+
+        // Validates the template once; documents created from it skip these checks
+        public DocumentPrototype compile() {
+            List<String> errors = new ArrayList<>();
+            if (name == null || name.isEmpty()) {
+                errors.add("Template name is required");
+            }
+            if (format == null || format.isEmpty()) {
+                errors.add("Document format must be specified");
+            } else {
+                try {
+                    DocumentRenderer.forFormat(format);
+                } catch (IllegalArgumentException e) {
+                    errors.add(e.getMessage());
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new IllegalStateException("Invalid template: " + String.join(", ", errors));
+            }
+            return new DocumentPrototype(name, header, footer, format, baseSections.plusAll(sections),
+                    baseMetadata.plusAll(metadata), baseImages.plusAll(images));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+
+// Writes a document section by section to a channel in one output format.
+// Output is a head, one fragment per section and a tail, which lets IncrementalRenderer
+// re-emit just the parts an edit touched.
+// Renderers hold no per-document state, so one instance per format is shared.
+interface DocumentRenderer {
+    // Everything before the first section
+    void writeHead(RenderableDocument document, ChannelWriter out) throws IOException;
+
+    // The output for one section, including its line terminator
+    CharSequence renderSection(String section);
+
+    // Everything after the last section
+    void writeTail(RenderableDocument document, ChannelWriter out) throws IOException;
+
+    default void render(RenderableDocument document, ChannelWriter out) throws IOException {
+        writeHead(document, out);
+        Iterator<String> sections = document.sectionIterator();
+        while (sections.hasNext()) {
+            writeSection(out, sections.next());
+        }
+        writeTail(document, out);
+    }
+
+    default void render(RenderableDocument document, WritableByteChannel channel) throws IOException {
+        render(document, channel, null);
+    }
+
+    // Renders with repeated sections taken from the cache when one is given
+    default void render(RenderableDocument document, WritableByteChannel channel, FragmentCache cache)
+            throws IOException {
+        ChannelWriter out = ChannelWriter.pooled(channel, cache);
+        render(document, out);
+        out.flush();
+    }
+
+    default void writeSection(ChannelWriter out, String section) throws IOException {
+        FragmentCache cache = out.getFragmentCache();
+        if (cache == null) {
+            out.write(renderSection(section));
+        } else {
+            out.write(cache.get(this, section));
+        }
+    }
+
+    static DocumentRenderer forFormat(String format) {
+        switch (format) {
+            case "txt":
+                return TextDocumentRenderer.INSTANCE;
+            case "pdf":
+                return PdfDocumentRenderer.INSTANCE;
+            case "html":
+                return HtmlDocumentRenderer.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unsupported document format: " + format);
+        }
+    }
+}
+
+// Plain text, laid out like Document.printDocument()
+class TextDocumentRenderer implements DocumentRenderer {
+    static final TextDocumentRenderer INSTANCE = new TextDocumentRenderer();
+
+    @Override
+    public void writeHead(RenderableDocument document, ChannelWriter out) throws IOException {
+        out.write("Title: ").writeLine(document.getTitle());
+        out.write("Header: ").writeLine(String.valueOf(document.getHeader()));
+        out.write("Footer: ").writeLine(String.valueOf(document.getFooter()));
+        out.writeLine("Sections:");
+    }
+
+    @Override
+    public CharSequence renderSection(String section) {
+        return new StringBuilder(section.length() + 3).append("- ").append(section).append('\n');
+    }
+
+    @Override
+    public void writeTail(RenderableDocument document, ChannelWriter out) throws IOException {
+        out.write("Metadata: ").writeLine(document.getMetadata().toString());
+        out.write("Images: ").writeLine(document.getImages().toString());
+        out.write("Format: ").writeLine(document.getFormat());
+    }
+}
+
+// Stand-in for PDF output: a PDF-shaped text stream with one text object per section
+class PdfDocumentRenderer implements DocumentRenderer {
+    static final PdfDocumentRenderer INSTANCE = new PdfDocumentRenderer();
+
+    @Override
+    public void writeHead(RenderableDocument document, ChannelWriter out) throws IOException {
+        out.writeLine("%PDF-1.4 (stand-in)");
+        out.write("/Title (").write(escape(document.getTitle())).writeLine(")");
+        for (Map.Entry<String, String> entry : document.getMetadata().entrySet()) {
+            out.write('/').write(entry.getKey()).write(" (").write(escape(entry.getValue())).writeLine(")");
+        }
+        if (document.getHeader() != null) {
+            out.write("BT /Header (").write(escape(document.getHeader())).writeLine(") Tj ET");
+        }
+    }
+
+    @Override
+    public CharSequence renderSection(String section) {
+        return new StringBuilder(section.length() + 16).append("BT (").append(escape(section)).append(") Tj ET\n");
+    }
+
+    @Override
+    public void writeTail(RenderableDocument document, ChannelWriter out) throws IOException {
+        for (String image : document.getImages()) {
+            out.write("/Image (").write(escape(image)).writeLine(") Do");
+        }
+        if (document.getFooter() != null) {
+            out.write("BT /Footer (").write(escape(document.getFooter())).writeLine(") Tj ET");
+        }
+        out.writeLine("%%EOF");
+    }
+
+    private static CharSequence escape(String text) {
+        if (text.indexOf('(') < 0 && text.indexOf(')') < 0 && text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped;
+    }
+}
+
+class HtmlDocumentRenderer implements DocumentRenderer {
+    static final HtmlDocumentRenderer INSTANCE = new HtmlDocumentRenderer();
+
+    @Override
+    public void writeHead(RenderableDocument document, ChannelWriter out) throws IOException {
+        out.writeLine("<!DOCTYPE html>");
+        out.writeLine("<html>");
+        out.write("<head><title>").write(escape(document.getTitle())).writeLine("</title>");
+        for (Map.Entry<String, String> entry : document.getMetadata().entrySet()) {
+            out.write("<meta name=\"").write(escape(entry.getKey()))
+                    .write("\" content=\"").write(escape(entry.getValue())).writeLine("\">");
+        }
+        out.writeLine("</head>");
+        out.writeLine("<body>");
+        if (document.getHeader() != null) {
+            out.write("<header>").write(escape(document.getHeader())).writeLine("</header>");
+        }
+    }
+
+    @Override
+    public CharSequence renderSection(String section) {
+        return new StringBuilder(section.length() + 24).append("<section>").append(escape(section)).append("</section>\n");
+    }
+
+    @Override
+    public void writeTail(RenderableDocument document, ChannelWriter out) throws IOException {
+        for (String image : document.getImages()) {
+            out.write("<img src=\"").write(escape(image)).writeLine("\">");
+        }
+        if (document.getFooter() != null) {
+            out.write("<footer>").write(escape(document.getFooter())).writeLine("</footer>");
+        }
+        out.writeLine("</body>");
+        out.writeLine("</html>");
+    }
+
+    private static CharSequence escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                default:
+                    replacement = null;
+                    break;
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped;
+    }
+}
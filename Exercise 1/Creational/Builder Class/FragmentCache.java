@@ -0,0 +1,91 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// LRU-bounded cache of encoded section fragments, one per renderer and section text, so a
+// section repeated across a batch is escaped and encoded only once. The cache is split
+// into independently locked segments to keep contention low under parallel rendering.
+class FragmentCache {
+    private static final int SEGMENTS = 16;
+
+    private final ConcurrentMap<DocumentRenderer, Segment[]> renderers = new ConcurrentHashMap<>();
+    private final int segmentCapacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FragmentCache(int capacity) {
+        if (capacity < SEGMENTS) {
+            throw new IllegalArgumentException("Fragment cache capacity must be at least " + SEGMENTS);
+        }
+        this.segmentCapacity = capacity / SEGMENTS;
+    }
+
+    public byte[] get(DocumentRenderer renderer, String section) {
+        Segment[] segments = renderers.get(renderer);
+        if (segments == null) {
+            segments = renderers.computeIfAbsent(renderer, key -> newSegments());
+        }
+        Segment segment = segments[(section.hashCode() & 0x7fffffff) % SEGMENTS];
+        byte[] fragment;
+        synchronized (segment) {
+            fragment = segment.get(section);
+        }
+        if (fragment != null) {
+            hits.increment();
+            return fragment;
+        }
+
+        misses.increment();
+        fragment = renderer.renderSection(section).toString().getBytes(StandardCharsets.UTF_8);
+        synchronized (segment) {
+            segment.put(section, fragment);
+        }
+        return fragment;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        long total = getHits() + getMisses();
+        return String.format("%d fragment hits of %d (%.1f%%), %d evictions",
+                getHits(), total, total == 0 ? 0.0 : 100.0 * getHits() / total, getEvictions());
+    }
+
+    private Segment[] newSegments() {
+        Segment[] segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        return segments;
+    }
+
+    private class Segment extends LinkedHashMap<String, byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.UnaryOperator;
+
+// Values stamped into generated documents that are identical across a batch.
+// Computing them once per batch avoids a clock read, a date format and a system
+// property lookup for every document.
+class GenerationContext {
+    private final String timestamp;
+    private final String author;
+    private final String copyrightFooter;
+    private final ContentStore contentStore;
+    private final ConcurrentMap<DocumentPrototype, DocumentPrototype> stampedTemplates = new ConcurrentHashMap<>();
+
+    public GenerationContext(LocalDateTime time, String author) {
+        this(time, author, null);
+    }
+
+    // Documents generated with a content store share one copy of each repeated section and image
+    public GenerationContext(LocalDateTime time, String author, ContentStore contentStore) {
+        this.timestamp = timestamp(time);
+        this.author = author;
+        this.copyrightFooter = copyrightFooter(time.getYear());
+        this.contentStore = contentStore;
+    }
+
+    static String timestamp(LocalDateTime time) {
+        return time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    static String copyrightFooter(int year) {
+        return "© " + year + " Our Company";
+    }
+
+    public static GenerationContext now() {
+        return new GenerationContext(LocalDateTime.now(), System.getProperty("user.name"));
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getCopyrightFooter() {
+        return copyrightFooter;
+    }
+
+    public ContentStore getContentStore() {
+        return contentStore;
+    }
+
+    // Canonical copies of the given contents, or the contents unchanged without a store
+    public List<String> intern(List<String> contents) {
+        return contentStore == null ? contents : contentStore.internAll(contents);
+    }
+
+    // Returns the template with this batch's values baked in, deriving it on first use
+    public DocumentPrototype stamp(DocumentPrototype template, UnaryOperator<DocumentPrototype> stamper) {
+        return stampedTemplates.computeIfAbsent(template, stamper);
+    }
+}
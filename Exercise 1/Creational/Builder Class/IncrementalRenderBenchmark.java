@@ -0,0 +1,114 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.*;
+import java.util.logging.*;
+
+// Applies random edits (replace, insert, remove a section, update metadata) to a large living
+// report and compares re-rendering every version in full with patching the previous output
+// through IncrementalRenderer. Before timing, a smaller report is edited and its patched output
+// is checked byte for byte against a full render.
+// Usage: java IncrementalRenderBenchmark [sections] [edits] [format]
+public class IncrementalRenderBenchmark {
+    public static void main(String[] args) throws IOException {
+        int sectionCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        String format = args.length > 2 ? args[2] : "html";
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        verify(format);
+
+        // Each pass starts from the same report and edits
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            Document[] document = {build(sectionCount, format)};
+            Random random = new Random(7);
+            long fullNanos = 0;
+            long fullBytes = 0;
+            int fullRenders = Math.min(edits, 20);
+            for (int i = 0; i < fullRenders; i++) {
+                document[0] = edit(document[0], random, i);
+                CountingSink counted = new CountingSink();
+                fullNanos += BenchmarkHarness.measure(() -> document[0].render(counted)).getNanos();
+                fullBytes += counted.bytes;
+            }
+
+            IncrementalRenderer incremental = new IncrementalRenderer(format);
+            incremental.render(document[0], new DiscardingChannel());
+            long[] patchBytes = new long[1];
+            BenchmarkHarness.Measurement updates = BenchmarkHarness.measure(() -> {
+                for (int i = 0; i < edits; i++) {
+                    document[0] = edit(document[0], random, i);
+                    patchBytes[0] += incremental.update(document[0], (offset, length, replacement) -> { });
+                }
+            });
+
+            if (report) {
+                System.out.printf("%,d sections, %s%n", sectionCount, format);
+                System.out.printf("Full re-render:   %10.3f ms/edit, %,12d bytes/edit%n",
+                        fullNanos / 1e6 / fullRenders, fullBytes / fullRenders);
+                System.out.printf("Incremental:      %10.3f ms/edit, %,12d bytes/edit (edit + update)%n",
+                        updates.getNanos() / 1e6 / edits, patchBytes[0] / edits);
+            }
+        });
+    }
+
+    // Checks that patching the first render gives the same bytes as rendering each version
+    private static void verify(String format) throws IOException {
+        Document document = build(5_000, format);
+        IncrementalRenderer incremental = new IncrementalRenderer(format);
+        ByteArrayOutputStream initial = new ByteArrayOutputStream();
+        incremental.render(document, Channels.newChannel(initial));
+        StringBuilder patched = new StringBuilder(initial.toString("UTF-8"));
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            document = edit(document, random, i);
+            incremental.update(document, (offset, length, replacement) -> patched.replace(
+                    (int) offset, (int) (offset + length), new String(replacement, "UTF-8")));
+            ByteArrayOutputStream full = new ByteArrayOutputStream();
+            document.render(Channels.newChannel(full));
+            if (!patched.toString().equals(full.toString("UTF-8"))) {
+                throw new IllegalStateException("Patched output differs from full render at version "
+                        + document.getVersion());
+            }
+        }
+        System.out.println("Verified 500 incremental updates against full renders");
+    }
+
+    private static Document edit(Document document, Random random, int step) {
+        if (step % 10 == 9) {
+            return document.withMetadata("Revision", String.valueOf(document.getVersion() + 1));
+        }
+        int size = document.getSections().size();
+        int choice = random.nextInt(4);
+        if (choice == 0 && size > 1) {
+            return document.withSectionRemoved(random.nextInt(size));
+        } else if (choice == 1) {
+            return document.withSectionInserted(random.nextInt(size + 1), "Inserted <note> " + step);
+        }
+        return document.withSectionReplaced(random.nextInt(size), "Revised figures & notes " + step);
+    }
+
+    private static Document build(int sectionCount, String format) {
+        Document.DocumentBuilder builder = new Document.DocumentBuilder("Living report")
+                .addHeader("Confidential Report")
+                .addFooter("Page {page} of {total}")
+                .addMetadata("Department", "Finance")
+                .setFormat(format);
+        for (int i = 0; i < sectionCount; i++) {
+            builder.addSection("Section " + i + ": quarterly figures for region " + (i % 50));
+        }
+        return builder.build();
+    }
+
+    private static class CountingSink extends DiscardingChannel {
+        private long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int written = super.write(src);
+            bytes += written;
+            return written;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Keeps the rendered output of a frequently edited document up to date without re-rendering it.
+// The first render writes the whole document and records an offset index: the encoded length
+// of every section, grouped by the section chunks of the document's ChunkedList. Later versions
+// are compared with the rendered one chunk by chunk; chunks both versions share are skipped by
+// reference, and only the byte ranges of the head, sections and tail that differ are sent to a
+// PatchSink. One instance follows one document and is not thread-safe.
+class IncrementalRenderer {
+    // Receives the changes to previously rendered output
+    interface PatchSink {
+        // Replaces length bytes at offset. Patches of one update arrive in ascending order and
+        // each offset already accounts for the patches before it.
+        void replace(long offset, long length, byte[] replacement) throws IOException;
+
+        // Writes each patch to the channel as offset (8 bytes), length (8 bytes),
+        // replacement length (4 bytes) and the replacement
+        static PatchSink toChannel(WritableByteChannel channel) {
+            return (offset, length, replacement) -> {
+                ByteBuffer record = ByteBuffer.allocate(20 + replacement.length);
+                record.putLong(offset).putLong(length).putInt(replacement.length).put(replacement).flip();
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            };
+        }
+    }
+
+    private final DocumentRenderer renderer;
+    private Document rendered;
+    private byte[] head;
+    private byte[] tail;
+    private Object[][] chunks;
+    private int[][] sectionBytes;
+    private long[] chunkBytes;
+    private long renderedLength;
+
+    public IncrementalRenderer(String format) {
+        this.renderer = DocumentRenderer.forFormat(format);
+    }
+
+    // Writes the whole document and indexes it; the channel is not closed
+    public void render(Document document, WritableByteChannel channel) throws IOException {
+        checkFormat(document);
+        byte[] newHead = encodeHead(document);
+        byte[] newTail = encodeTail(document);
+        Object[][] newChunks = chunksOf(document);
+        int[][] newSectionBytes = new int[newChunks.length][];
+        long[] newChunkBytes = new long[newChunks.length];
+
+        ChannelWriter out = ChannelWriter.pooled(channel);
+        out.write(newHead);
+        for (int c = 0; c < newChunks.length; c++) {
+            Object[] chunk = newChunks[c];
+            newSectionBytes[c] = new int[chunk.length];
+            for (int s = 0; s < chunk.length; s++) {
+                byte[] section = encodeSection((String) chunk[s]);
+                out.write(section);
+                newSectionBytes[c][s] = section.length;
+                newChunkBytes[c] += section.length;
+            }
+        }
+        out.write(newTail);
+        out.flush();
+
+        this.head = newHead;
+        this.tail = newTail;
+        this.chunks = newChunks;
+        this.sectionBytes = newSectionBytes;
+        this.chunkBytes = newChunkBytes;
+        this.renderedLength = out.getBytesWritten();
+        this.rendered = document;
+    }
+
+    // Brings the previously rendered output up to this version of the document.
+    // Returns the number of replacement bytes sent to the sink.
+    public long update(Document document, PatchSink sink) throws IOException {
+        if (rendered == null) {
+            throw new IllegalStateException("Document has not been rendered yet");
+        }
+        checkFormat(document);
+        if (document == rendered) {
+            return 0;
+        }
+        long emitted = 0;
+
+        byte[] newHead = encodeHead(document);
+        emitted += patchRegion(sink, 0, head, newHead);
+        long offset = newHead.length;
+
+        Object[][] newChunks = chunksOf(document);
+        int[][] newSectionBytes = new int[newChunks.length][];
+        long[] newChunkBytes = new long[newChunks.length];
+
+        // Leading and trailing chunks shared with the rendered version are skipped outright
+        int shorter = Math.min(chunks.length, newChunks.length);
+        int leading = 0;
+        while (leading < shorter && chunks[leading] == newChunks[leading]) {
+            newSectionBytes[leading] = sectionBytes[leading];
+            newChunkBytes[leading] = chunkBytes[leading];
+            offset += chunkBytes[leading];
+            leading++;
+        }
+        int trailing = 0;
+        while (trailing < shorter - leading
+                && chunks[chunks.length - 1 - trailing] == newChunks[newChunks.length - 1 - trailing]) {
+            trailing++;
+        }
+        int oldEnd = chunks.length - trailing;
+        int newEnd = newChunks.length - trailing;
+
+        // Shared chunks in between anchor the comparison; each run of chunks between two
+        // anchors is a gap that is compared section by section
+        Map<Object[], Integer> oldChunkIndex = new IdentityHashMap<>();
+        for (int c = leading; c < oldEnd; c++) {
+            oldChunkIndex.put(chunks[c], c);
+        }
+        int oldNext = leading;
+        int gapStart = leading;
+        for (int c = leading; c <= newEnd; c++) {
+            int match;
+            if (c < newEnd) {
+                Integer index = oldChunkIndex.get(newChunks[c]);
+                if (index == null || index < oldNext) {
+                    continue;
+                }
+                match = index;
+            } else {
+                match = oldEnd;
+            }
+            long[] gap = patchGap(sink, offset, oldNext, match, newChunks, gapStart, c, newSectionBytes, newChunkBytes);
+            offset = gap[0];
+            emitted += gap[1];
+            if (c < newEnd) {
+                newSectionBytes[c] = sectionBytes[match];
+                newChunkBytes[c] = chunkBytes[match];
+                offset += chunkBytes[match];
+                oldNext = match + 1;
+                gapStart = c + 1;
+            }
+        }
+        for (int t = 0; t < trailing; t++) {
+            newSectionBytes[newEnd + t] = sectionBytes[oldEnd + t];
+            newChunkBytes[newEnd + t] = chunkBytes[oldEnd + t];
+            offset += chunkBytes[oldEnd + t];
+        }
+
+        byte[] newTail = encodeTail(document);
+        emitted += patchRegion(sink, offset, tail, newTail);
+
+        this.head = newHead;
+        this.tail = newTail;
+        this.chunks = newChunks;
+        this.sectionBytes = newSectionBytes;
+        this.chunkBytes = newChunkBytes;
+        this.renderedLength = offset + newTail.length;
+        this.rendered = document;
+        return emitted;
+    }
+
+    // Total length of the output as of the last render or update
+    public long getRenderedLength() {
+        return renderedLength;
+    }
+
+    public long getRenderedVersion() {
+        if (rendered == null) {
+            throw new IllegalStateException("Document has not been rendered yet");
+        }
+        return rendered.getVersion();
+    }
+
+    // Compares old chunks [oldFrom, oldTo) with new chunks [newFrom, newTo) starting at offset,
+    // patches the differing run of sections and fills in the index for the new chunks.
+    // Returns the offset after the gap and the number of bytes emitted.
+    private long[] patchGap(PatchSink sink, long offset, int oldFrom, int oldTo, Object[][] newChunks,
+                            int newFrom, int newTo, int[][] newSectionBytes, long[] newChunkBytes)
+            throws IOException {
+        List<Object> oldSections = new ArrayList<>();
+        int[] oldLengths = flatten(oldFrom, oldTo, oldSections);
+        List<Object> newSections = new ArrayList<>();
+        for (int c = newFrom; c < newTo; c++) {
+            newSections.addAll(Arrays.asList(newChunks[c]));
+        }
+
+        int prefix = 0;
+        while (prefix < oldSections.size() && prefix < newSections.size()
+                && oldSections.get(prefix).equals(newSections.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSections.size() - prefix && suffix < newSections.size() - prefix
+                && oldSections.get(oldSections.size() - 1 - suffix).equals(newSections.get(newSections.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int[] newLengths = new int[newSections.size()];
+        long patchOffset = offset;
+        for (int i = 0; i < prefix; i++) {
+            newLengths[i] = oldLengths[i];
+            patchOffset += oldLengths[i];
+        }
+        for (int i = 0; i < suffix; i++) {
+            newLengths[newLengths.length - 1 - i] = oldLengths[oldLengths.length - 1 - i];
+        }
+        long removed = 0;
+        for (int i = prefix; i < oldLengths.length - suffix; i++) {
+            removed += oldLengths[i];
+        }
+        ByteArrayOutputStream replacement = new ByteArrayOutputStream();
+        for (int i = prefix; i < newSections.size() - suffix; i++) {
+            byte[] section = encodeSection((String) newSections.get(i));
+            replacement.write(section, 0, section.length);
+            newLengths[i] = section.length;
+        }
+        if (removed > 0 || replacement.size() > 0) {
+            sink.replace(patchOffset, removed, replacement.toByteArray());
+        }
+
+        long end = offset;
+        int next = 0;
+        for (int c = newFrom; c < newTo; c++) {
+            int[] lengths = Arrays.copyOfRange(newLengths, next, next + newChunks[c].length);
+            next += lengths.length;
+            long total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            newSectionBytes[c] = lengths;
+            newChunkBytes[c] = total;
+            end += total;
+        }
+        return new long[] {end, replacement.size()};
+    }
+
+    private int[] flatten(int oldFrom, int oldTo, List<Object> sections) {
+        int count = 0;
+        for (int c = oldFrom; c < oldTo; c++) {
+            count += chunks[c].length;
+        }
+        int[] lengths = new int[count];
+        int next = 0;
+        for (int c = oldFrom; c < oldTo; c++) {
+            sections.addAll(Arrays.asList(chunks[c]));
+            System.arraycopy(sectionBytes[c], 0, lengths, next, sectionBytes[c].length);
+            next += sectionBytes[c].length;
+        }
+        return lengths;
+    }
+
+    // Replaces the part of a head or tail that changed, trimming the common prefix and suffix
+    private static long patchRegion(PatchSink sink, long offset, byte[] oldBytes, byte[] newBytes) throws IOException {
+        int prefix = 0;
+        int shorter = Math.min(oldBytes.length, newBytes.length);
+        while (prefix < shorter && oldBytes[prefix] == newBytes[prefix]) {
+            prefix++;
+        }
+        if (prefix == oldBytes.length && prefix == newBytes.length) {
+            return 0;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && oldBytes[oldBytes.length - 1 - suffix] == newBytes[newBytes.length - 1 - suffix]) {
+            suffix++;
+        }
+        byte[] replacement = Arrays.copyOfRange(newBytes, prefix, newBytes.length - suffix);
+        sink.replace(offset + prefix, oldBytes.length - prefix - suffix, replacement);
+        return replacement.length;
+    }
+
+    // Sections of documents that have not been edited yet are split into chunks here; they
+    // will not match the chunks of the first edited version, which is then compared in full
+    private static Object[][] chunksOf(Document document) {
+        ChunkedList<String> sections = ChunkedList.copyOf(document.getSections());
+        Object[][] result = new Object[sections.chunkCount()][];
+        for (int c = 0; c < result.length; c++) {
+            result[c] = sections.chunk(c);
+        }
+        return result;
+    }
+
+    private void checkFormat(Document document) {
+        if (DocumentRenderer.forFormat(document.getFormat()) != renderer) {
+            throw new IllegalArgumentException("Document format changed to " + document.getFormat());
+        }
+    }
+
+    private byte[] encodeSection(String section) {
+        return renderer.renderSection(section).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encodeHead(Document document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelWriter out = ChannelWriter.pooled(Channels.newChannel(bytes));
+        renderer.writeHead(document, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeTail(Document document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelWriter out = ChannelWriter.pooled(Channels.newChannel(bytes));
+        renderer.writeTail(document, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.*;
+
+// Immutable list that shares structure with the list it was derived from.
+// Each node holds the elements appended in one step plus a reference to the previous
+// version, so appending a batch of sections to a template's sections copies only the batch.
+// Lists built from a few bulk appends (the template case) stay a few nodes deep.
+final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null, new Object[0]);
+
+    private final PersistentList<E> prefix;
+    private final Object[] chunk;
+    private final int size;
+
+    private PersistentList(PersistentList<E> prefix, Object[] chunk) {
+        this.prefix = prefix;
+        this.chunk = chunk;
+        this.size = (prefix == null ? 0 : prefix.size) + chunk.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    public static <E> PersistentList<E> copyOf(Collection<? extends E> elements) {
+        return PersistentList.<E>empty().plusAll(elements);
+    }
+
+    public PersistentList<E> plus(E element) {
+        return new PersistentList<>(isEmpty() ? null : this, new Object[] {element});
+    }
+
+    public PersistentList<E> plusAll(Collection<? extends E> elements) {
+        if (elements.isEmpty()) {
+            return this;
+        }
+        return new PersistentList<>(isEmpty() ? null : this, elements.toArray());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        PersistentList<E> node = this;
+        int start = size - chunk.length;
+        while (index < start) {
+            node = node.prefix;
+            start = node.size - node.chunk.length;
+        }
+        return (E) node.chunk[index - start];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // Walk the chain once to find the chunks in order, then iterate them directly
+        int depth = 0;
+        for (PersistentList<E> node = this; node != null; node = node.prefix) {
+            depth++;
+        }
+        Object[][] chunks = new Object[depth][];
+        for (PersistentList<E> node = this; node != null; node = node.prefix) {
+            chunks[--depth] = node.chunk;
+        }
+        return new Iterator<E>() {
+            private int chunkIndex;
+            private int elementIndex;
+
+            @Override
+            public boolean hasNext() {
+                while (chunkIndex < chunks.length && elementIndex == chunks[chunkIndex].length) {
+                    chunkIndex++;
+                    elementIndex = 0;
+                }
+                return chunkIndex < chunks.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (E) chunks[chunkIndex][elementIndex++];
+            }
+        };
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.*;
+
+// Immutable map that shares structure with the map it was derived from.
+// Each version adds a small layer of entries over the previous version; lookups check the
+// newest layer first, so a template's metadata is shared by every document derived from it.
+// Meant for the shallow, few-entry layers that document metadata produces.
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, new Object[0], new Object[0], 0);
+
+    private final PersistentMap<K, V> base;
+    private final Object[] keys;
+    private final Object[] values;
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentMap(PersistentMap<K, V> base, Object[] keys, Object[] values, int size) {
+        this.base = base;
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> entries) {
+        return PersistentMap.<K, V>empty().plusAll(entries);
+    }
+
+    public PersistentMap<K, V> plus(K key, V value) {
+        return plusAll(Collections.singletonMap(key, value));
+    }
+
+    // Returns a new version with the given entries added or replaced
+    public PersistentMap<K, V> plusAll(Map<? extends K, ? extends V> entries) {
+        if (entries.isEmpty()) {
+            return this;
+        }
+        Object[] newKeys = new Object[entries.size()];
+        Object[] newValues = new Object[entries.size()];
+        int i = 0;
+        int added = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            newKeys[i] = Objects.requireNonNull(entry.getKey(), "Metadata key");
+            newValues[i] = entry.getValue();
+            if (!containsKey(entry.getKey())) {
+                added++;
+            }
+            i++;
+        }
+        return new PersistentMap<>(isEmpty() ? null : this, newKeys, newValues, size + added);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        for (PersistentMap<K, V> layer = this; layer != null; layer = layer.base) {
+            int index = layer.indexOf(key);
+            if (index >= 0) {
+                return (V) layer.values[index];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (PersistentMap<K, V> layer = this; layer != null; layer = layer.base) {
+            if (layer.indexOf(key) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> result = entrySet;
+        if (result == null) {
+            entrySet = result = new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return entryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return result;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Oldest layer first; an entry is skipped if a newer layer redefines its key
+    private Iterator<Entry<K, V>> entryIterator() {
+        List<PersistentMap<K, V>> layers = new ArrayList<>();
+        for (PersistentMap<K, V> layer = this; layer != null; layer = layer.base) {
+            layers.add(layer);
+        }
+        Collections.reverse(layers);
+        return new Iterator<Entry<K, V>>() {
+            private int layerIndex;
+            private int entryIndex;
+            private Entry<K, V> next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> result = next;
+                next = advance();
+                return result;
+            }
+
+            @SuppressWarnings("unchecked")
+            private Entry<K, V> advance() {
+                while (layerIndex < layers.size()) {
+                    PersistentMap<K, V> layer = layers.get(layerIndex);
+                    if (entryIndex == layer.keys.length) {
+                        layerIndex++;
+                        entryIndex = 0;
+                        continue;
+                    }
+                    int index = entryIndex++;
+                    Object key = layer.keys[index];
+                    if (!shadowed(key, layerIndex)) {
+                        return new SimpleImmutableEntry<>((K) key, (V) layer.values[index]);
+                    }
+                }
+                return null;
+            }
+
+            private boolean shadowed(Object key, int layerIndex) {
+                for (int i = layerIndex + 1; i < layers.size(); i++) {
+                    if (layers.get(i).indexOf(key) >= 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
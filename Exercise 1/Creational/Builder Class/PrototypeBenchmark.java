@@ -0,0 +1,53 @@
+import java.util.*;
+import java.util.logging.*;
+
+// Compares building detailed reports through a fresh DocumentBuilder per document (copying
+// and validating everything) with instantiating them from the compiled "Confidential Report"
+// template. Reports nanoseconds and bytes allocated per document.
+// Usage: java PrototypeBenchmark [documents] [sectionsPerDocument]
+public class PrototypeBenchmark {
+    private static volatile Document sink;
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int sectionsPerDocument = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        List<String> sections = new ArrayList<>();
+        for (int i = 0; i < sectionsPerDocument; i++) {
+            sections.add("Section " + i);
+        }
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("Department", "Finance");
+        metadata.put("Classification", "Internal");
+
+        DocumentGenerator generator = new DocumentGenerator();
+        GenerationContext context = GenerationContext.now();
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            BenchmarkHarness.Measurement builder = BenchmarkHarness.measure(documents, () -> {
+                Document.DocumentBuilder documentBuilder = new Document.DocumentBuilder("Report")
+                        .addHeader("Confidential Report")
+                        .addFooter("Page {page} of {total}")
+                        .setFormat("pdf");
+                for (String section : sections) {
+                    documentBuilder.addSection(section);
+                }
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    documentBuilder.addMetadata(entry.getKey(), entry.getValue());
+                }
+                documentBuilder.addMetadata("Generated", context.getTimestamp());
+                sink = documentBuilder.build();
+            });
+            BenchmarkHarness.Measurement prototype = BenchmarkHarness.measure(documents,
+                    () -> sink = generator.createDetailedReport("Report", sections, metadata, context));
+
+            if (report) {
+                System.out.printf("DocumentBuilder: %6.1f ns/doc, %5.0f bytes/doc%n",
+                        builder.getNanosPerOperation(), builder.getBytesPerOperation());
+                System.out.printf("Prototype:       %6.1f ns/doc, %5.0f bytes/doc%n",
+                        prototype.getNanosPerOperation(), prototype.getBytesPerOperation());
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+import java.util.*;
+
+// Read-only view of a document used by the renderers.
+// sectionIterator() may only be traversable once for streaming documents.
+interface RenderableDocument {
+    String getTitle();
+    String getHeader();
+    String getFooter();
+    Iterator<String> sectionIterator();
+    Map<String, String> getMetadata();
+    List<String> getImages();
+    String getFormat();
+}
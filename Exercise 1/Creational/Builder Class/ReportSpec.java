@@ -0,0 +1,52 @@
+import java.util.*;
+
+// Description of one document to produce in a bulk run
+class ReportSpec {
+    enum Type { DETAILED_REPORT, RICH_MEDIA_PRESENTATION }
+
+    private final Type type;
+    private final String title;
+    private final List<String> sections;
+    private final Map<String, String> metadata;
+    private final List<String> images;
+
+    private ReportSpec(Type type, String title, List<String> sections, Map<String, String> metadata, List<String> images) {
+        this.type = type;
+        this.title = title;
+        this.sections = sections;
+        this.metadata = metadata;
+        this.images = images;
+    }
+
+    public static ReportSpec detailedReport(String title, List<String> sections, Map<String, String> metadata) {
+        return new ReportSpec(Type.DETAILED_REPORT, title, sections, metadata, Collections.emptyList());
+    }
+
+    public static ReportSpec richMediaPresentation(String title, List<String> sections, List<String> images) {
+        return new ReportSpec(Type.RICH_MEDIA_PRESENTATION, title, sections, Collections.emptyMap(), images);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Document create(DocumentGenerator generator, GenerationContext context) {
+        switch (type) {
+            case DETAILED_REPORT:
+                return generator.createDetailedReport(title, sections, metadata, context);
+            case RICH_MEDIA_PRESENTATION:
+                return generator.createRichMediaPresentation(title, sections, images, context);
+            default:
+                throw new IllegalStateException("Unknown report type: " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReportSpec{" + type + ", title='" + title + "'}";
+    }
+}
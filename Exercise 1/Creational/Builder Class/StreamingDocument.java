@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+
+// Product: a document whose sections are pulled from an iterator while it is rendered,
+// so a document of any size renders in constant memory. It can be rendered only once.
+class StreamingDocument implements RenderableDocument {
+    private final String title;
+    private final String header;
+    private final String footer;
+    private final Map<String, String> metadata;
+    private final List<String> images;
+    private final String format;
+    private Iterator<String> sections;
+
+    StreamingDocument(String title, String header, String footer, Iterator<String> sections,
+                      Map<String, String> metadata, List<String> images, String format) {
+        this.title = title;
+        this.header = header;
+        this.footer = footer;
+        this.sections = sections;
+        this.metadata = metadata;
+        this.images = images;
+        this.format = format;
+    }
+
+    // Writes the document to the channel in its format; the channel is not closed
+    public void render(WritableByteChannel channel) throws IOException {
+        DocumentRenderer.forFormat(format).render(this, channel);
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String getHeader() {
+        return header;
+    }
+
+    @Override
+    public String getFooter() {
+        return footer;
+    }
+
+    @Override
+    public synchronized Iterator<String> sectionIterator() {
+        if (sections == null) {
+            throw new IllegalStateException("Streaming document has already been rendered: " + title);
+        }
+        Iterator<String> result = sections;
+        sections = null;
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public List<String> getImages() {
+        return images;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingDocument{" +
+                "title='" + title + '\'' +
+                ", format='" + format + '\'' +
+                '}';
+    }
+}
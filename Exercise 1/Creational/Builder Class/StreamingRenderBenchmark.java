@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.lang.management.*;
+import java.util.*;
+import java.util.logging.*;
+
+// Renders documents with a growing number of sections through the streaming path and through
+// a fully built Document, reporting throughput and the largest heap still live after a GC.
+// Usage: java StreamingRenderBenchmark [maxSections] [format]
+public class StreamingRenderBenchmark {
+    private static final int MATERIALIZED_LIMIT = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        long maxSections = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        String format = args.length > 1 ? args[1] : "html";
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            for (long size = 100_000; size <= maxSections; size *= 10) {
+                long sections = size;
+                run(report, "streaming   ", sections, () -> new Document.DocumentBuilder("Streaming report")
+                        .addHeader("Confidential Report")
+                        .addFooter("Page {page} of {total}")
+                        .setFormat(format)
+                        .addSections(generate(sections))
+                        .buildStreaming()
+                        .render(new DiscardingChannel()));
+
+                if (sections <= MATERIALIZED_LIMIT) {
+                    run(report, "materialized", sections, () -> new Document.DocumentBuilder("Materialized report")
+                            .addHeader("Confidential Report")
+                            .addFooter("Page {page} of {total}")
+                            .setFormat(format)
+                            .addSections(generate(sections))
+                            .build()
+                            .render(new DiscardingChannel()));
+                }
+            }
+        });
+    }
+
+    private static void run(boolean report, String label, long sections, BenchmarkHarness.Task<IOException> render)
+            throws IOException {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long baseline = liveAfterGc(heapPools);
+
+        double seconds = BenchmarkHarness.measure(render).getNanos() / 1e9;
+
+        long peakLive = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            peakLive += usage == null ? 0 : usage.getUsed();
+        }
+        if (report) {
+            System.out.printf("%s %,12d sections: %8.0f sections/sec, ~%,d KB live after GC (baseline %,d KB)%n",
+                    label, sections, sections / seconds, peakLive / 1024, baseline / 1024);
+        }
+    }
+
+    private static long liveAfterGc(List<MemoryPoolMXBean> pools) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            used += usage == null ? 0 : usage.getUsed();
+        }
+        return used;
+    }
+
+    private static Iterator<String> generate(long count) {
+        return new Iterator<String>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public String next() {
+                return "Section " + next++ + ": quarterly figures & notes";
+            }
+        };
+    }
+}
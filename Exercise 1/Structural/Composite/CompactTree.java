@@ -0,0 +1,456 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Read-only file system tree stored outside the Java heap, for trees too large to hold as
+// File and Directory objects. Nodes are numbered in the order they were added (a parent always
+// before its children) and stored as struct-of-arrays columns: parent, first child, next
+// sibling, name offset, size and flags. Names live once each in a shared string table.
+// Directory sizes are aggregated when the tree is built.
+//
+// Nodes are exposed as lightweight Node views that extend FileSystemComponent, so callers can
+// use getName(), getSize(), getPath() and display() as for heap components. A tree can be
+// saved to a file and reopened with open(), which memory-maps the columns instead of reading
+// them, so it is usable at once and pages are loaded as they are touched.
+// Each column is a single buffer of at most 2 GB, which limits a tree to about 268 million
+// nodes and 2 GB of distinct names.
+final class CompactTree {
+    private static final int MAGIC = 0x43545245;   // "CTRE"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final byte FLAG_DIRECTORY = 1;
+    private static final int NONE = -1;
+
+    private final int nodeCount;
+    private final IntBuffer parents;
+    private final IntBuffer firstChildren;
+    private final IntBuffer nextSiblings;
+    private final IntBuffer nameOffsets;
+    private final LongBuffer sizes;
+    private final ByteBuffer flags;
+    private final ByteBuffer names;
+
+    private CompactTree(int nodeCount, IntBuffer parents, IntBuffer firstChildren, IntBuffer nextSiblings,
+                        IntBuffer nameOffsets, LongBuffer sizes, ByteBuffer flags, ByteBuffer names) {
+        this.nodeCount = nodeCount;
+        this.parents = parents;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.nameOffsets = nameOffsets;
+        this.sizes = sizes;
+        this.flags = flags;
+        this.names = names;
+    }
+
+    // Copies a heap tree, such as one built by FileSystemLoader
+    public static CompactTree copyOf(Directory root) {
+        Builder builder = new Builder(1024);
+        int rootIndex = builder.addDirectory(NONE, root.getName());
+        copyChildren(builder, root, rootIndex);
+        return builder.build();
+    }
+
+    private static void copyChildren(Builder builder, Directory directory, int index) {
+        List<FileSystemComponent> children = directory.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            FileSystemComponent child = children.get(i);
+            if (child instanceof Directory) {
+                copyChildren(builder, (Directory) child, builder.addDirectory(index, child.getName()));
+            } else {
+                builder.addFile(index, child.getName(), child.getSize());
+            }
+        }
+    }
+
+    // Maps a tree written by save(); the file must not change while the tree is in use
+    public static CompactTree open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a compact tree file: " + file);
+            }
+            int nodeCount = header.getInt();
+            header.getInt();
+            long nameBytes = header.getLong();
+
+            long position = HEADER_BYTES;
+            IntBuffer parents = mapInts(channel, position, nodeCount);
+            position += 4L * nodeCount;
+            IntBuffer firstChildren = mapInts(channel, position, nodeCount);
+            position += 4L * nodeCount;
+            IntBuffer nextSiblings = mapInts(channel, position, nodeCount);
+            position += 4L * nodeCount;
+            IntBuffer nameOffsets = mapInts(channel, position, nodeCount);
+            position += 4L * nodeCount;
+            LongBuffer sizes = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * nodeCount).asLongBuffer();
+            position += 8L * nodeCount;
+            ByteBuffer flags = channel.map(FileChannel.MapMode.READ_ONLY, position, nodeCount);
+            position += nodeCount;
+            ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, position, nameBytes);
+            if (position + nameBytes != channel.size()) {
+                throw new IOException("Truncated or corrupt compact tree file: " + file);
+            }
+            // Mappings stay valid after the channel is closed
+            return new CompactTree(nodeCount, parents, firstChildren, nextSiblings, nameOffsets, sizes, flags, names);
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+    }
+
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(nodeCount).putInt(0).putLong(names.limit()).flip();
+            writeFully(channel, header);
+            writeInts(channel, parents);
+            writeInts(channel, firstChildren);
+            writeInts(channel, nextSiblings);
+            writeInts(channel, nameOffsets);
+            ByteBuffer sizeBytes = ByteBuffer.allocateDirect(64 * 1024);
+            for (int i = 0; i < nodeCount; i++) {
+                if (!sizeBytes.hasRemaining()) {
+                    sizeBytes.flip();
+                    writeFully(channel, sizeBytes);
+                    sizeBytes.clear();
+                }
+                sizeBytes.putLong(sizes.get(i));
+            }
+            sizeBytes.flip();
+            writeFully(channel, sizeBytes);
+            writeFully(channel, flags.duplicate().position(0).limit(nodeCount));
+            writeFully(channel, names.duplicate().position(0));
+        }
+    }
+
+    private void writeInts(FileChannel channel, IntBuffer column) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+        IntBuffer ints = bytes.asIntBuffer();
+        for (int start = 0; start < nodeCount; start += ints.capacity()) {
+            int count = Math.min(ints.capacity(), nodeCount - start);
+            ints.clear();
+            ints.put(column.duplicate().position(start).limit(start + count));
+            bytes.clear().limit(count * 4);
+            writeFully(channel, bytes);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public Node getRoot() {
+        return getNode(0);
+    }
+
+    public Node getNode(int index) {
+        Objects.checkIndex(index, nodeCount);
+        return new Node(index);
+    }
+
+    // Bytes held in columns and the name table, outside the Java heap
+    public long getStorageBytes() {
+        return 25L * nodeCount + names.limit();
+    }
+
+    String nameOf(int index) {
+        int offset = nameOffsets.get(index);
+        int length = names.getInt(offset);
+        byte[] bytes = new byte[length];
+        names.duplicate().position(offset + 4).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // View of one node. Views hold only the tree and a node number and can be created and
+    // dropped freely; two views of the same node are equal.
+    final class Node extends FileSystemComponent {
+        private final int index;
+
+        private Node(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isDirectory() {
+            return (flags.get(index) & FLAG_DIRECTORY) != 0;
+        }
+
+        @Override
+        public String getName() {
+            if (name == null) {
+                name = nameOf(index);
+            }
+            return name;
+        }
+
+        // Total size of the subtree for directories
+        @Override
+        public long getSize() {
+            return sizes.get(index);
+        }
+
+        public Node getParent() {
+            int parent = parents.get(index);
+            return parent == NONE ? null : new Node(parent);
+        }
+
+        @Override
+        public String getPath() {
+            int depth = 0;
+            for (int node = index; node != NONE; node = parents.get(node)) {
+                depth++;
+            }
+            String[] segments = new String[depth];
+            for (int node = index; node != NONE; node = parents.get(node)) {
+                segments[--depth] = nameOf(node);
+            }
+            return "/" + String.join("/", segments);
+        }
+
+        public List<Node> getChildren() {
+            List<Node> children = new ArrayList<>();
+            for (int child = firstChildren.get(index); child != NONE; child = nextSiblings.get(child)) {
+                children.add(new Node(child));
+            }
+            return children;
+        }
+
+        // Children are linked, so this scans them
+        public Node getChild(String childName) {
+            for (int child = firstChildren.get(index); child != NONE; child = nextSiblings.get(child)) {
+                if (nameOf(child).equals(childName)) {
+                    return new Node(child);
+                }
+            }
+            return null;
+        }
+
+        // Walks the subtree through the child, sibling and parent columns and writes it through
+        // one buffered writer, in the same format as TreeLines
+        @Override
+        public void display(int depth) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), 1 << 16);
+            StringBuilder line = new StringBuilder(128);
+            char[] chars = new char[128];
+            int node = index;
+            int nodeDepth = depth;
+            try {
+                while (true) {
+                    line.setLength(0);
+                    line.append(indentation(nodeDepth))
+                            .append((flags.get(node) & FLAG_DIRECTORY) != 0 ? "📁 " : "📄 ")
+                            .append(nameOf(node)).append(" (").append(sizes.get(node)).append(" bytes)\n");
+                    int length = line.length();
+                    if (chars.length < length) {
+                        chars = new char[Math.max(length, chars.length * 2)];
+                    }
+                    line.getChars(0, length, chars, 0);
+                    out.write(chars, 0, length);
+
+                    if (firstChildren.get(node) != NONE) {
+                        node = firstChildren.get(node);
+                        nodeDepth++;
+                        continue;
+                    }
+                    while (node != index && nextSiblings.get(node) == NONE) {
+                        node = parents.get(node);
+                        nodeDepth--;
+                    }
+                    if (node == index) {
+                        break;
+                    }
+                    node = nextSiblings.get(node);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void setParent(FileSystemComponent parent) {
+            throw new UnsupportedOperationException("Compact trees are read-only");
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Node && ((Node) other).tree() == CompactTree.this && ((Node) other).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private CompactTree tree() {
+            return CompactTree.this;
+        }
+    }
+
+    // Appends nodes top-down: a node's parent must be added before it. Columns are direct
+    // buffers that double as they fill; the name table stores repeated names once.
+    static final class Builder {
+        private static final int NAME_CACHE_LIMIT = 1 << 20;
+
+        private int count;
+        private IntBuffer parents;
+        private IntBuffer firstChildren;
+        private IntBuffer nextSiblings;
+        private IntBuffer lastChildren;
+        private IntBuffer nameOffsets;
+        private LongBuffer sizes;
+        private ByteBuffer flags;
+        private ByteBuffer names;
+        private final Map<String, Integer> nameCache = new HashMap<>();
+        private boolean built;
+
+        Builder(int expectedNodes) {
+            int capacity = Math.max(16, expectedNodes);
+            parents = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            firstChildren = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            nextSiblings = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            lastChildren = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            nameOffsets = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            sizes = ByteBuffer.allocateDirect(capacity * 8).asLongBuffer();
+            flags = ByteBuffer.allocateDirect(capacity);
+            names = ByteBuffer.allocateDirect(Math.max(1024, capacity * 8));
+        }
+
+        // Returns the new node's number; pass -1 as the parent for the root
+        int addDirectory(int parent, String name) {
+            return add(parent, name, 0, FLAG_DIRECTORY);
+        }
+
+        int addFile(int parent, String name, long size) {
+            return add(parent, name, size, (byte) 0);
+        }
+
+        private int add(int parent, String name, long size, byte nodeFlags) {
+            if (built) {
+                throw new IllegalStateException("Tree already built");
+            }
+            if (parent == NONE ? count != 0 : parent < 0 || parent >= count) {
+                throw new IllegalArgumentException("Unknown parent node " + parent);
+            }
+            if (parent != NONE && (flags.get(parent) & FLAG_DIRECTORY) == 0) {
+                throw new IllegalArgumentException("Parent node " + parent + " is not a directory");
+            }
+            if (count == parents.capacity()) {
+                grow();
+            }
+            int index = count++;
+            parents.put(index, parent);
+            firstChildren.put(index, NONE);
+            nextSiblings.put(index, NONE);
+            lastChildren.put(index, NONE);
+            nameOffsets.put(index, intern(name));
+            sizes.put(index, size);
+            flags.put(index, nodeFlags);
+            if (parent != NONE) {
+                int last = lastChildren.get(parent);
+                if (last == NONE) {
+                    firstChildren.put(parent, index);
+                } else {
+                    nextSiblings.put(last, index);
+                }
+                lastChildren.put(parent, index);
+            }
+            return index;
+        }
+
+        private int intern(String name) {
+            Integer cached = nameCache.get(name);
+            if (cached != null) {
+                return cached;
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (names.remaining() < bytes.length + 4) {
+                long needed = (long) names.position() + bytes.length + 4;
+                if (needed > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Name table is full");
+                }
+                names = copy(names, (int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * names.capacity())));
+            }
+            int offset = names.position();
+            names.putInt(bytes.length).put(bytes);
+            if (nameCache.size() == NAME_CACHE_LIMIT) {
+                // Keeps the builder's heap use bounded; names seen again later are stored again
+                nameCache.clear();
+            }
+            nameCache.put(name, offset);
+            return offset;
+        }
+
+        // Aggregates directory sizes and freezes the tree
+        CompactTree build() {
+            if (count == 0) {
+                throw new IllegalStateException("Tree has no root");
+            }
+            built = true;
+            // Children come after their parents, so a reverse pass sees every subtree complete
+            for (int i = count - 1; i > 0; i--) {
+                int parent = parents.get(i);
+                sizes.put(parent, sizes.get(parent) + sizes.get(i));
+            }
+            ByteBuffer nameTable = names.duplicate().flip();
+            nameCache.clear();
+            lastChildren = null;
+            return new CompactTree(count, parents, firstChildren, nextSiblings, nameOffsets, sizes, flags,
+                    nameTable.slice());
+        }
+
+        private void grow() {
+            long capacity = 2L * parents.capacity();
+            if (capacity * 8 > Integer.MAX_VALUE) {
+                capacity = Integer.MAX_VALUE / 8;
+                if (capacity <= parents.capacity()) {
+                    throw new IllegalStateException("Compact tree is full");
+                }
+            }
+            int newCapacity = (int) capacity;
+            parents = copy(parents, newCapacity);
+            firstChildren = copy(firstChildren, newCapacity);
+            nextSiblings = copy(nextSiblings, newCapacity);
+            lastChildren = copy(lastChildren, newCapacity);
+            nameOffsets = copy(nameOffsets, newCapacity);
+            LongBuffer grownSizes = ByteBuffer.allocateDirect(newCapacity * 8).asLongBuffer();
+            grownSizes.put(sizes.duplicate().position(0).limit(count));
+            sizes = grownSizes;
+            ByteBuffer grownFlags = ByteBuffer.allocateDirect(newCapacity);
+            grownFlags.put(flags.duplicate().position(0).limit(count));
+            flags = grownFlags;
+        }
+
+        private IntBuffer copy(IntBuffer column, int capacity) {
+            IntBuffer grown = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            grown.put(column.duplicate().position(0).limit(count));
+            return grown;
+        }
+
+        private static ByteBuffer copy(ByteBuffer buffer, int capacity) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            grown.put(buffer.duplicate().flip());
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.logging.*;
+
+// Compares the memory used per node by heap File/Directory objects with CompactTree, then
+// builds a large compact tree, saves it, reopens it by memory-mapping, and checks that the
+// reopened tree gives the same sizes and paths.
+// Usage: java -Xmx2g -XX:MaxDirectMemorySize=4g CompactTreeBenchmark [nodes] [heapNodes]
+public class CompactTreeBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int SUBDIRECTORIES = 10;
+    private static CompactTree tree;
+    private static long fileBytes;
+    private static long rootSize;
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        int heapNodes = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        long before = usedHeap();
+        Directory heapTree = buildHeap(heapNodes);
+        long heapBytes = usedHeap() - before;
+        System.out.printf("Heap tree:    %,12d nodes, %6.1f heap bytes/node%n", heapNodes, (double) heapBytes / heapNodes);
+        CompactTree copied = CompactTree.copyOf(heapTree);
+        if (copied.getRoot().getSize() != heapTree.getSize()) {
+            throw new IllegalStateException("Copied tree size differs");
+        }
+        heapTree = null;
+
+        // Each step runs once: at this size a warm-up pass would double a run of minutes, and
+        // reopening is meant to be measured cold
+        before = usedHeap();
+        BenchmarkHarness.Measurement build = BenchmarkHarness.measure(() -> tree = buildCompact(nodes));
+        heapBytes = usedHeap() - before;
+        System.out.printf("Compact tree: %,12d nodes, %6.1f off-heap bytes/node, %6.1f heap bytes/node, built in %.1f s%n",
+                nodes, (double) tree.getStorageBytes() / nodes, (double) Math.max(0, heapBytes) / nodes, build.getNanos() / 1e9);
+
+        BenchmarkHarness.Measurement fullWalk = BenchmarkHarness.measure(() -> fileBytes = walk(tree.getRoot()));
+        System.out.printf("Full walk through Node views: %.1f s%n", fullWalk.getNanos() / 1e9);
+
+        Path file = Files.createTempFile("compact-tree", ".bin");
+        try {
+            BenchmarkHarness.Measurement save = BenchmarkHarness.measure(() -> tree.save(file));
+            System.out.printf("Saved %,d MB in %.1f s%n", Files.size(file) >> 20, save.getNanos() / 1e9);
+
+            CompactTree[] reopened = new CompactTree[1];
+            BenchmarkHarness.Measurement reopen = BenchmarkHarness.measure(() -> {
+                reopened[0] = CompactTree.open(file);
+                rootSize = reopened[0].getRoot().getSize();
+            });
+            System.out.printf("Reopened and read root size in %.2f ms%n", reopen.getNanos() / 1e6);
+
+            CompactTree.Node last = reopened[0].getNode(nodes - 1);
+            if (rootSize != fileBytes || rootSize != tree.getRoot().getSize()
+                    || !last.getPath().equals(tree.getNode(nodes - 1).getPath())) {
+                throw new IllegalStateException("Reopened tree differs from the saved one");
+            }
+            System.out.printf("Root size %,d bytes; last node %s%n", rootSize, last.getPath());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Same shape as SizeBenchmark: up to 100 files and 10 subdirectories per directory
+    private static Directory buildHeap(int nodes) {
+        Directory root = new Directory("root");
+        ArrayDeque<Directory> pending = new ArrayDeque<>();
+        pending.add(root);
+        int created = 1;
+        Random random = new Random(0);
+        while (created < nodes) {
+            Directory directory = pending.poll();
+            List<FileSystemComponent> children = new ArrayList<>();
+            for (int i = 0; i < FILES_PER_DIRECTORY && created < nodes; i++, created++) {
+                children.add(new File("file" + i, random.nextInt(1 << 20)));
+            }
+            for (int i = 0; i < SUBDIRECTORIES && created < nodes; i++, created++) {
+                Directory child = new Directory("dir" + i);
+                children.add(child);
+                pending.add(child);
+            }
+            directory.addComponents(children);
+        }
+        return root;
+    }
+
+    private static CompactTree buildCompact(int nodes) {
+        CompactTree.Builder builder = new CompactTree.Builder(nodes);
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        pending.add(builder.addDirectory(-1, "root"));
+        int created = 1;
+        Random random = new Random(0);
+        while (created < nodes) {
+            int directory = pending.poll();
+            for (int i = 0; i < FILES_PER_DIRECTORY && created < nodes; i++, created++) {
+                builder.addFile(directory, "file" + i, random.nextInt(1 << 20));
+            }
+            for (int i = 0; i < SUBDIRECTORIES && created < nodes; i++, created++) {
+                pending.add(builder.addDirectory(directory, "dir" + i));
+            }
+        }
+        return builder.build();
+    }
+
+    // Sums file sizes, which must match the aggregated root size
+    private static long walk(CompactTree.Node node) {
+        if (!node.isDirectory()) {
+            return node.getSize();
+        }
+        long total = 0;
+        for (CompactTree.Node child : node.getChildren()) {
+            total += walk(child);
+        }
+        return total;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return heap.getUsed();
+    }
+}
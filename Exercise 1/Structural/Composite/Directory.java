@@ -0,0 +1,205 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+// Composite
+// Keeps the total size of its subtree up to date: adding, removing or resizing a component
+// pushes the size change up the parent chain, so getSize() never walks the tree.
+// Children are hashed by name and kept in insertion order in an array, so lookups and
+// removals by name take constant time however large the directory is, and walking the
+// children allocates nothing. A removal leaves a gap that is closed up once gaps make up half
+// the array, or when getChildren() is next called. Names are unique within a directory.
+class Directory extends FileSystemComponent {
+    private static final FileSystemComponent[] NO_CHILDREN = new FileSystemComponent[0];
+
+    private final Map<String, FileSystemComponent> childrenByName = new HashMap<>();
+    private FileSystemComponent[] children = NO_CHILDREN;
+    // Slots used so far, including gaps left by removals
+    private int slotsUsed;
+    private List<FileSystemComponent> readOnlyChildren;
+    private long size;
+    private static final AsyncLog logger = AsyncLog.getLogger(Directory.class);
+
+    public Directory(String name) {
+        super(name);
+    }
+
+    // A component that already has a parent is moved here from it. The parent is set before
+    // the component is stored, so one that refuses a parent, such as a CompactTree node,
+    // leaves this directory unchanged.
+    public void addComponent(FileSystemComponent component) {
+        checkNameAvailable(component);
+        detachForMove(component);
+        component.setParent(this);
+        append(component);
+        adjustSize(component.getSize());
+        logger.info("Added {} to {}", component.getName(), name);
+    }
+
+    // Adds many components with one size update for the whole batch. If a component cannot be
+    // attached, the ones before it stay added and counted in the size.
+    public void addComponents(Collection<? extends FileSystemComponent> components) {
+        Set<String> names = new HashSet<>();
+        for (FileSystemComponent component : components) {
+            checkNameAvailable(component);
+            if (!names.add(component.getName())) {
+                throw new IllegalArgumentException("Duplicate name " + component.getName() + " added to " + name);
+            }
+        }
+        long added = 0;
+        try {
+            for (FileSystemComponent component : components) {
+                detachForMove(component);
+                component.setParent(this);
+                append(component);
+                added += component.getSize();
+            }
+        } finally {
+            adjustSize(added);
+        }
+        logger.info("Added {} components to {}", (long) components.size(), name);
+    }
+
+    public void removeComponent(FileSystemComponent component) {
+        if (component.parent != this || !childrenByName.remove(component.getName(), component)) {
+            return;
+        }
+        children[component.childSlot] = null;
+        component.childSlot = -1;
+        readOnlyChildren = null;
+        if (slotsUsed > 16 && slotsUsed - childrenByName.size() > slotsUsed / 2) {
+            compact();
+        }
+        component.setParent(null);
+        adjustSize(-component.getSize());
+        logger.info("Removed {} from {}", component.getName(), name);
+    }
+
+    // Writes the whole subtree through one buffered writer; use TreeLines to page through it
+    @Override
+    public void display(int depth) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), 1 << 16);
+        try {
+            new TreeLines(this, depth, TreeLines.UNLIMITED, Collections.emptySet()).writeAll(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    public int getChildCount() {
+        return childrenByName.size();
+    }
+
+    public FileSystemComponent getChild(String childName) {
+        return childrenByName.get(childName);
+    }
+
+    // Resolves an absolute path such as /root/docs/notes.txt against the tree this directory
+    // is the root of, with one hash lookup per path segment. Returns null if nothing is there.
+    public FileSystemComponent resolve(String absolutePath) {
+        if (!absolutePath.startsWith("/")) {
+            throw new IllegalArgumentException("Not an absolute path: " + absolutePath);
+        }
+        int end = absolutePath.indexOf('/', 1);
+        String first = end < 0 ? absolutePath.substring(1) : absolutePath.substring(1, end);
+        if (!first.equals(name)) {
+            return null;
+        }
+        FileSystemComponent current = this;
+        while (end >= 0 && end < absolutePath.length() - 1) {
+            if (!(current instanceof Directory)) {
+                return null;
+            }
+            int start = end + 1;
+            end = absolutePath.indexOf('/', start);
+            String segment = end < 0 ? absolutePath.substring(start) : absolutePath.substring(start, end);
+            current = ((Directory) current).childrenByName.get(segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    // Slot access for traversals that must not change the directory, such as parallel
+    // queries; slots below getSlotCount() may be null where a child was removed
+    int getSlotCount() {
+        return slotsUsed;
+    }
+
+    FileSystemComponent getSlot(int slot) {
+        return children[slot];
+    }
+
+    private void checkNameAvailable(FileSystemComponent component) {
+        FileSystemComponent existing = childrenByName.get(component.getName());
+        if (existing != null && existing != component) {
+            throw new IllegalArgumentException("An item named " + component.getName() + " already exists in " + name);
+        }
+    }
+
+    // Removes a component from its current parent before it is added here
+    private void detachForMove(FileSystemComponent component) {
+        for (FileSystemComponent ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == component) {
+                throw new IllegalArgumentException("Cannot move " + component.getName() + " into itself");
+            }
+        }
+        if (component.parent != null) {
+            ((Directory) component.parent).removeComponent(component);
+        }
+    }
+
+    // Adds delta to the cached size of this directory and every directory above it
+    void adjustSize(long delta) {
+        for (Directory directory = this; directory != null; directory = (Directory) directory.parent) {
+            directory.size += delta;
+        }
+    }
+
+    // Read-only, in insertion order; use addComponent and removeComponent so cached sizes stay correct
+    public List<FileSystemComponent> getChildren() {
+        if (readOnlyChildren == null) {
+            if (slotsUsed != childrenByName.size()) {
+                compact();
+            }
+            readOnlyChildren = Collections.unmodifiableList(Arrays.asList(children).subList(0, slotsUsed));
+        }
+        return readOnlyChildren;
+    }
+
+    private void append(FileSystemComponent component) {
+        if (slotsUsed == children.length) {
+            if (slotsUsed - childrenByName.size() > slotsUsed / 2) {
+                compact();
+            } else {
+                children = Arrays.copyOf(children, Math.max(8, slotsUsed + (slotsUsed >> 1)));
+            }
+        }
+        children[slotsUsed] = component;
+        component.childSlot = slotsUsed++;
+        childrenByName.put(component.getName(), component);
+        readOnlyChildren = null;
+    }
+
+    // Closes the gaps left by removals, keeping insertion order
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < slotsUsed; i++) {
+            FileSystemComponent component = children[i];
+            if (component != null) {
+                children[live] = component;
+                component.childSlot = live++;
+            }
+        }
+        Arrays.fill(children, live, slotsUsed, null);
+        slotsUsed = live;
+        readOnlyChildren = null;
+    }
+}
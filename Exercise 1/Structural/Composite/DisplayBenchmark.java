@@ -0,0 +1,133 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.*;
+
+// Times listing a large tree: the previous recursive display with a println and a repeat()
+// per node, the buffered Directory.display, and the first page and a depth-limited listing
+// through TreeLines. Output goes to /dev/null through a stream set up like the JVM's stdout
+// (autoflush on a small buffer), so write costs are included but the terminal's are not.
+// Usage: java -Xmx2g DisplayBenchmark [nodes]
+public class DisplayBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int SUBDIRECTORIES = 10;
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Directory root = build(nodes);
+
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128),
+                true, StandardCharsets.UTF_8);
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            double recursiveMs;
+            double bufferedMs;
+            double firstPageMs;
+            double depthLimitedMs;
+            int firstPageLines;
+            long depthLimitedLines;
+            System.setOut(discard);
+            try {
+                long start = System.nanoTime();
+                recursiveDisplay(root, 0);
+                recursiveMs = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                root.display(0);
+                bufferedMs = (System.nanoTime() - start) / 1e6;
+
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                start = System.nanoTime();
+                firstPageLines = new TreeLines(root).writeTo(out, 40);
+                out.flush();
+                firstPageMs = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                depthLimitedLines = new TreeLines(root, 0, 3, Collections.emptySet()).writeAll(out);
+                out.flush();
+                depthLimitedMs = (System.nanoTime() - start) / 1e6;
+            } finally {
+                System.setOut(console);
+            }
+            if (report) {
+                System.out.printf("%,d nodes%n", nodes);
+                System.out.printf("Recursive println display:  %,10.1f ms%n", recursiveMs);
+                System.out.printf("Buffered display:           %,10.1f ms%n", bufferedMs);
+                System.out.printf("First page (%d lines):       %,10.3f ms%n", firstPageLines, firstPageMs);
+                System.out.printf("Depth limit 3 (%,d lines): %,10.1f ms%n", depthLimitedLines, depthLimitedMs);
+            }
+        });
+
+        // The lines must match the previous display exactly
+        StringWriter previous = new StringWriter();
+        PrintStream capture = new PrintStream(new WriterOutputStream(previous), true, StandardCharsets.UTF_8);
+        System.setOut(capture);
+        try {
+            recursiveDisplay(root, 0);
+        } finally {
+            System.setOut(console);
+        }
+        StringWriter current = new StringWriter();
+        new TreeLines(root).writeAll(current);
+        if (!previous.toString().equals(current.toString())) {
+            throw new IllegalStateException("Display output differs from the previous display");
+        }
+        System.out.println("Output matches the previous display");
+    }
+
+    // The previous Directory.display and File.display
+    private static void recursiveDisplay(FileSystemComponent component, int depth) {
+        if (component instanceof Directory) {
+            System.out.println("  ".repeat(depth) + "📁 " + component.getName() + " (" + component.getSize() + " bytes)");
+            for (FileSystemComponent child : ((Directory) component).getChildren()) {
+                recursiveDisplay(child, depth + 1);
+            }
+        } else {
+            System.out.println("  ".repeat(depth) + "📄 " + component.getName() + " (" + component.getSize() + " bytes)");
+        }
+    }
+
+    private static Directory build(int nodes) {
+        Directory root = new Directory("root");
+        ArrayDeque<Directory> pending = new ArrayDeque<>();
+        pending.add(root);
+        int created = 1;
+        Random random = new Random(0);
+        while (created < nodes) {
+            Directory directory = pending.poll();
+            List<FileSystemComponent> children = new ArrayList<>();
+            for (int i = 0; i < FILES_PER_DIRECTORY && created < nodes; i++, created++) {
+                children.add(new File("file" + i, random.nextInt(1 << 20)));
+            }
+            for (int i = 0; i < SUBDIRECTORIES && created < nodes; i++, created++) {
+                Directory child = new Directory("dir" + i);
+                children.add(child);
+                pending.add(child);
+            }
+            directory.addComponents(children);
+        }
+        return root;
+    }
+
+    // Collects UTF-8 bytes written to a PrintStream as text
+    private static final class WriterOutputStream extends OutputStream {
+        private final StringWriter target;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        WriterOutputStream(StringWriter target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public void flush() {
+            target.write(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+            bytes.reset();
+        }
+    }
+}
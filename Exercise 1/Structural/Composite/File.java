@@ -0,0 +1,30 @@
+import java.util.logging.*;
+
+// Leaf
+class File extends FileSystemComponent {
+    private long size;
+    private static final Logger logger = Logger.getLogger(File.class.getName());
+
+    public File(String name, long size) {
+        super(name);
+        this.size = size;
+    }
+
+    @Override
+    public void display(int depth) {
+        System.out.println(getIndentation(depth) + "📄 " + name + " (" + size + " bytes)");
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        long delta = size - this.size;
+        this.size = size;
+        if (parent != null) {
+            ((Directory) parent).adjustSize(delta);
+        }
+    }
+}
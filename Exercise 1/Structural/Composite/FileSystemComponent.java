@@ -0,0 +1,99 @@
+import java.util.*;
+
+// Component
+abstract class FileSystemComponent {
+    protected String name;
+    protected FileSystemComponent parent;
+    // Position in the parent's child array, maintained by Directory
+    int childSlot = -1;
+    // Paths are cached per tree. The root of each tree holds an epoch that moves on whenever a
+    // component leaves that tree or a tree is attached below another, and a cached path is
+    // trusted while the epoch it was built under has not moved.
+    private PathEpoch ownEpoch;
+    // The cached path, the parent and parent path it was built from, and the epoch it is valid in
+    private String path;
+    private FileSystemComponent pathParent;
+    private String pathParentPath;
+    private PathEpoch pathEpoch;
+    private long pathEpochValue;
+    // Indentation strings by depth, built once and shared by every display
+    private static volatile String[] indentations = {""};
+
+    public FileSystemComponent(String name) {
+        this.name = name;
+    }
+
+    public abstract void display(int depth);
+    public abstract long getSize();
+
+    public void setParent(FileSystemComponent parent) {
+        if (parent == this.parent) {
+            return;
+        }
+        if (this.parent != null) {
+            // The subtree's paths were built under the epoch of the tree it leaves
+            this.parent.rootEpoch().value++;
+        } else if (ownEpoch != null) {
+            // It was a root, so its subtree's paths were built under its own epoch
+            ownEpoch.value++;
+        }
+        this.parent = parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Absolute path such as /root/docs/notes.txt; a component without a parent is a root.
+    // The path string is cached and returned as is while its tree's epoch is unchanged.
+    // Otherwise it is checked against the parent's path, and reused if the parent and the
+    // parent's path are the same objects it was built from, so after a move only the paths
+    // below the moved component are rebuilt, lazily on their next use.
+    public String getPath() {
+        if (path != null && pathEpoch.value == pathEpochValue) {
+            return path;
+        }
+        FileSystemComponent currentParent = parent;
+        String parentPath = currentParent == null ? null : currentParent.getPath();
+        PathEpoch epoch = currentParent == null ? rootEpoch() : currentParent.pathEpoch;
+        if (path == null || currentParent != pathParent || parentPath != pathParentPath) {
+            path = parentPath == null ? "/" + name : parentPath + "/" + name;
+            pathParent = currentParent;
+            pathParentPath = parentPath;
+        }
+        pathEpoch = epoch;
+        pathEpochValue = epoch.value;
+        return path;
+    }
+
+    private PathEpoch rootEpoch() {
+        FileSystemComponent root = this;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        if (root.ownEpoch == null) {
+            root.ownEpoch = new PathEpoch();
+        }
+        return root.ownEpoch;
+    }
+
+    protected String getIndentation(int depth) {
+        return indentation(depth);
+    }
+
+    static String indentation(int depth) {
+        String[] cached = indentations;
+        if (depth >= cached.length) {
+            String[] grown = Arrays.copyOf(cached, Math.max(depth + 1, cached.length * 2));
+            for (int i = cached.length; i < grown.length; i++) {
+                grown[i] = grown[i - 1] + "  ";
+            }
+            indentations = cached = grown;
+        }
+        return cached[depth];
+    }
+
+    private static final class PathEpoch {
+        long value;
+    }
+}
@@ -1,94 +1,17 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
 import java.util.*;
 import java.util.logging.*;
 
-// Component
-abstract class FileSystemComponent {
-    protected String name;
-    protected FileSystemComponent parent;
-
-    public FileSystemComponent(String name) {
-        this.name = name;
-    }
-
-    public abstract void display(int depth);
-    public abstract long getSize();
-
-    public void setParent(FileSystemComponent parent) {
-        this.parent = parent;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    protected String getIndentation(int depth) {
-        return "  ".repeat(depth);
-    }
-}
-
-// Leaf
-class File extends FileSystemComponent {
-    private long size;
-    private static final Logger logger = Logger.getLogger(File.class.getName());
-
-    public File(String name, long size) {
-        super(name);
-        this.size = size;
-    }
-
-    @Override
-    public void display(int depth) {
-        System.out.println(getIndentation(depth) + "📄 " + name + " (" + size + " bytes)");
-    }
-
-    @Override
-    public long getSize() {
-        return size;
-    }
-}
-
-// Composite
-class Directory extends FileSystemComponent {
-    private List<FileSystemComponent> children = new ArrayList<>();
-    private static final Logger logger = Logger.getLogger(Directory.class.getName());
-
-    public Directory(String name) {
-        super(name);
-    }
-
-    public void addComponent(FileSystemComponent component) {
-        children.add(component);
-        component.setParent(this);
-        logger.info("Added " + component.getName() + " to " + name);
-    }
-
-    public void removeComponent(FileSystemComponent component) {
-        children.remove(component);
-        logger.info("Removed " + component.getName() + " from " + name);
-    }
-
-    @Override
-    public void display(int depth) {
-        System.out.println(getIndentation(depth) + "📁 " + name + " (" + getSize() + " bytes)");
-        for (FileSystemComponent component : children) {
-            component.display(depth + 1);
-        }
-    }
-
-    @Override
-    public long getSize() {
-        return children.stream().mapToLong(FileSystemComponent::getSize).sum();
-    }
-
-    public List<FileSystemComponent> getChildren() {
-        return children;
-    }
-}
-
 // File System Ex1plorer
 public class FileSystemExplorer {
     private Directory root;
     private Directory currentDirectory;
+    private final FileSystemLoader loader = new FileSystemLoader();
+    // Directories listed with their item count instead of their contents
+    private final Set<FileSystemComponent> collapsed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final int PAGE_LINES = 40;
     private static final Logger logger = Logger.getLogger(FileSystemExplorer.class.getName());
 
     public FileSystemExplorer() {
@@ -100,6 +23,7 @@ public class FileSystemExplorer {
         Scanner scanner = new Scanner(System.in);
 
         while (true) {
+            refreshLoadedDirectories();
             System.out.println("\nCurrent Directory: " + getCurrentPath());
             System.out.println("1. List contents");
             System.out.println("2. Add file");
@@ -108,14 +32,16 @@ public class FileSystemExplorer {
             System.out.println("5. Navigate to subdirectory");
             System.out.println("6. Navigate up");
             System.out.println("7. Exit");
+            System.out.println("8. Load directory from disk");
+            System.out.println("9. Collapse or expand subdirectory");
 
-            System.out.print("Enter your choice (1-7): ");
+            System.out.print("Enter your choice (1-9): ");
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
             switch (choice) {
                 case 1:
-                    currentDirectory.display(0);
+                    listContents(scanner);
                     break;
                 case 2:
                     addFile(scanner);
@@ -134,42 +60,128 @@ public class FileSystemExplorer {
                     break;
                 case 7:
                     System.out.println("Exiting File System Explorer. Goodbye!");
+                    closeLoader();
                     return;
+                case 8:
+                    loadDirectory(scanner);
+                    break;
+                case 9:
+                    toggleCollapsed(scanner);
+                    break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
         }
     }
 
+    // Shows a page at a time; only the lines shown are rendered
+    private void listContents(Scanner scanner) {
+        TreeLines lines = new TreeLines(currentDirectory, 0, TreeLines.UNLIMITED, collapsed);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), 1 << 16);
+        try {
+            while (lines.writeTo(out, PAGE_LINES) == PAGE_LINES && lines.hasNext()) {
+                out.write("-- Enter for more, q to stop --");
+                out.flush();
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.warning("Listing failed: " + e.getMessage());
+        }
+    }
+
+    private void toggleCollapsed(Scanner scanner) {
+        System.out.print("Enter subdirectory name or absolute path: ");
+        String dirName = scanner.nextLine();
+        FileSystemComponent component = dirName.startsWith("/")
+                ? root.resolve(dirName)
+                : currentDirectory.getChild(dirName);
+        if (!(component instanceof Directory)) {
+            System.out.println("Subdirectory not found.");
+        } else if (collapsed.remove(component)) {
+            System.out.println("Expanded " + component.getPath());
+        } else {
+            collapsed.add(component);
+            System.out.println("Collapsed " + component.getPath());
+        }
+    }
+
     private void addFile(Scanner scanner) {
         System.out.print("Enter file name: ");
         String fileName = scanner.nextLine();
         System.out.print("Enter file size (bytes): ");
         long fileSize = scanner.nextLong();
-        currentDirectory.addComponent(new File(fileName, fileSize));
+        addToCurrentDirectory(new File(fileName, fileSize));
     }
 
     private void addDirectory(Scanner scanner) {
         System.out.print("Enter directory name: ");
         String dirName = scanner.nextLine();
-        currentDirectory.addComponent(new Directory(dirName));
+        addToCurrentDirectory(new Directory(dirName));
+    }
+
+    private void addToCurrentDirectory(FileSystemComponent component) {
+        try {
+            currentDirectory.addComponent(component);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void loadDirectory(Scanner scanner) {
+        System.out.print("Enter directory path: ");
+        String path = scanner.nextLine();
+        try {
+            Directory loaded = loader.watch(Paths.get(path));
+            addToCurrentDirectory(loaded);
+            System.out.printf("Loaded %d items at %.0f items/sec%n",
+                    loader.getLastNodeCount(), loader.getLastNodesPerSecond());
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Cannot load " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Picks up changes on disk to directories loaded with option 8
+    private void refreshLoadedDirectories() {
+        try {
+            loader.refresh();
+        } catch (IOException e) {
+            logger.warning("Refreshing loaded directories failed: " + e.getMessage());
+        }
+    }
+
+    private void closeLoader() {
+        try {
+            loader.close();
+        } catch (IOException e) {
+            logger.warning("Closing the directory watcher failed: " + e.getMessage());
+        }
     }
 
     private void deleteItem(Scanner scanner) {
         System.out.print("Enter item name to delete: ");
         String itemName = scanner.nextLine();
-        currentDirectory.getChildren().removeIf(component -> component.getName().equals(itemName));
+        FileSystemComponent item = currentDirectory.getChild(itemName);
+        if (item != null) {
+            currentDirectory.removeComponent(item);
+        } else {
+            System.out.println("Item not found.");
+        }
     }
 
+    // Accepts a subdirectory name or an absolute path such as /root/docs
     private void navigateToSubdirectory(Scanner scanner) {
-        System.out.print("Enter subdirectory name: ");
+        System.out.print("Enter subdirectory name or absolute path: ");
         String subDirName = scanner.nextLine();
-        for (FileSystemComponent component : currentDirectory.getChildren()) {
-            if (component instanceof Directory && component.getName().equals(subDirName)) {
-                currentDirectory = (Directory) component;
-                logger.info("Navigated to " + subDirName);
-                return;
-            }
+        FileSystemComponent component = subDirName.startsWith("/")
+                ? root.resolve(subDirName)
+                : currentDirectory.getChild(subDirName);
+        if (component instanceof Directory) {
+            currentDirectory = (Directory) component;
+            logger.info("Navigated to " + subDirName);
+            return;
         }
         System.out.println("Subdirectory not found.");
     }
@@ -184,17 +196,11 @@ public class FileSystemExplorer {
     }
 
     private String getCurrentPath() {
-        List<String> path = new ArrayList<>();
-        FileSystemComponent current = currentDirectory;
-        while (current != null) {
-            path.add(0, current.getName());
-            current = current.parent;
-        }
-        return "/" + String.join("/", path);
+        return currentDirectory.getPath();
     }
 
     public static void main(String[] args) {
         System.out.println("Welcome to the Interactive File System Explorer!");
         new FileSystemExplorer().explore();
     }
-}
\ No newline at end of file
+}
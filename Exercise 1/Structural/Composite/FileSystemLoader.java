@@ -0,0 +1,242 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Loads a directory tree from disk into Directory and File components.
+// Directories are scanned in parallel on a fork-join pool: each task lists one directory with a
+// DirectoryStream, reads only the basic attributes of its entries, forks a task per
+// subdirectory and attaches all children in one bulk insertion once they are built. A
+// Directory is only touched by the task that creates it until it is attached, so the tree
+// needs no locking. Symbolic links are recorded as files and never followed.
+//
+// Trees loaded with watch() can be kept current with refresh(), which applies the changes the
+// WatchService reported and re-scans only the directories that were created or overflowed.
+class FileSystemLoader implements Closeable {
+    private static final AsyncLog logger = AsyncLog.getLogger(FileSystemLoader.class);
+
+    private final ForkJoinPool pool;
+    private final Map<WatchKey, WatchedDirectory> watched = new ConcurrentHashMap<>();
+    private final AtomicBoolean watchLimitReported = new AtomicBoolean();
+    private WatchService watchService;
+    private long lastNodeCount;
+    private double lastNodesPerSecond;
+
+    public FileSystemLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public FileSystemLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Loads the tree rooted at the given directory
+    public Directory load(Path root) throws IOException {
+        return scan(root, false);
+    }
+
+    // Loads the tree and watches every directory in it for changes; see refresh()
+    public Directory watch(Path root) throws IOException {
+        synchronized (this) {
+            if (watchService == null) {
+                watchService = root.getFileSystem().newWatchService();
+            }
+        }
+        return scan(root, true);
+    }
+
+    // Applies the changes reported since the last call without blocking.
+    // Returns the number of change events applied.
+    public int refresh() throws IOException {
+        if (watchService == null) {
+            return 0;
+        }
+        int applied = 0;
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            WatchedDirectory target = watched.get(key);
+            if (target != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    apply(target, event);
+                    applied++;
+                }
+            } else {
+                key.pollEvents();
+            }
+            if (!key.reset()) {
+                // The directory is gone or no longer accessible
+                watched.remove(key);
+            }
+        }
+        return applied;
+    }
+
+    // Number of components created by the last load, watch or rescan
+    public long getLastNodeCount() {
+        return lastNodeCount;
+    }
+
+    public double getLastNodesPerSecond() {
+        return lastNodesPerSecond;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+            watched.clear();
+        }
+    }
+
+    private Directory scan(Path root, boolean watch) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory()) {
+            throw new NotDirectoryException(root.toString());
+        }
+        LongAdder nodes = new LongAdder();
+        long start = System.nanoTime();
+        Directory directory = pool.invoke(new ScanTask(root, nameOf(root), watch, nodes));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        lastNodeCount = nodes.sum() + 1;
+        lastNodesPerSecond = seconds > 0 ? lastNodeCount / seconds : 0;
+        logger.info("Loaded {} nodes from {}", lastNodeCount, root);
+        logger.info("Load rate: {} nodes/sec", (long) lastNodesPerSecond);
+        return directory;
+    }
+
+    private void apply(WatchedDirectory target, WatchEvent<?> event) throws IOException {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // Events were lost; rebuild this directory's contents from disk
+            Directory rescanned = scan(target.path, true);
+            List<FileSystemComponent> children = new ArrayList<>(target.directory.getChildren());
+            for (FileSystemComponent child : children) {
+                target.directory.removeComponent(child);
+            }
+            target.directory.addComponents(new ArrayList<>(rescanned.getChildren()));
+            register(target.path, target.directory);
+            return;
+        }
+
+        String name = event.context().toString();
+        FileSystemComponent existing = target.directory.getChild(name);
+        Path path = target.path.resolve(name);
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            if (existing != null) {
+                target.directory.removeComponent(existing);
+            }
+            return;
+        }
+
+        BasicFileAttributes attributes = readAttributes(path);
+        if (attributes == null) {
+            // Already gone again; its delete event follows
+            return;
+        }
+        if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && existing instanceof File
+                && !attributes.isDirectory()) {
+            ((File) existing).setSize(attributes.size());
+            return;
+        }
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE || existing == null) {
+            if (existing != null) {
+                target.directory.removeComponent(existing);
+            }
+            FileSystemComponent created = attributes.isDirectory()
+                    ? scan(path, true)
+                    : new File(name, attributes.size());
+            target.directory.addComponent(created);
+        }
+    }
+
+    private void register(Path path, Directory directory) {
+        try {
+            WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watched.put(key, new WatchedDirectory(path, directory));
+        } catch (IOException e) {
+            // Typically the per-user watch limit; the directory is still loaded, just not refreshed
+            if (watchLimitReported.compareAndSet(false, true)) {
+                logger.warning("Cannot watch {}: {}", path, e);
+            }
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String nameOf(Path path) {
+        Path fileName = path.getFileName();
+        return fileName == null ? path.toString() : fileName.toString();
+    }
+
+    // Scans one directory and, through forked subtasks, everything below it
+    private final class ScanTask extends RecursiveTask<Directory> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path path;
+        private final String name;
+        private final boolean watch;
+        private final LongAdder nodes;
+
+        ScanTask(Path path, String name, boolean watch, LongAdder nodes) {
+            this.path = path;
+            this.name = name;
+            this.watch = watch;
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected Directory compute() {
+            Directory directory = new Directory(name);
+            List<FileSystemComponent> children = new ArrayList<>();
+            List<ScanTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = readAttributes(entry);
+                    if (attributes == null) {
+                        continue;
+                    }
+                    String entryName = entry.getFileName().toString();
+                    if (attributes.isDirectory()) {
+                        ScanTask task = new ScanTask(entry, entryName, watch, nodes);
+                        task.fork();
+                        subdirectories.add(task);
+                    } else {
+                        children.add(new File(entryName, attributes.size()));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.warning("Cannot read {}: {}", path, e);
+            }
+            for (ScanTask task : subdirectories) {
+                children.add(task.join());
+            }
+            directory.addComponents(children);
+            nodes.add(children.size());
+            if (watch) {
+                register(path, directory);
+            }
+            return directory;
+        }
+    }
+
+    private static final class WatchedDirectory {
+        final Path path;
+        final Directory directory;
+
+        WatchedDirectory(Path path, Directory directory) {
+            this.path = path;
+            this.directory = directory;
+        }
+    }
+}
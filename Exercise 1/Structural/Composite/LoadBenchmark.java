@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.*;
+
+// Loads a real directory tree into components and reports nodes/sec for a sequential
+// Files.walkFileTree baseline and for FileSystemLoader with one worker and with the common
+// pool. Then checks incremental refresh: a small temporary tree is watched, changed on disk,
+// refreshed, and compared with a fresh load.
+// Usage: java LoadBenchmark [path]
+public class LoadBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "/usr");
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        // The warm-up pass also fills the OS directory cache
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            long[] walked = new long[1];
+            Directory[] tree = new Directory[1];
+            BenchmarkHarness.Measurement walk = BenchmarkHarness.measure(() -> tree[0] = walkFileTree(root, walked));
+            report(report, "Files.walkFileTree (sequential)", walked[0], walk, tree[0]);
+
+            ForkJoinPool single = new ForkJoinPool(1);
+            FileSystemLoader singleLoader = new FileSystemLoader(single);
+            BenchmarkHarness.Measurement load = BenchmarkHarness.measure(() -> tree[0] = singleLoader.load(root));
+            report(report, "FileSystemLoader, 1 worker", singleLoader.getLastNodeCount(), load, tree[0]);
+            single.shutdown();
+
+            FileSystemLoader poolLoader = new FileSystemLoader();
+            load = BenchmarkHarness.measure(() -> tree[0] = poolLoader.load(root));
+            report(report, "FileSystemLoader, common pool (" + ForkJoinPool.commonPool().getParallelism() + ")",
+                    poolLoader.getLastNodeCount(), load, tree[0]);
+        });
+
+        checkRefresh();
+    }
+
+    private static void report(boolean report, String label, long nodes, BenchmarkHarness.Measurement load, Directory tree) {
+        double seconds = load.getNanos() / 1e9;
+        if (report) {
+            System.out.printf("%-36s %,10d nodes, %,12.0f nodes/sec, %,d bytes%n",
+                    label, nodes, nodes / seconds, tree.getSize());
+        }
+    }
+
+    private static Directory walkFileTree(Path root, long[] nodes) throws IOException {
+        Deque<Directory> stack = new ArrayDeque<>();
+        Directory[] result = new Directory[1];
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path fileName = dir.getFileName();
+                Directory directory = new Directory(fileName == null ? dir.toString() : fileName.toString());
+                if (stack.isEmpty()) {
+                    result[0] = directory;
+                } else {
+                    stack.peek().addComponent(directory);
+                }
+                stack.push(directory);
+                nodes[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                stack.peek().addComponent(new File(file.getFileName().toString(), attrs.size()));
+                nodes[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                stack.pop();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result[0];
+    }
+
+    private static void checkRefresh() throws IOException, InterruptedException {
+        Path root = Files.createTempDirectory("load-benchmark");
+        try {
+            Files.createDirectories(root.resolve("a/b"));
+            Files.write(root.resolve("a/one.txt"), new byte[100]);
+            Files.write(root.resolve("a/b/two.txt"), new byte[200]);
+            Files.write(root.resolve("three.txt"), new byte[300]);
+
+            try (FileSystemLoader loader = new FileSystemLoader()) {
+                Directory tree = loader.watch(root);
+                Files.write(root.resolve("a/one.txt"), new byte[1_000]);
+                Files.delete(root.resolve("three.txt"));
+                Files.createDirectories(root.resolve("a/b/c"));
+                Files.write(root.resolve("a/b/c/four.txt"), new byte[4_000]);
+                Files.write(root.resolve("five.txt"), new byte[5_000]);
+
+                long expected = new FileSystemLoader().load(root).getSize();
+                long deadline = System.nanoTime() + 5_000_000_000L;
+                int events = 0;
+                while (tree.getSize() != expected && System.nanoTime() < deadline) {
+                    Thread.sleep(50);
+                    events += loader.refresh();
+                }
+                System.out.printf("Refresh: %d events applied, watched size %,d bytes, fresh load %,d bytes (%s)%n",
+                        events, tree.getSize(), expected, tree.getSize() == expected ? "match" : "MISMATCH");
+            }
+        } finally {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+}
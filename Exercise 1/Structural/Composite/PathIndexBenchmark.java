@@ -0,0 +1,127 @@
+import java.util.*;
+import java.util.logging.*;
+
+// Measures navigation on large trees: finding and deleting children of a directory with a
+// million entries by name, building the path of a deeply nested directory, and resolving
+// absolute paths. Each is compared with the linear scans and path rebuild the explorer used
+// before, which are reproduced here.
+// Usage: java -Xmx2g PathIndexBenchmark [entries] [depth]
+public class PathIndexBenchmark {
+    private static long sink;
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        // Each pass builds its own tree, so the first getPath is timed before any is cached
+        BenchmarkHarness.warmUpThenMeasure(report -> run(entries, depth, report));
+    }
+
+    private static void run(int entries, int depth, boolean report) {
+        Directory root = new Directory("root");
+        Directory big = new Directory("big");
+        root.addComponent(big);
+        List<FileSystemComponent> batch = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            batch.add(i % 10 == 0 ? new Directory("entry" + i) : new File("entry" + i, i));
+        }
+        big.addComponents(batch);
+
+        Random random = new Random(3);
+        int lookups = 200;
+        double linear = perCall(lookups, () -> {
+            for (int i = 0; i < lookups; i++) {
+                sink += linearFind(big, "entry" + random.nextInt(entries)) == null ? 0 : 1;
+            }
+        });
+        double hashed = perCall(lookups * 1000, () -> {
+            for (int i = 0; i < lookups * 1000; i++) {
+                sink += big.getChild("entry" + random.nextInt(entries)) == null ? 0 : 1;
+            }
+        });
+
+        int deletes = 100_000;
+        double deleted = perCall(deletes, () -> {
+            for (int i = 0; i < deletes; i++) {
+                FileSystemComponent child = big.getChild("entry" + i * (entries / deletes));
+                if (child != null) {
+                    big.removeComponent(child);
+                }
+            }
+        });
+
+        Directory deepest = root;
+        for (int i = 0; i < depth; i++) {
+            Directory child = new Directory("level" + i);
+            deepest.addComponent(child);
+            deepest = child;
+        }
+        Directory leaf = deepest;
+        int pathCalls = 1_000;
+        double rebuilt = perCall(pathCalls, () -> {
+            for (int i = 0; i < pathCalls; i++) {
+                sink += rebuildPath(leaf).length();
+            }
+        });
+        double first = perCall(1, () -> sink += leaf.getPath().length());
+        // Enough calls for the loop to be compiled, at a few nanoseconds each
+        int cachedCalls = pathCalls * 1000;
+        double cached = perCall(cachedCalls, () -> {
+            for (int i = 0; i < cachedCalls; i++) {
+                sink += leaf.getPath().length();
+            }
+        });
+
+        // Moving a subtree must change the cached paths below it
+        Directory moved = (Directory) root.resolve("/root/level0/level1");
+        big.addComponent(moved);
+        String expected = "/root/big/level1" + leaf.getPath().substring(leaf.getPath().indexOf("/level2"));
+        if (!leaf.getPath().equals(expected) || !leaf.getPath().equals(rebuildPath(leaf))
+                || root.resolve(leaf.getPath()) != leaf) {
+            throw new IllegalStateException("Stale path after move: " + leaf.getPath());
+        }
+
+        String path = leaf.getPath();
+        int resolves = 10_000;
+        double resolved = perCall(resolves, () -> {
+            for (int i = 0; i < resolves; i++) {
+                sink += root.resolve(path) == leaf ? 1 : 0;
+            }
+        });
+
+        if (report) {
+            System.out.printf("Find child among %,d: linear scan %,10.2f us, hashed %,8.3f us%n", entries, linear, hashed);
+            System.out.printf("Delete by name: %,.3f us each (%,d deletes)%n", deleted, deletes);
+            System.out.printf("Path at depth %,d: rebuilt %,.2f us, first getPath %,.2f us, cached %,.3f us%n",
+                    depth, rebuilt, first, cached);
+            System.out.printf("Resolve absolute path (%,d segments): %,.2f us%n", depth + 2, resolved);
+        }
+    }
+
+    // Microseconds per call for a task making the given number of calls
+    private static double perCall(int calls, BenchmarkHarness.Task<RuntimeException> task) {
+        return BenchmarkHarness.measure(task).getNanos() / 1e3 / calls;
+    }
+
+    // The explorer's previous navigateToSubdirectory lookup
+    private static FileSystemComponent linearFind(Directory directory, String name) {
+        for (FileSystemComponent component : directory.getChildren()) {
+            if (component.getName().equals(name)) {
+                return component;
+            }
+        }
+        return null;
+    }
+
+    // The explorer's previous getCurrentPath
+    private static String rebuildPath(FileSystemComponent component) {
+        List<String> path = new ArrayList<>();
+        FileSystemComponent current = component;
+        while (current != null) {
+            path.add(0, current.getName());
+            current = current.parent;
+        }
+        return "/" + String.join("/", path);
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.*;
+
+// Runs each TreeQueries query on a generated tree with pools of 1 up to the number of cores,
+// checks the results against a plain sequential walk, and reports the time per query. Also
+// reports how long the streaming glob query takes to produce its first match.
+// Usage: java -Xmx4g QueryBenchmark [nodes]
+public class QueryBenchmark {
+    private static final String[] EXTENSIONS = {"java", "txt", "log", "png", "md", "json", "class", "xml"};
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int SUBDIRECTORIES = 10;
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Directory root = build(nodes);
+        Map<String, Long> expectedSizes = new HashMap<>();
+        List<File> allFiles = new ArrayList<>();
+        collect(root, expectedSizes, allFiles);
+        allFiles.sort(Comparator.comparingLong(File::getSize).reversed());
+        long expectedJava = allFiles.stream().filter(file -> file.getName().endsWith(".java")).count();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%,d nodes, %d cores available%n", nodes, cores);
+        for (int workers = 1; workers <= cores; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            TreeQueries queries = new TreeQueries(pool);
+            BenchmarkHarness.warmUpThenMeasure(report -> {
+                long start = System.nanoTime();
+                List<File> largest = queries.largestFiles(root, 100);
+                double largestMs = (System.nanoTime() - start) / 1e6;
+                for (int i = 0; i < largest.size(); i++) {
+                    if (largest.get(i).getSize() != allFiles.get(i).getSize()) {
+                        throw new IllegalStateException("Wrong largest file at rank " + i);
+                    }
+                }
+
+                start = System.nanoTime();
+                Map<String, Long> sizes = queries.sizeByExtension(root);
+                double sizesMs = (System.nanoTime() - start) / 1e6;
+                if (!sizes.equals(expectedSizes)) {
+                    throw new IllegalStateException("Wrong sizes by extension: " + sizes);
+                }
+
+                start = System.nanoTime();
+                List<File> java = queries.matching(root, "/root/**.java");
+                double globMs = (System.nanoTime() - start) / 1e6;
+                if (java.size() != expectedJava) {
+                    throw new IllegalStateException("Glob matched " + java.size() + ", expected " + expectedJava);
+                }
+
+                start = System.nanoTime();
+                List<String> deepest = queries.deepestPaths(root, 10);
+                double deepestMs = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                double firstMs;
+                try (TreeQueries.QueryStream<File> stream = queries.streamMatching(root, "/root/**.java", 1024)) {
+                    stream.next();
+                    firstMs = (System.nanoTime() - start) / 1e6;
+                }
+
+                if (report) {
+                    System.out.printf("%2d workers: top-100 %,8.1f ms, by extension %,8.1f ms, glob %,8.1f ms, "
+                                    + "deepest %,8.1f ms, first streamed match %,6.2f ms%n",
+                            pool.getParallelism(), largestMs, sizesMs, globMs, deepestMs, firstMs);
+                    if (pool.getParallelism() == 1) {
+                        System.out.printf("  largest %s (%,d bytes), deepest %s%n",
+                                largest.get(0).getPath(), largest.get(0).getSize(), deepest.get(0));
+                    }
+                }
+            });
+            pool.shutdown();
+        }
+    }
+
+    // Up to 100 files and 10 subdirectories per directory, breadth first
+    private static Directory build(int nodes) {
+        Directory root = new Directory("root");
+        ArrayDeque<Directory> pending = new ArrayDeque<>();
+        pending.add(root);
+        int created = 1;
+        Random random = new Random(0);
+        while (created < nodes) {
+            Directory directory = pending.poll();
+            List<FileSystemComponent> children = new ArrayList<>();
+            for (int i = 0; i < FILES_PER_DIRECTORY && created < nodes; i++, created++) {
+                String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+                // Mostly small files with a few large ones, like a real tree
+                long size = random.nextInt(100) == 0 ? random.nextInt(1 << 30) : random.nextInt(1 << 16);
+                children.add(new File("file" + i + "." + extension, size));
+            }
+            for (int i = 0; i < SUBDIRECTORIES && created < nodes; i++, created++) {
+                Directory child = new Directory("dir" + i);
+                children.add(child);
+                pending.add(child);
+            }
+            directory.addComponents(children);
+        }
+        return root;
+    }
+
+    private static void collect(Directory directory, Map<String, Long> sizes, List<File> files) {
+        List<FileSystemComponent> children = directory.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            FileSystemComponent child = children.get(i);
+            if (child instanceof Directory) {
+                collect((Directory) child, sizes, files);
+            } else {
+                String name = child.getName();
+                sizes.merge(name.substring(name.lastIndexOf('.') + 1), child.getSize(), Long::sum);
+                files.add((File) child);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.*;
+import java.util.logging.*;
+
+// Builds a tree of directories and files and compares the cached Directory.getSize() with
+// the previous recursive, stream-based recomputation. Also measures how fast file resizes
+// propagate and checks that a full walk of the tree allocates nothing.
+// Usage: java -Xmx4g SizeBenchmark [nodes] [filesPerDirectory]
+public class SizeBenchmark {
+    private static long sink;
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int filesPerDirectory = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        long start = System.nanoTime();
+        List<File> files = new ArrayList<>(nodes);
+        Directory root = build(nodes, filesPerDirectory, files);
+        System.out.printf("Built %,d nodes in %.1f s%n", nodes, (System.nanoTime() - start) / 1e9);
+
+        for (int pass = 0; pass < 3; pass++) {
+            start = System.nanoTime();
+            long recomputed = recompute(root);
+            long recursiveNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long cached = root.getSize();
+            long cachedNanos = System.nanoTime() - start;
+            if (recomputed != cached) {
+                throw new IllegalStateException("Cached size " + cached + " != recomputed " + recomputed);
+            }
+            System.out.printf("Root size %,d bytes: recursive %,.1f ms, cached %,d ns%n",
+                    cached, recursiveNanos / 1e6, cachedNanos);
+        }
+
+        Random random = new Random(1);
+        int resizes = 1_000_000;
+        start = System.nanoTime();
+        for (int i = 0; i < resizes; i++) {
+            File file = files.get(random.nextInt(files.size()));
+            file.setSize(file.getSize() + random.nextInt(201) - 100);
+        }
+        long resizeNanos = System.nanoTime() - start;
+        System.out.printf("File resize with propagation: %.0f ns/op%n", (double) resizeNanos / resizes);
+        if (recompute(root) != root.getSize()) {
+            throw new IllegalStateException("Cached size drifted after resizes");
+        }
+
+        for (int pass = 0; pass < 3; pass++) {
+            BenchmarkHarness.Measurement walk = BenchmarkHarness.measure(() -> sink += walk(root));
+            System.out.printf("Full walk reading every getSize(): %,.1f ms, %,d bytes allocated%n",
+                    walk.getNanos() / 1e6, walk.getAllocatedBytes());
+        }
+    }
+
+    // Balanced tree: each directory holds up to filesPerDirectory files and 10 subdirectories
+    private static Directory build(int nodes, int filesPerDirectory, List<File> files) {
+        Directory root = new Directory("root");
+        ArrayDeque<Directory> pending = new ArrayDeque<>();
+        pending.add(root);
+        int created = 1;
+        Random random = new Random(0);
+        while (created < nodes) {
+            Directory directory = pending.poll();
+            for (int i = 0; i < filesPerDirectory && created < nodes; i++, created++) {
+                File file = new File("file" + i, random.nextInt(1 << 20));
+                directory.addComponent(file);
+                files.add(file);
+            }
+            for (int i = 0; i < 10 && created < nodes; i++, created++) {
+                Directory child = new Directory("dir" + i);
+                directory.addComponent(child);
+                pending.add(child);
+            }
+        }
+        return root;
+    }
+
+    // The previous Directory.getSize()
+    private static long recompute(FileSystemComponent component) {
+        if (component instanceof Directory) {
+            return ((Directory) component).getChildren().stream().mapToLong(SizeBenchmark::recompute).sum();
+        }
+        return component.getSize();
+    }
+
+    private static long walk(Directory directory) {
+        long total = directory.getSize();
+        List<FileSystemComponent> children = directory.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            FileSystemComponent child = children.get(i);
+            total += child instanceof Directory ? walk((Directory) child) : child.getSize();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.*;
+import java.util.*;
+
+// The display lines of a directory tree, rendered one at a time as they are asked for, so a
+// listing can be shown a page at a time without visiting the rest of the tree.
+// Directories deeper than maxDepth, or in the collapsed set, are shown with their item count
+// but not expanded. The walk keeps one slot position per open directory, and lines are
+// written through a reused buffer, so writing allocates nothing per line.
+// The tree must not be modified while lines are being read.
+class TreeLines implements Iterator<String> {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final Directory root;
+    private final int baseDepth;
+    private final int maxDepth;
+    private final Set<FileSystemComponent> collapsed;
+
+    // Open directories and the next slot to visit in each
+    private Directory[] openDirectories = new Directory[16];
+    private int[] nextSlots = new int[16];
+    private int open;
+    private boolean rootDone;
+    private FileSystemComponent pending;
+    private int pendingDepth;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    public TreeLines(Directory root) {
+        this(root, 0, UNLIMITED, Collections.emptySet());
+    }
+
+    // maxDepth counts levels below root; 0 shows root alone
+    public TreeLines(Directory root, int baseDepth, int maxDepth, Set<FileSystemComponent> collapsed) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+        this.root = root;
+        this.baseDepth = baseDepth;
+        this.maxDepth = maxDepth;
+        this.collapsed = collapsed;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return advance();
+    }
+
+    @Override
+    public String next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        render();
+        pending = null;
+        return line.toString();
+    }
+
+    // Writes up to maxLines lines, each ending in a newline, and returns how many were written
+    public int writeTo(Writer out, int maxLines) throws IOException {
+        int written = 0;
+        while (written < maxLines && advance()) {
+            render();
+            pending = null;
+            int length = line.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            line.getChars(0, length, chars, 0);
+            out.write(chars, 0, length);
+            out.write('\n');
+            written++;
+        }
+        return written;
+    }
+
+    // Writes every remaining line
+    public long writeAll(Writer out) throws IOException {
+        long written = 0;
+        int page;
+        while ((page = writeTo(out, 4096)) > 0) {
+            written += page;
+        }
+        return written;
+    }
+
+    // Finds the next component to show, opening directories on the way down
+    private boolean advance() {
+        if (pending != null) {
+            return true;
+        }
+        if (!rootDone) {
+            rootDone = true;
+            show(root, baseDepth);
+            return true;
+        }
+        while (open > 0) {
+            Directory directory = openDirectories[open - 1];
+            int slot = nextSlots[open - 1];
+            int slots = directory.getSlotCount();
+            while (slot < slots && directory.getSlot(slot) == null) {
+                slot++;
+            }
+            if (slot == slots) {
+                openDirectories[--open] = null;
+                continue;
+            }
+            nextSlots[open - 1] = slot + 1;
+            show(directory.getSlot(slot), baseDepth + open);
+            return true;
+        }
+        return false;
+    }
+
+    private void show(FileSystemComponent component, int depth) {
+        pending = component;
+        pendingDepth = depth;
+        if (component instanceof Directory && isExpanded((Directory) component, depth)) {
+            if (open == openDirectories.length) {
+                openDirectories = Arrays.copyOf(openDirectories, open * 2);
+                nextSlots = Arrays.copyOf(nextSlots, open * 2);
+            }
+            openDirectories[open] = (Directory) component;
+            nextSlots[open++] = 0;
+        }
+    }
+
+    private boolean isExpanded(Directory directory, int depth) {
+        return depth - baseDepth < maxDepth && !collapsed.contains(directory);
+    }
+
+    private void render() {
+        FileSystemComponent component = pending;
+        line.setLength(0);
+        line.append(FileSystemComponent.indentation(pendingDepth));
+        if (component instanceof Directory) {
+            Directory directory = (Directory) component;
+            line.append("📁 ").append(directory.getName()).append(" (").append(directory.getSize()).append(" bytes)");
+            if (directory.getChildCount() > 0 && !isExpanded(directory, pendingDepth)) {
+                line.append(" [+").append(directory.getChildCount()).append(" items]");
+            }
+        } else {
+            line.append("📄 ").append(component.getName()).append(" (").append(component.getSize()).append(" bytes)");
+        }
+    }
+}
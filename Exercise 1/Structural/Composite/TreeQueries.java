@@ -0,0 +1,400 @@
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Aggregate queries over a Directory tree, run as parallel fork-join traversals.
+// Each task covers a range of one directory's children: it handles files itself, forks a task
+// per subdirectory, splits very large directories in halves, and merges the partial results
+// of its subtasks into its own. The largest-files query also skips whole subtrees whose cached
+// total size is below the smallest size it already has, so it gets faster as it fills.
+// The tree must not be modified while a query runs.
+class TreeQueries {
+    private static final int SPLIT_THRESHOLD = 2048;
+
+    private final ForkJoinPool pool;
+
+    public TreeQueries() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public TreeQueries(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // The n largest files, largest first
+    public List<File> largestFiles(Directory root, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        AtomicLong threshold = new AtomicLong(Long.MIN_VALUE);
+        PriorityQueue<File> largest = run(root, new Aggregation<PriorityQueue<File>>() {
+            @Override
+            public PriorityQueue<File> create() {
+                return new PriorityQueue<>(n + 1, Comparator.comparingLong(File::getSize));
+            }
+
+            @Override
+            public boolean skip(Directory directory) {
+                return directory.getSize() < threshold.get();
+            }
+
+            @Override
+            public void addLeaf(PriorityQueue<File> result, FileSystemComponent leaf, int depth) {
+                if (leaf instanceof File && leaf.getSize() >= threshold.get()) {
+                    offer(result, (File) leaf);
+                }
+            }
+
+            @Override
+            public void merge(PriorityQueue<File> into, PriorityQueue<File> from) {
+                for (File file : from) {
+                    offer(into, file);
+                }
+            }
+
+            private void offer(PriorityQueue<File> result, File file) {
+                result.add(file);
+                if (result.size() > n) {
+                    result.poll();
+                }
+                if (result.size() == n) {
+                    // Any full partial result bounds the final n-th largest from below
+                    threshold.accumulateAndGet(result.peek().getSize(), Math::max);
+                }
+            }
+        });
+        List<File> sorted = new ArrayList<>(largest);
+        sorted.sort(Comparator.comparingLong(File::getSize).reversed());
+        return sorted;
+    }
+
+    // Total file size per lower-case extension; files without one are counted under ""
+    public Map<String, Long> sizeByExtension(Directory root) {
+        return run(root, new Aggregation<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> create() {
+                return new HashMap<>();
+            }
+
+            @Override
+            public void addLeaf(Map<String, Long> result, FileSystemComponent leaf, int depth) {
+                if (leaf instanceof File) {
+                    result.merge(extensionOf(leaf.getName()), leaf.getSize(), Long::sum);
+                }
+            }
+
+            @Override
+            public void merge(Map<String, Long> into, Map<String, Long> from) {
+                from.forEach((extension, size) -> into.merge(extension, size, Long::sum));
+            }
+        });
+    }
+
+    // Files whose absolute path matches the glob, such as /root/**.java
+    public List<File> matching(Directory root, String glob) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return run(root, new Aggregation<List<File>>() {
+            @Override
+            public List<File> create() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void addLeaf(List<File> result, FileSystemComponent leaf, int depth) {
+                if (leaf instanceof File && matcher.matches(Paths.get(leaf.getPath()))) {
+                    result.add((File) leaf);
+                }
+            }
+
+            @Override
+            public void merge(List<File> into, List<File> from) {
+                into.addAll(from);
+            }
+        });
+    }
+
+    // Like matching(), but returns matches while the traversal is still running. At most
+    // bufferSize matches wait in the stream; the traversal pauses when it is full and stops
+    // when the stream is closed.
+    public QueryStream<File> streamMatching(Directory root, String glob, int bufferSize) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        QueryStream<File> stream = new QueryStream<>(bufferSize);
+        Aggregation<Void> producer = new Aggregation<Void>() {
+            @Override
+            public Void create() {
+                return null;
+            }
+
+            @Override
+            public boolean skip(Directory directory) {
+                return stream.isClosed();
+            }
+
+            @Override
+            public void addLeaf(Void result, FileSystemComponent leaf, int depth) {
+                if (leaf instanceof File && matcher.matches(Paths.get(leaf.getPath()))) {
+                    stream.put((File) leaf);
+                }
+            }
+
+            @Override
+            public void merge(Void into, Void from) {
+            }
+        };
+        pool.execute(() -> {
+            try {
+                new Traversal<>(producer, root, 0, root.getSlotCount(), 0).invoke();
+            } finally {
+                stream.finish();
+            }
+        });
+        return stream;
+    }
+
+    // Paths of the n most deeply nested files and empty directories, deepest first
+    public List<String> deepestPaths(Directory root, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        Comparator<DepthEntry> byDepth = Comparator.comparingInt(entry -> entry.depth);
+        PriorityQueue<DepthEntry> deepest = run(root, new Aggregation<PriorityQueue<DepthEntry>>() {
+            @Override
+            public PriorityQueue<DepthEntry> create() {
+                return new PriorityQueue<>(n + 1, byDepth);
+            }
+
+            @Override
+            public void addLeaf(PriorityQueue<DepthEntry> result, FileSystemComponent leaf, int depth) {
+                if (result.size() < n || depth > result.peek().depth) {
+                    result.add(new DepthEntry(leaf, depth));
+                    if (result.size() > n) {
+                        result.poll();
+                    }
+                }
+            }
+
+            @Override
+            public void merge(PriorityQueue<DepthEntry> into, PriorityQueue<DepthEntry> from) {
+                for (DepthEntry entry : from) {
+                    addLeaf(into, entry.component, entry.depth);
+                }
+            }
+        });
+        List<DepthEntry> sorted = new ArrayList<>(deepest);
+        sorted.sort(byDepth.reversed());
+        List<String> paths = new ArrayList<>(sorted.size());
+        for (DepthEntry entry : sorted) {
+            paths.add(entry.component.getPath());
+        }
+        return paths;
+    }
+
+    private <R> R run(Directory root, Aggregation<R> aggregation) {
+        return pool.invoke(new Traversal<>(aggregation, root, 0, root.getSlotCount(), 0));
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot <= 0 || dot == name.length() - 1 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // One query: how to start, extend and combine partial results
+    private interface Aggregation<R> {
+        R create();
+
+        // Called for files and for directories without children
+        void addLeaf(R result, FileSystemComponent leaf, int depth);
+
+        void merge(R into, R from);
+
+        default boolean skip(Directory directory) {
+            return false;
+        }
+    }
+
+    // Visits slots [from, to) of a directory whose children are at the given depth
+    private static final class Traversal<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final Aggregation<R> aggregation;
+        private final Directory directory;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        Traversal(Aggregation<R> aggregation, Directory directory, int from, int to, int depth) {
+            this.aggregation = aggregation;
+            this.directory = directory;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected R compute() {
+            R result = aggregation.create();
+            if (aggregation.skip(directory)) {
+                return result;
+            }
+            // Removals can leave empty slots behind, so emptiness is decided by the live child count
+            if (from == 0 && directory.getChildCount() == 0) {
+                aggregation.addLeaf(result, directory, depth);
+                return result;
+            }
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Traversal<R> upper = new Traversal<>(aggregation, directory, middle, to, depth);
+                upper.fork();
+                R lower = new Traversal<>(aggregation, directory, from, middle, depth).compute();
+                aggregation.merge(result, lower);
+                aggregation.merge(result, upper.join());
+                return result;
+            }
+
+            List<Traversal<R>> subdirectories = null;
+            for (int slot = from; slot < to; slot++) {
+                FileSystemComponent child = directory.getSlot(slot);
+                if (child instanceof Directory) {
+                    Directory subdirectory = (Directory) child;
+                    if (aggregation.skip(subdirectory)) {
+                        continue;
+                    }
+                    if (subdirectories == null) {
+                        subdirectories = new ArrayList<>();
+                    }
+                    Traversal<R> task = new Traversal<>(aggregation, subdirectory, 0, subdirectory.getSlotCount(), depth + 1);
+                    task.fork();
+                    subdirectories.add(task);
+                } else if (child != null) {
+                    aggregation.addLeaf(result, child, depth + 1);
+                }
+            }
+            if (subdirectories != null) {
+                for (Traversal<R> task : subdirectories) {
+                    aggregation.merge(result, task.join());
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class DepthEntry {
+        final FileSystemComponent component;
+        final int depth;
+
+        DepthEntry(FileSystemComponent component, int depth) {
+            this.component = component;
+            this.depth = depth;
+        }
+    }
+
+    // Results of a running query, in the order they are found. Iterate it on one thread and
+    // close it to stop the query early.
+    static final class QueryStream<T> implements Iterator<T>, AutoCloseable {
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> queue;
+        private volatile boolean closed;
+        private Object next;
+
+        QueryStream(int bufferSize) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && closed) {
+                next = END;
+            }
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    return false;
+                }
+            }
+            if (next == END) {
+                // Leave END in place so later calls return false too
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = (T) next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            queue.clear();
+            // Wakes a reader waiting in hasNext(); writers stop once they see closed, so a
+            // clear makes room for END if one got in after the first
+            while (!queue.offer(END)) {
+                queue.clear();
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        // Called from pool threads; lets the pool add a worker while this one waits for space,
+        // or waits without one once the pool has no spare workers left
+        void put(T item) {
+            ForkJoinPool.ManagedBlocker blocker = new ForkJoinPool.ManagedBlocker() {
+                private boolean done;
+
+                @Override
+                public boolean isReleasable() {
+                    if (!done) {
+                        done = closed || queue.offer(item);
+                    }
+                    return done;
+                }
+
+                @Override
+                public boolean block() throws InterruptedException {
+                    while (!done) {
+                        done = closed || queue.offer(item, 10, TimeUnit.MILLISECONDS);
+                    }
+                    return true;
+                }
+            };
+            try {
+                try {
+                    ForkJoinPool.managedBlock(blocker);
+                } catch (RejectedExecutionException e) {
+                    blocker.block();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+
+        void finish() {
+            // END must get through even when the buffer is full, unless the reader has gone
+            while (!closed) {
+                try {
+                    if (queue.offer(END, 10, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
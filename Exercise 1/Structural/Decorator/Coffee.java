@@ -0,0 +1,16 @@
+// Component interface
+// Costs are whole cents from a PriceTable. A whole order is priced against one table, so a
+// price change published mid-calculation cannot mix old and new prices.
+interface Coffee {
+    String getDescription();
+
+    long getCostCents(PriceTable prices);
+
+    default long getCostCents() {
+        return getCostCents(PriceBook.current());
+    }
+
+    default double getCost() {
+        return getCostCents() / 100.0;
+    }
+}
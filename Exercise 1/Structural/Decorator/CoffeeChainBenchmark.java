@@ -0,0 +1,73 @@
+import java.util.*;
+
+// Compares getCost() and getDescription() on plain decorator chains with the same chains
+// compiled into a CompiledCoffee, for chain depths from 1 to 1000. Reports nanoseconds and
+// bytes allocated per call, and the one-off cost of compiling. The results of both forms are
+// checked to be identical.
+// Usage: java CoffeeChainBenchmark [callsPerDepth]
+public class CoffeeChainBenchmark {
+    private static final int[] DEPTHS = {1, 10, 100, 1000};
+    private static final String[] FLAVORS = {"Vanilla", "Caramel", "Hazelnut"};
+    private static long sink;
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.printf("%6s %14s %14s %14s %14s %12s%n",
+                "depth", "chain cost", "compiled cost", "chain desc", "compiled desc", "compile");
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            for (int depth : DEPTHS) {
+                Coffee chain = buildChain(depth, new Random(depth));
+                CompiledCoffee compiled = CompiledCoffee.compile(chain);
+                if (compiled.getCost() != chain.getCost() || !compiled.getDescription().equals(chain.getDescription())) {
+                    throw new IllegalStateException("Compiled coffee differs at depth " + depth);
+                }
+
+                // Deep chains are slow to query, so they get fewer calls
+                int n = Math.max(1_000, calls / depth);
+                BenchmarkHarness.Measurement chainCost =
+                        BenchmarkHarness.measure(n, () -> sink += (long) chain.getCost());
+                BenchmarkHarness.Measurement compiledCost =
+                        BenchmarkHarness.measure(calls, () -> sink += (long) compiled.getCost());
+                BenchmarkHarness.Measurement chainDescription =
+                        BenchmarkHarness.measure(Math.max(100, n / 10), () -> sink += chain.getDescription().length());
+                BenchmarkHarness.Measurement compiledDescription =
+                        BenchmarkHarness.measure(calls, () -> sink += compiled.getDescription().length());
+                BenchmarkHarness.Measurement compile =
+                        BenchmarkHarness.measure(Math.max(100, n / 10), () -> sink += CompiledCoffee.compile(chain).getDepth());
+                if (report) {
+                    System.out.printf("%6d %8.1f ns %3.0fB %8.2f ns %3.0fB %8.0f ns %s %8.2f ns %3.0fB %9.1f us%n",
+                            depth, chainCost.getNanosPerOperation(), chainCost.getBytesPerOperation(),
+                            compiledCost.getNanosPerOperation(), compiledCost.getBytesPerOperation(),
+                            chainDescription.getNanosPerOperation(), formatBytes(chainDescription.getBytesPerOperation()),
+                            compiledDescription.getNanosPerOperation(), compiledDescription.getBytesPerOperation(),
+                            compile.getNanosPerOperation() / 1e3);
+                }
+            }
+        });
+    }
+
+    private static Coffee buildChain(int depth, Random random) {
+        Coffee coffee = new SimpleCoffee();
+        for (int i = 0; i < depth; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    coffee = new Milk(coffee);
+                    break;
+                case 1:
+                    coffee = new Sugar(coffee);
+                    break;
+                case 2:
+                    coffee = new Whip(coffee);
+                    break;
+                default:
+                    coffee = new Syrup(coffee, FLAVORS[random.nextInt(FLAVORS.length)]);
+            }
+        }
+        return coffee;
+    }
+
+    private static String formatBytes(double bytes) {
+        return bytes >= 10_000 ? String.format("%4.0fK", bytes / 1024) : String.format("%4.0fB", bytes);
+    }
+}
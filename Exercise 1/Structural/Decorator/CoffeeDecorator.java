@@ -0,0 +1,29 @@
+// Decorator
+abstract class CoffeeDecorator implements Coffee {
+    protected Coffee decoratedCoffee;
+
+    public CoffeeDecorator(Coffee coffee) {
+        this.decoratedCoffee = coffee;
+    }
+
+    public Coffee getDecoratedCoffee() {
+        return decoratedCoffee;
+    }
+
+    public abstract Ingredient getIngredient();
+
+    // The text this decorator appends to the description, without the separator
+    public String getAddition() {
+        return getIngredient().getLabel();
+    }
+
+    @Override
+    public String getDescription() {
+        return decoratedCoffee.getDescription() + ", " + getAddition();
+    }
+
+    @Override
+    public long getCostCents(PriceTable prices) {
+        return decoratedCoffee.getCostCents(prices) + prices.getCents(getIngredient());
+    }
+}
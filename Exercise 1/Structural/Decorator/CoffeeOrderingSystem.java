@@ -1,133 +1,38 @@
+import java.io.IOException;
+import java.nio.file.*;
 import java.util.*;
 import java.util.logging.*;
 import java.text.DecimalFormat;
 
-// Component interface
-interface Coffee {
-    String getDescription();
-    double getCost();
-}
-
-// Concrete Component
-class SimpleCoffee implements Coffee {
-    @Override
-    public String getDescription() {
-        return "Simple Coffee";
-    }
-
-    @Override
-    public double getCost() {
-        return 1.0;
-    }
-}
-
-// Decorator
-abstract class CoffeeDecorator implements Coffee {
-    protected Coffee decoratedCoffee;
-
-    public CoffeeDecorator(Coffee coffee) {
-        this.decoratedCoffee = coffee;
-    }
-
-    @Override
-    public String getDescription() {
-        return decoratedCoffee.getDescription();
-    }
-
-    @Override
-    public double getCost() {
-        return decoratedCoffee.getCost();
-    }
-}
-
-// Concrete Decorators
-class Milk extends CoffeeDecorator {
-    public Milk(Coffee coffee) {
-        super(coffee);
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", Milk";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.5;
-    }
-}
-
-class Sugar extends CoffeeDecorator {
-    public Sugar(Coffee coffee) {
-        super(coffee);
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", Sugar";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.2;
-    }
-}
-
-class Whip extends CoffeeDecorator {
-    public Whip(Coffee coffee) {
-        super(coffee);
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", Whip";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.7;
-    }
-}
-
-class Syrup extends CoffeeDecorator {
-    private String flavor;
-
-    public Syrup(Coffee coffee, String flavor) {
-        super(coffee);
-        this.flavor = flavor;
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", " + flavor + " Syrup";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.6;
-    }
-}
-
 // Coffee Ordering System
 public class CoffeeOrderingSystem {
     private static final Logger logger = Logger.getLogger(CoffeeOrderingSystem.class.getName());
     private static final DecimalFormat df = new DecimalFormat("#.##");
 
+    // Usage: java CoffeeOrderingSystem [priceFile]
+    // The price file is a properties file such as "base=100" and "MILK=50"; edits to it are
+    // picked up before each prompt.
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
-        Coffee coffee = new SimpleCoffee();
+        Path priceFile = args.length > 0 ? Paths.get(args[0]) : null;
+        long priceFileModified = reloadPrices(priceFile, Long.MIN_VALUE);
+        // Kept compiled so the loop reads a stored cost and description; each new decorator
+        // wraps the compiled coffee and is folded into it in O(1)
+        Coffee coffee = CompiledCoffee.compile(new SimpleCoffee());
 
         System.out.println("Welcome to the Coffee Ordering System!");
-        System.out.println("Start with a Simple Coffee ($1.0)");
+        System.out.println("Start with a Simple Coffee ($" + formatCents(PriceBook.current().getBaseCents()) + ")");
 
         while (true) {
+            priceFileModified = reloadPrices(priceFile, priceFileModified);
+            PriceTable prices = PriceBook.current();
             System.out.println("\nCurrent Order: " + coffee.getDescription());
-            System.out.println("Current Cost: $" + df.format(coffee.getCost()));
+            System.out.println("Current Cost: $" + formatCents(coffee.getCostCents(prices)));
             System.out.println("\nAdd more ingredients?");
-            System.out.println("1. Milk ($0.5)");
-            System.out.println("2. Sugar ($0.2)");
-            System.out.println("3. Whip ($0.7)");
-            System.out.println("4. Syrup ($0.6)");
+            System.out.println("1. Milk ($" + formatCents(prices.getCents(Ingredient.MILK)) + ")");
+            System.out.println("2. Sugar ($" + formatCents(prices.getCents(Ingredient.SUGAR)) + ")");
+            System.out.println("3. Whip ($" + formatCents(prices.getCents(Ingredient.WHIP)) + ")");
+            System.out.println("4. Syrup ($" + formatCents(prices.getCents(Ingredient.SYRUP)) + ")");
             System.out.println("5. Finish Order");
 
             System.out.print("Enter your choice (1-5): ");
@@ -160,10 +65,34 @@ public class CoffeeOrderingSystem {
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
+            coffee = CompiledCoffee.compile(coffee);
         }
 
+        long total = coffee.getCostCents();
         System.out.println("\nFinal Order: " + coffee.getDescription());
-        System.out.println("Total Cost: $" + df.format(coffee.getCost()));
-        logger.info("Order completed: " + coffee.getDescription() + " - $" + df.format(coffee.getCost()));
+        System.out.println("Total Cost: $" + formatCents(total));
+        logger.info("Order completed: " + coffee.getDescription() + " - $" + formatCents(total));
+    }
+
+    private static String formatCents(long cents) {
+        return df.format(cents / 100.0);
     }
-}
\ No newline at end of file
+
+    // Loads the price file if it changed since lastModified, and returns its modification time
+    private static long reloadPrices(Path priceFile, long lastModified) {
+        if (priceFile == null) {
+            return lastModified;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(priceFile).toMillis();
+            if (modified != lastModified) {
+                PriceTable prices = PriceBook.load(priceFile);
+                logger.info("Loaded price table version " + prices.getVersion() + " from " + priceFile);
+            }
+            return modified;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warning("Cannot load prices from " + priceFile + ": " + e.getMessage());
+            return lastModified;
+        }
+    }
+}
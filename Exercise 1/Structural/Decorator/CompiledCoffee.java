@@ -0,0 +1,108 @@
+import java.util.*;
+
+// A decorator chain flattened into one object: how many of each ingredient it has and its
+// description, worked out once when it is compiled. getDescription() returns the stored
+// string, and the cost is the base price plus count times price for each ingredient, kept
+// for the price table it was last worked out with. Neither recurses through the decorators
+// or concatenates strings.
+// Compiling walks the chain down to the first component that is not a decorator. If that is
+// already a CompiledCoffee it is extended rather than re-walked, so wrapping a compiled
+// coffee in one more decorator and compiling again costs O(1).
+final class CompiledCoffee implements Coffee {
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final Coffee base;
+    private final int[] counts;
+    private final int depth;
+    private final String description;
+    // The cost under the table it was last worked out with
+    private Priced priced;
+
+    private CompiledCoffee(Coffee base, int[] counts, int depth, String description) {
+        this.base = base;
+        this.counts = counts;
+        this.depth = depth;
+        this.description = description;
+    }
+
+    public static CompiledCoffee compile(Coffee coffee) {
+        if (coffee instanceof CompiledCoffee) {
+            return (CompiledCoffee) coffee;
+        }
+        // Collect the decorators outermost first, iteratively so long chains cannot overflow
+        List<CoffeeDecorator> decorators = new ArrayList<>();
+        Coffee inner = coffee;
+        while (inner instanceof CoffeeDecorator) {
+            CoffeeDecorator decorator = (CoffeeDecorator) inner;
+            decorators.add(decorator);
+            inner = decorator.getDecoratedCoffee();
+        }
+
+        Coffee base;
+        int[] counts;
+        int depth;
+        StringBuilder description;
+        if (inner instanceof CompiledCoffee) {
+            CompiledCoffee compiled = (CompiledCoffee) inner;
+            base = compiled.base;
+            counts = compiled.counts.clone();
+            depth = compiled.depth;
+            description = new StringBuilder(compiled.description);
+        } else {
+            base = inner;
+            counts = new int[INGREDIENTS.length];
+            depth = 0;
+            description = new StringBuilder(inner.getDescription());
+        }
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            CoffeeDecorator decorator = decorators.get(i);
+            counts[decorator.getIngredient().ordinal()]++;
+            description.append(", ").append(decorator.getAddition());
+        }
+        return new CompiledCoffee(base, counts, depth + decorators.size(), description.toString());
+    }
+
+    // The undecorated coffee the chain started from
+    public Coffee getBase() {
+        return base;
+    }
+
+    public int getCount(Ingredient ingredient) {
+        return counts[ingredient.ordinal()];
+    }
+
+    // Number of decorators compiled into this coffee
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public long getCostCents(PriceTable prices) {
+        Priced last = priced;
+        if (last != null && last.prices == prices) {
+            return last.cents;
+        }
+        long cents = base.getCostCents(prices);
+        for (Ingredient ingredient : INGREDIENTS) {
+            cents += counts[ingredient.ordinal()] * prices.getCents(ingredient);
+        }
+        priced = new Priced(prices, cents);
+        return cents;
+    }
+
+    // Immutable, so a thread reading priced never sees a cost paired with the wrong table
+    private static final class Priced {
+        final PriceTable prices;
+        final long cents;
+
+        Priced(PriceTable prices, long cents) {
+            this.prices = prices;
+            this.cents = cents;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+// Add-ins, with the prices they have until a PriceTable says otherwise
+enum Ingredient {
+    MILK("Milk", 50),
+    SUGAR("Sugar", 20),
+    WHIP("Whip", 70),
+    SYRUP("Syrup", 60);
+
+    private final String label;
+    private final long defaultCents;
+
+    Ingredient(String label, long defaultCents) {
+        this.label = label;
+        this.defaultCents = defaultCents;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getDefaultCents() {
+        return defaultCents;
+    }
+}
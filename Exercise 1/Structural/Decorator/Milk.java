@@ -0,0 +1,11 @@
+// Concrete Decorators
+class Milk extends CoffeeDecorator {
+    public Milk(Coffee coffee) {
+        super(coffee);
+    }
+
+    @Override
+    public Ingredient getIngredient() {
+        return Ingredient.MILK;
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.*;
+
+// Open orders stored column by column: one int array of counts per Ingredient and one long
+// array of totals in cents, indexed by order. Repricing after a price change is then a few
+// straight passes over primitive arrays, one per ingredient, which the JIT can unroll and
+// vectorize, instead of a walk through each order's decorator chain.
+// Not thread-safe; reprice() records which PriceTable the totals were worked out with.
+class OpenOrders {
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final int[][] counts = new int[INGREDIENTS.length][];
+    private long[] totals;
+    private int size;
+    private PriceTable pricedWith;
+
+    public OpenOrders(int expectedOrders) {
+        int capacity = Math.max(16, expectedOrders);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new int[capacity];
+        }
+        totals = new long[capacity];
+    }
+
+    // Adds an order priced with the current table and returns its index
+    public int add(CompiledCoffee coffee) {
+        if (size == totals.length) {
+            int capacity = size + (size >> 1);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Arrays.copyOf(counts[i], capacity);
+            }
+            totals = Arrays.copyOf(totals, capacity);
+        }
+        for (Ingredient ingredient : INGREDIENTS) {
+            counts[ingredient.ordinal()][size] = coffee.getCount(ingredient);
+        }
+        PriceTable prices = pricedWith == null ? PriceBook.current() : pricedWith;
+        pricedWith = prices;
+        totals[size] = coffee.getCostCents(prices);
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTotalCents(int order) {
+        Objects.checkIndex(order, size);
+        return totals[order];
+    }
+
+    // The table the totals were last worked out with, or null if there are no orders yet
+    public PriceTable getPricedWith() {
+        return pricedWith;
+    }
+
+    // Works out every total again under the given prices; orders must share one base coffee
+    public void reprice(PriceTable prices) {
+        long[] cents = new long[INGREDIENTS.length];
+        prices.copyIngredientCents(cents);
+        long[] t = totals;
+        int n = size;
+        Arrays.fill(t, 0, n, prices.getBaseCents());
+        for (int k = 0; k < cents.length; k++) {
+            int[] column = counts[k];
+            long price = cents[k];
+            for (int i = 0; i < n; i++) {
+                t[i] += column[i] * price;
+            }
+        }
+        pricedWith = prices;
+    }
+
+    // Sum of all totals, in cents
+    public long sumCents() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += totals[i];
+        }
+        return sum;
+    }
+}
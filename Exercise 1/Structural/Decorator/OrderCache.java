@@ -0,0 +1,254 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Shares one CompiledCoffee between all orders for the same combination of ingredients.
+// Specs are normalized into a key that ignores the order ingredients were added in: counts of
+// each plain ingredient plus the sorted syrup flavors. The shared coffee is built in that
+// canonical order, so "Milk, Sugar" and "Sugar, Milk" get the same coffee, described as
+// "Simple Coffee, Milk, Sugar". Lookups use a per-thread probe key, so a hit allocates nothing.
+//
+// The cache holds at most maxEntries coffees. Every lookup is counted in a small count-min
+// sketch whose counters are halved periodically, so it tracks recent popularity. When the
+// cache is full, a new combination is only admitted if the sketch says it is wanted more
+// often than the least popular of a few sampled entries, which is then evicted; one-off
+// orders are built but never displace the regulars.
+class OrderCache {
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<OrderKey, CompiledCoffee> coffees = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final ThreadLocal<OrderKey> probes = ThreadLocal.withInitial(OrderKey::new);
+    private final Object evictionLock = new Object();
+    private Iterator<OrderKey> evictionCursor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public OrderCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    // The shared coffee for this combination, building and caching it if needed
+    public CompiledCoffee get(OrderSpec spec) {
+        OrderKey probe = probes.get();
+        probe.set(spec);
+        sketch.increment(probe.hashCode());
+        CompiledCoffee coffee = coffees.get(probe);
+        if (coffee != null) {
+            hits.increment();
+            return coffee;
+        }
+        misses.increment();
+        OrderKey key = probe.copy();
+        coffee = key.build();
+        // Misses check for room and insert under one lock, so racing misses cannot overfill it
+        synchronized (evictionLock) {
+            CompiledCoffee raced = coffees.get(key);
+            if (raced != null) {
+                return raced;
+            }
+            if (coffees.size() < maxEntries || admit(key)) {
+                coffees.put(key, coffee);
+                return coffee;
+            }
+        }
+        rejections.increment();
+        return coffee;
+    }
+
+    // Evicts the least popular of a few entries if the candidate is wanted more often; called
+    // holding evictionLock with the cache full
+    private boolean admit(OrderKey candidate) {
+        int candidateFrequency = sketch.estimate(candidate.hashCode());
+        OrderKey victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLE; i++) {
+            if (evictionCursor == null || !evictionCursor.hasNext()) {
+                evictionCursor = coffees.keySet().iterator();
+                if (!evictionCursor.hasNext()) {
+                    return true;
+                }
+            }
+            OrderKey key = evictionCursor.next();
+            int frequency = sketch.estimate(key.hashCode());
+            if (frequency < victimFrequency) {
+                victim = key;
+                victimFrequency = frequency;
+            }
+        }
+        if (candidateFrequency <= victimFrequency) {
+            return false;
+        }
+        coffees.remove(victim);
+        evictions.increment();
+        return true;
+    }
+
+    public int size() {
+        return coffees.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d entries, %,d hits, %,d misses (%.1f%% hits), %,d evicted, %,d not admitted",
+                size(), getHits(), getMisses(), getHitRate() * 100, evictions.sum(), rejections.sum());
+    }
+
+    // Counts of each ingredient and the sorted syrup flavors. A probe is reused by one thread
+    // for lookups; copies stored in the map are never changed.
+    private static final class OrderKey {
+        private final int[] counts = new int[INGREDIENTS.length];
+        private String[] syrups = new String[4];
+        private int syrupCount;
+        private int hash;
+
+        void set(OrderSpec spec) {
+            Arrays.fill(counts, 0);
+            syrupCount = 0;
+            for (int i = 0; i < spec.size(); i++) {
+                Ingredient ingredient = spec.getIngredient(i);
+                counts[ingredient.ordinal()]++;
+                if (ingredient == Ingredient.SYRUP) {
+                    addSyrup(spec.getFlavor(i));
+                }
+            }
+            int h = Arrays.hashCode(counts);
+            for (int i = 0; i < syrupCount; i++) {
+                h = 31 * h + syrups[i].hashCode();
+            }
+            // Spread the bits, since the sketch uses them to pick counters
+            hash = (h ^ (h >>> 16)) * 0x45d9f3b;
+        }
+
+        // Insertion sort; orders carry a handful of syrups at most
+        private void addSyrup(String flavor) {
+            if (syrupCount == syrups.length) {
+                syrups = Arrays.copyOf(syrups, syrupCount * 2);
+            }
+            int i = syrupCount++;
+            while (i > 0 && syrups[i - 1].compareTo(flavor) > 0) {
+                syrups[i] = syrups[i - 1];
+                i--;
+            }
+            syrups[i] = flavor;
+        }
+
+        OrderKey copy() {
+            OrderKey copy = new OrderKey();
+            System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+            copy.syrups = Arrays.copyOf(syrups, syrupCount);
+            copy.syrupCount = syrupCount;
+            copy.hash = hash;
+            return copy;
+        }
+
+        // Plain ingredients in menu order, then the syrups by flavor
+        CompiledCoffee build() {
+            OrderSpec.Builder builder = OrderSpec.builder();
+            for (Ingredient ingredient : INGREDIENTS) {
+                if (ingredient != Ingredient.SYRUP) {
+                    for (int i = 0; i < counts[ingredient.ordinal()]; i++) {
+                        builder.add(ingredient);
+                    }
+                }
+            }
+            for (int i = 0; i < syrupCount; i++) {
+                builder.syrup(syrups[i]);
+            }
+            return builder.build().build();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof OrderKey)) {
+                return false;
+            }
+            OrderKey key = (OrderKey) other;
+            if (hash != key.hash || syrupCount != key.syrupCount || !Arrays.equals(counts, key.counts)) {
+                return false;
+            }
+            for (int i = 0; i < syrupCount; i++) {
+                if (!syrups[i].equals(key.syrups[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Count-min sketch of recent lookups: four rows of counters, each picked by different bits
+    // of the key's hash, and the estimate is the smallest of the four. After ten lookups per
+    // counter every counter is halved, so old popularity fades. Updates race without locks;
+    // an occasional lost increment only makes the estimate slightly low.
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+
+        private final int[][] counters;
+        private final int mask;
+        private final int resetAfter;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int maxEntries) {
+            int width = Integer.highestOneBit(Math.max(16, maxEntries * 8) - 1) << 1;
+            counters = new int[ROWS][width];
+            mask = width - 1;
+            resetAfter = width * 10;
+        }
+
+        void increment(int hash) {
+            for (int row = 0; row < ROWS; row++) {
+                counters[row][indexOf(hash, row)]++;
+            }
+            if (additions.incrementAndGet() == resetAfter) {
+                for (int[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>>= 1;
+                    }
+                }
+                additions.set(0);
+            }
+        }
+
+        int estimate(int hash) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, counters[row][indexOf(hash, row)]);
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 15)) & mask;
+        }
+    }
+}
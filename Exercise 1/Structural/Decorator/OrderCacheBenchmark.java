@@ -0,0 +1,90 @@
+import java.util.*;
+
+// Replays a Zipf-distributed stream of orders, where a few combinations are very popular and
+// most are rare, and compares building every coffee with getting it from OrderCaches of
+// several sizes. Reports hit rates, time per order and bytes allocated per order.
+// Usage: java OrderCacheBenchmark [orders] [distinctSpecs] [zipfExponent]
+public class OrderCacheBenchmark {
+    private static final String[] FLAVORS = {"Vanilla", "Caramel", "Hazelnut", "Mocha", "Peppermint"};
+    private static final Ingredient[] PLAIN = {Ingredient.MILK, Ingredient.SUGAR, Ingredient.WHIP};
+    private static final int[] CACHE_SIZES = {16, 64, 256, 1024};
+    private static long sink;
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        double exponent = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+        Random random = new Random(11);
+        List<OrderSpec> specs = new ArrayList<>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            specs.add(randomSpec(random));
+        }
+        OrderSpec[] stream = zipfStream(specs, orders, exponent, random);
+        System.out.printf("%,d orders over %,d specs, Zipf exponent %.2f%n", orders, distinct, exponent);
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            BenchmarkHarness.Measurement uncached = BenchmarkHarness.measure(() -> {
+                for (OrderSpec spec : stream) {
+                    sink += spec.build().getDescription().length();
+                }
+            });
+            if (report) {
+                System.out.printf("%-18s %8.1f ns/order %8.1f bytes/order%n", "No cache",
+                        (double) uncached.getNanos() / orders, (double) uncached.getAllocatedBytes() / orders);
+            }
+
+            for (int size : CACHE_SIZES) {
+                OrderCache cache = new OrderCache(size);
+                BenchmarkHarness.Measurement cached = BenchmarkHarness.measure(() -> {
+                    for (OrderSpec spec : stream) {
+                        sink += cache.get(spec).getDescription().length();
+                    }
+                });
+                if (report) {
+                    System.out.printf("%-18s %8.1f ns/order %8.1f bytes/order  hit rate %5.1f%%  (%s)%n",
+                            "Cache of " + size, (double) cached.getNanos() / orders,
+                            (double) cached.getAllocatedBytes() / orders, cache.getHitRate() * 100, cache);
+                }
+            }
+        });
+
+        // Adding ingredients in a different order must give the same shared coffee
+        OrderCache cache = new OrderCache(4);
+        CompiledCoffee first = cache.get(OrderSpec.builder().add(Ingredient.MILK).syrup("Vanilla").add(Ingredient.SUGAR).build());
+        CompiledCoffee second = cache.get(OrderSpec.builder().add(Ingredient.SUGAR).add(Ingredient.MILK).syrup("Vanilla").build());
+        if (first != second) {
+            throw new IllegalStateException("Reordered ingredients were not shared");
+        }
+        System.out.println("Reordered specs share: " + first.getDescription());
+    }
+
+    private static OrderSpec randomSpec(Random random) {
+        OrderSpec.Builder builder = OrderSpec.builder();
+        int ingredients = random.nextInt(7);
+        for (int j = 0; j < ingredients; j++) {
+            if (random.nextInt(4) == 0) {
+                builder.syrup(FLAVORS[random.nextInt(FLAVORS.length)]);
+            } else {
+                builder.add(PLAIN[random.nextInt(PLAIN.length)]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Spec k (from 1) is ordered with probability proportional to 1 / k^exponent
+    private static OrderSpec[] zipfStream(List<OrderSpec> specs, int orders, double exponent, Random random) {
+        double[] cumulative = new double[specs.size()];
+        double total = 0;
+        for (int k = 0; k < cumulative.length; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        OrderSpec[] stream = new OrderSpec[orders];
+        for (int i = 0; i < orders; i++) {
+            int k = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            stream[i] = specs.get(k >= 0 ? k : Math.min(-k - 1, cumulative.length - 1));
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.*;
+
+// Drives OrderService with many producer threads submitting random orders as fast as the
+// queue lets them, prints the service metrics every second, and checks at the end that every
+// coffee made matches its spec and prints the sales analytics gathered along the way.
+// Usage: java OrderLoadGenerator [producers] [baristas] [batchSize] [seconds] [brewMicros] [queueCapacity]
+public class OrderLoadGenerator {
+    private static final String[] FLAVORS = {"Vanilla", "Caramel", "Hazelnut"};
+    private static final Ingredient[] PLAIN = {Ingredient.MILK, Ingredient.SUGAR, Ingredient.WHIP};
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int baristas = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        long brewMicros = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        int queueCapacity = args.length > 5 ? Integer.parseInt(args[5]) : 4096;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        List<OrderSpec> menu = randomSpecs(1_000, new Random(7));
+        LongAdder mismatches = new LongAdder();
+        OrderService service = new OrderService(queueCapacity, baristas, batchSize, brewMicros * 1_000);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int seed = p;
+            Thread producer = new Thread(() -> produce(service, menu, seed, deadline, mismatches), "producer-" + p);
+            threads.add(producer);
+            producer.start();
+        }
+
+        System.out.printf("%d producers, %d baristas, batches of %d, %d us brewing, queue of %,d%n",
+                producers, baristas, batchSize, brewMicros, queueCapacity);
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(1_000);
+            System.out.println(service.getMetrics());
+            System.out.println("  last second: " + service.getAnalytics().getSlidingWindow(1, System.currentTimeMillis()));
+        }
+        for (Thread producer : threads) {
+            producer.join();
+        }
+        service.close();
+        System.out.println("Final: " + service.getMetrics());
+        System.out.println("Order cache: " + service.getCache());
+        printAnalytics(service.getAnalytics());
+        System.out.println(mismatches.sum() == 0 ? "Every coffee matched its spec" : mismatches.sum() + " coffees did not match");
+    }
+
+    // Keeps up to 256 orders in flight, so a producer behaves like a busy storefront connection
+    private static void produce(OrderService service, List<OrderSpec> menu, int seed, long deadline, LongAdder mismatches) {
+        Random random = new Random(seed);
+        ArrayDeque<CompletableFuture<CompiledCoffee>> inFlight = new ArrayDeque<>();
+        ArrayDeque<OrderSpec> specs = new ArrayDeque<>();
+        try {
+            while (System.nanoTime() < deadline) {
+                OrderSpec spec = menu.get(random.nextInt(menu.size()));
+                inFlight.add(service.submit(spec));
+                specs.add(spec);
+                if (inFlight.size() == 256) {
+                    check(specs.poll(), inFlight.poll().get(), mismatches);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                check(specs.poll(), inFlight.poll().get(), mismatches);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            mismatches.increment();
+        }
+    }
+
+    private static void check(OrderSpec spec, CompiledCoffee coffee, LongAdder mismatches) {
+        if (coffee.getDepth() != spec.size()) {
+            mismatches.increment();
+        }
+    }
+
+    private static void printAnalytics(SalesAnalytics analytics) {
+        System.out.printf("Sales: %,d orders, $%,.2f, of which base coffee $%,.2f%n",
+                analytics.getOrders(), analytics.getRevenueCents() / 100.0, analytics.getBaseRevenueCents() / 100.0);
+        for (Ingredient ingredient : Ingredient.values()) {
+            System.out.printf("  %-6s %,12d units  $%,14.2f%n", ingredient.getLabel(),
+                    analytics.getUnits(ingredient), analytics.getRevenueCents(ingredient) / 100.0);
+        }
+        System.out.println("Top combinations:");
+        for (SalesAnalytics.Combination combination : analytics.getTopCombinations(5)) {
+            System.out.println("  " + combination);
+        }
+        long now = System.currentTimeMillis();
+        System.out.println("Sliding 10s window: " + analytics.getSlidingWindow(10, now));
+        System.out.println("Tumbling 2s windows:");
+        for (SalesAnalytics.Window window : analytics.getTumblingWindows(2, 3, now)) {
+            System.out.println("  " + window);
+        }
+    }
+
+    private static List<OrderSpec> randomSpecs(int count, Random random) {
+        List<OrderSpec> specs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OrderSpec.Builder builder = OrderSpec.builder();
+            int ingredients = random.nextInt(6);
+            for (int j = 0; j < ingredients; j++) {
+                if (random.nextInt(4) == 0) {
+                    builder.syrup(FLAVORS[random.nextInt(FLAVORS.length)]);
+                } else {
+                    builder.add(PLAIN[random.nextInt(PLAIN.length)]);
+                }
+            }
+            specs.add(builder.build());
+        }
+        return specs;
+    }
+}
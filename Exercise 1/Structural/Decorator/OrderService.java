@@ -0,0 +1,225 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+// Accepts orders from any number of threads and builds their coffees on a pool of barista
+// workers, sharing one coffee per ingredient combination through an OrderCache. Orders wait
+// in one bounded queue: submit() blocks while it is full, so a burst slows producers down
+// instead of growing memory without limit. Each worker takes whatever is queued, up to its
+// batch size, in one go. Every order's time in the queue and its total time from submit to
+// completion are recorded for the metrics, and every completed order is fed to a
+// SalesAnalytics, priced against one price table read for the whole batch.
+class OrderService implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(OrderService.class.getName());
+
+    private final BlockingQueue<PendingOrder> queue;
+    private final int batchSize;
+    private final long brewNanos;
+    private final OrderCache cache;
+    private final SalesAnalytics analytics;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean accepting = true;
+    // Producers between the accepting check and the end of their put; close() waits for them
+    // before the workers may stop, so no order is left in the queue with nobody to take it
+    private final AtomicInteger submitting = new AtomicInteger();
+    private volatile boolean stopping;
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // brewNanos is the simulated time a barista spends on each order. By default the cache
+    // holds 1,024 coffees and the analytics track 100 combinations over an hour of history.
+    public OrderService(int queueCapacity, int workerCount, int batchSize, long brewNanos) {
+        this(queueCapacity, workerCount, batchSize, brewNanos, new OrderCache(1024), new SalesAnalytics(100, 3600));
+    }
+
+    public OrderService(int queueCapacity, int workerCount, int batchSize, long brewNanos, OrderCache cache,
+                        SalesAnalytics analytics) {
+        if (queueCapacity < 1 || workerCount < 1 || batchSize < 1 || brewNanos < 0) {
+            throw new IllegalArgumentException("Queue capacity, workers and batch size must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.brewNanos = brewNanos;
+        this.cache = cache;
+        this.analytics = analytics;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "barista-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        logger.info("Order service started with " + workerCount + " baristas, queue capacity " + queueCapacity
+                + ", batches of up to " + batchSize);
+    }
+
+    // Waits for room in the queue; the future completes when a barista has made the coffee
+    public CompletableFuture<CompiledCoffee> submit(OrderSpec spec) throws InterruptedException {
+        submitting.incrementAndGet();
+        try {
+            PendingOrder order = accept(spec);
+            queue.put(order);
+            return order.result;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    // Like submit(), but gives up after the timeout and returns null if the queue stays full
+    public CompletableFuture<CompiledCoffee> trySubmit(OrderSpec spec, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        submitting.incrementAndGet();
+        try {
+            PendingOrder order = accept(spec);
+            if (!queue.offer(order, timeout, unit)) {
+                submitted.decrement();
+                return null;
+            }
+            return order.result;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private PendingOrder accept(OrderSpec spec) {
+        if (!accepting) {
+            throw new RejectedExecutionException("Order service is shut down");
+        }
+        submitted.increment();
+        return new PendingOrder(spec, System.nanoTime());
+    }
+
+    private void work() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        try {
+            while (!stopping || !queue.isEmpty()) {
+                PendingOrder first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                brew(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void brew(List<PendingOrder> batch) {
+        long takenAt = System.nanoTime();
+        PriceTable prices = PriceBook.current();
+        for (PendingOrder order : batch) {
+            queueWait.record(takenAt - order.submittedAt);
+            try {
+                CompiledCoffee coffee = cache.get(order.spec);
+                simulateBrewing();
+                analytics.record(coffee, prices, System.currentTimeMillis());
+                order.result.complete(coffee);
+            } catch (RuntimeException e) {
+                order.result.completeExceptionally(e);
+            }
+            latency.record(System.nanoTime() - order.submittedAt);
+            completed.increment();
+        }
+        batches.increment();
+    }
+
+    private void simulateBrewing() {
+        if (brewNanos == 0) {
+            return;
+        }
+        long until = System.nanoTime() + brewNanos;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public OrderCache getCache() {
+        return cache;
+    }
+
+    // Live sales figures; safe to read while orders are being made
+    public SalesAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    // Stops taking orders, lets the workers finish everything already queued, and waits for
+    // them. If interrupted, returns at once with the interrupt flag set and the workers carry
+    // on with the queue in the background.
+    @Override
+    public void close() {
+        accepting = false;
+        // Producers already past the check finish their put while the workers still take orders
+        while (submitting.get() != 0) {
+            Thread.yield();
+        }
+        stopping = true;
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        logger.info("Order service stopped: " + getMetrics());
+    }
+
+    private static final class PendingOrder {
+        final OrderSpec spec;
+        final long submittedAt;
+        final CompletableFuture<CompiledCoffee> result = new CompletableFuture<>();
+
+        PendingOrder(OrderSpec spec, long submittedAt) {
+            this.spec = spec;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    // A snapshot of the service's counters; times are in microseconds
+    static final class Metrics {
+        final long submitted;
+        final long completed;
+        final int queued;
+        final double ordersPerSecond;
+        final double meanBatchSize;
+        final double meanQueueWaitMicros;
+        final double p99QueueWaitMicros;
+        final double p50LatencyMicros;
+        final double p99LatencyMicros;
+        final double maxLatencyMicros;
+
+        Metrics(OrderService service) {
+            submitted = service.submitted.sum();
+            completed = service.completed.sum();
+            queued = service.queue.size();
+            double seconds = (System.nanoTime() - service.startedAt) / 1e9;
+            ordersPerSecond = completed / seconds;
+            long batchCount = service.batches.sum();
+            meanBatchSize = batchCount == 0 ? 0 : (double) completed / batchCount;
+            meanQueueWaitMicros = service.queueWait.getMean() / 1e3;
+            p99QueueWaitMicros = service.queueWait.getPercentile(99) / 1e3;
+            p50LatencyMicros = service.latency.getPercentile(50) / 1e3;
+            p99LatencyMicros = service.latency.getPercentile(99) / 1e3;
+            maxLatencyMicros = service.latency.getMax() / 1e3;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d completed of %,d submitted, %,d queued, %,.0f orders/sec, mean batch %.1f, "
+                            + "queue wait mean %,.1f us p99 %,.1f us, latency p50 %,.1f us p99 %,.1f us max %,.1f us",
+                    completed, submitted, queued, ordersPerSecond, meanBatchSize,
+                    meanQueueWaitMicros, p99QueueWaitMicros, p50LatencyMicros, p99LatencyMicros, maxLatencyMicros);
+        }
+    }
+}
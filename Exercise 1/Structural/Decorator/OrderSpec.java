@@ -0,0 +1,79 @@
+import java.util.*;
+
+// What a customer asked for: a Simple Coffee plus ingredients in the order they were added,
+// with a flavor for each syrup. Specs are immutable, so producers can hand them to the order
+// service's workers without copying.
+final class OrderSpec {
+    private final Ingredient[] ingredients;
+    private final String[] flavors;
+
+    private OrderSpec(Ingredient[] ingredients, String[] flavors) {
+        this.ingredients = ingredients;
+        this.flavors = flavors;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return ingredients.length;
+    }
+
+    public Ingredient getIngredient(int index) {
+        return ingredients[index];
+    }
+
+    // The syrup flavor at the given position, or null for other ingredients
+    public String getFlavor(int index) {
+        return flavors[index];
+    }
+
+    // Wraps a Simple Coffee in one decorator per ingredient and compiles the chain
+    public CompiledCoffee build() {
+        Coffee coffee = new SimpleCoffee();
+        for (int i = 0; i < ingredients.length; i++) {
+            switch (ingredients[i]) {
+                case MILK:
+                    coffee = new Milk(coffee);
+                    break;
+                case SUGAR:
+                    coffee = new Sugar(coffee);
+                    break;
+                case WHIP:
+                    coffee = new Whip(coffee);
+                    break;
+                case SYRUP:
+                    coffee = new Syrup(coffee, flavors[i]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown ingredient " + ingredients[i]);
+            }
+        }
+        return CompiledCoffee.compile(coffee);
+    }
+
+    static final class Builder {
+        private final List<Ingredient> ingredients = new ArrayList<>();
+        private final List<String> flavors = new ArrayList<>();
+
+        public Builder add(Ingredient ingredient) {
+            if (ingredient == Ingredient.SYRUP) {
+                throw new IllegalArgumentException("Syrup needs a flavor; use syrup(flavor)");
+            }
+            ingredients.add(ingredient);
+            flavors.add(null);
+            return this;
+        }
+
+        public Builder syrup(String flavor) {
+            ingredients.add(Ingredient.SYRUP);
+            flavors.add(Objects.requireNonNull(flavor, "flavor"));
+            return this;
+        }
+
+        public OrderSpec build() {
+            return new OrderSpec(ingredients.toArray(new Ingredient[0]), flavors.toArray(new String[0]));
+        }
+    }
+}
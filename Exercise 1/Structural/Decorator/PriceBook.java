@@ -0,0 +1,32 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the price table in force. Readers take one table and price a whole order against it;
+// a new table replaces the old one in a single atomic swap, so readers under load never wait
+// and never see a half-updated set of prices.
+final class PriceBook {
+    private static final AtomicReference<PriceTable> CURRENT = new AtomicReference<>(PriceTable.defaults());
+
+    private PriceBook() {
+    }
+
+    public static PriceTable current() {
+        return CURRENT.get();
+    }
+
+    // Publishes the current prices with the given ones changed, as the next version
+    public static PriceTable publish(Properties changes) {
+        return CURRENT.updateAndGet(table -> table.withPrices(changes, table.getVersion() + 1));
+    }
+
+    // Publishes the prices in a properties file; see PriceTable.withPrices for the keys
+    public static PriceTable load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return publish(properties);
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.*;
+
+// An immutable set of prices in whole cents: one for the base coffee and one per Ingredient.
+// Each table published through PriceBook gets the next version number, so anything priced
+// against a table can tell later whether its prices are still current.
+final class PriceTable {
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final long version;
+    private final long baseCents;
+    private final long[] ingredientCents;
+
+    PriceTable(long version, long baseCents, long[] ingredientCents) {
+        if (ingredientCents.length != INGREDIENTS.length) {
+            throw new IllegalArgumentException("Expected " + INGREDIENTS.length + " ingredient prices");
+        }
+        checkPrice("base", baseCents);
+        for (Ingredient ingredient : INGREDIENTS) {
+            checkPrice(ingredient.name(), ingredientCents[ingredient.ordinal()]);
+        }
+        this.version = version;
+        this.baseCents = baseCents;
+        this.ingredientCents = ingredientCents.clone();
+    }
+
+    // The prices the shop opened with
+    static PriceTable defaults() {
+        long[] cents = new long[INGREDIENTS.length];
+        for (Ingredient ingredient : INGREDIENTS) {
+            cents[ingredient.ordinal()] = ingredient.getDefaultCents();
+        }
+        return new PriceTable(1, 100, cents);
+    }
+
+    // Reads keys "base" and ingredient names such as "MILK"; missing keys keep this table's price
+    PriceTable withPrices(Properties properties, long newVersion) {
+        long base = parseCents(properties, "base", baseCents);
+        long[] cents = ingredientCents.clone();
+        for (Ingredient ingredient : INGREDIENTS) {
+            cents[ingredient.ordinal()] = parseCents(properties, ingredient.name(), cents[ingredient.ordinal()]);
+        }
+        return new PriceTable(newVersion, base, cents);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBaseCents() {
+        return baseCents;
+    }
+
+    public long getCents(Ingredient ingredient) {
+        return ingredientCents[ingredient.ordinal()];
+    }
+
+    // Copies the ingredient prices, indexed by Ingredient ordinal, into target
+    public void copyIngredientCents(long[] target) {
+        System.arraycopy(ingredientCents, 0, target, 0, ingredientCents.length);
+    }
+
+    private static long parseCents(Properties properties, String key, long fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Price for " + key + " is not a whole number of cents: " + value);
+        }
+    }
+
+    private static void checkPrice(String key, long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Price for " + key + " is negative: " + cents);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Reprices a large batch of open orders after a price change, first by walking each order's
+// decorator chain and then with the column arrays of OpenOrders, and checks that both give
+// the same totals. Then measures price lookups while another thread keeps publishing new
+// price tables.
+// Usage: java -Xmx4g RepricingBenchmark [orders]
+public class RepricingBenchmark {
+    private static final String[] FLAVORS = {"Vanilla", "Caramel", "Hazelnut"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(42);
+
+        Coffee base = new SimpleCoffee();
+        Coffee[] chains = new Coffee[orders];
+        OpenOrders open = new OpenOrders(orders);
+        for (int i = 0; i < orders; i++) {
+            chains[i] = buildChain(base, random.nextInt(7), random);
+            open.add(CompiledCoffee.compile(chains[i]));
+        }
+        System.out.printf("%,d open orders%n", orders);
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            PriceTable prices = publishRandomPrices(random);
+
+            long start = System.nanoTime();
+            long chainSum = 0;
+            for (Coffee chain : chains) {
+                chainSum += chain.getCostCents(prices);
+            }
+            double chainSeconds = (System.nanoTime() - start) / 1e9;
+
+            double columnSeconds = BenchmarkHarness.measure(() -> open.reprice(prices)).getNanos() / 1e9;
+
+            if (open.sumCents() != chainSum || open.getTotalCents(orders - 1) != chains[orders - 1].getCostCents(prices)) {
+                throw new IllegalStateException("Repriced totals differ from the decorator chains");
+            }
+            if (report) {
+                System.out.printf("Walk decorator chains: %7.1f ms, %,6.1f M orders/sec%n",
+                        chainSeconds * 1e3, orders / chainSeconds / 1e6);
+                System.out.printf("Column reprice:        %7.1f ms, %,6.1f M orders/sec%n",
+                        columnSeconds * 1e3, orders / columnSeconds / 1e6);
+                System.out.printf("Total under price table v%d: $%,.2f%n", prices.getVersion(), chainSum / 100.0);
+            }
+        });
+
+        measureHotSwap(CompiledCoffee.compile(chains[0]), random);
+    }
+
+    // One thread reads prices while another publishes a new table as fast as it can
+    private static void measureHotSwap(CompiledCoffee coffee, Random random) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong swaps = new AtomicLong();
+        List<Properties> changes = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            changes.add(randomPrices(random));
+        }
+        Thread writer = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                PriceBook.publish(changes.get(i++ & 63));
+                swaps.incrementAndGet();
+            }
+        });
+        long reads = 0;
+        long sink = 0;
+        long start = System.nanoTime();
+        writer.start();
+        while (System.nanoTime() - start < 2_000_000_000L) {
+            PriceTable prices = PriceBook.current();
+            long cents = coffee.getCostCents(prices);
+            // Every read is priced wholly against the one table it took
+            long expected = prices.getBaseCents();
+            for (Ingredient ingredient : Ingredient.values()) {
+                expected += coffee.getCount(ingredient) * prices.getCents(ingredient);
+            }
+            if (cents != expected) {
+                throw new IllegalStateException("Order priced against mixed tables");
+            }
+            sink += cents;
+            reads++;
+        }
+        running.set(false);
+        writer.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Hot swap: %,.0f reads/sec with %,.0f table swaps/sec, all consistent (%d)%n",
+                reads / seconds, swaps.get() / seconds, sink & 1);
+    }
+
+    private static PriceTable publishRandomPrices(Random random) {
+        return PriceBook.publish(randomPrices(random));
+    }
+
+    private static Properties randomPrices(Random random) {
+        Properties properties = new Properties();
+        properties.setProperty("base", Integer.toString(80 + random.nextInt(60)));
+        for (Ingredient ingredient : Ingredient.values()) {
+            properties.setProperty(ingredient.name(), Integer.toString(10 + random.nextInt(90)));
+        }
+        return properties;
+    }
+
+    private static Coffee buildChain(Coffee coffee, int depth, Random random) {
+        for (int i = 0; i < depth; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    coffee = new Milk(coffee);
+                    break;
+                case 1:
+                    coffee = new Sugar(coffee);
+                    break;
+                case 2:
+                    coffee = new Whip(coffee);
+                    break;
+                default:
+                    coffee = new Syrup(coffee, FLAVORS[random.nextInt(FLAVORS.length)]);
+            }
+        }
+        return coffee;
+    }
+}
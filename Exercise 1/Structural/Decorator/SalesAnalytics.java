@@ -0,0 +1,365 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Running sales figures over completed orders: revenue per ingredient, the most ordered
+// combinations, and order and revenue rates over tumbling and sliding windows.
+// record() does a fixed amount of work per order and memory never grows with the number of
+// orders: revenue lives in one adder per ingredient, the top combinations in space-saving
+// summaries of a fixed number of counters, and the windows in a ring of one-second slots.
+// Each recording thread counts combinations in one of a fixed set of summary stripes, so
+// workers rarely wait for each other, and readers merge the stripes. All figures can be read
+// while orders are being recorded; a reader holds one stripe's lock at a time while copying it.
+class SalesAnalytics {
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder baseRevenueCents = new LongAdder();
+    private final LongAdder[] ingredientRevenueCents = new LongAdder[INGREDIENTS.length];
+    private final LongAdder[] ingredientUnits = new LongAdder[INGREDIENTS.length];
+    private final SpaceSaving[] topCombinations;
+    private final AtomicReferenceArray<Slot> slots;
+
+    // Tracks the trackedCombinations most frequent combinations and keeps historySeconds of
+    // one-second slots for the windowed rates
+    public SalesAnalytics(int trackedCombinations, int historySeconds) {
+        if (trackedCombinations < 1 || historySeconds < 2) {
+            throw new IllegalArgumentException("Need at least one combination and two seconds of history");
+        }
+        for (int i = 0; i < INGREDIENTS.length; i++) {
+            ingredientRevenueCents[i] = new LongAdder();
+            ingredientUnits[i] = new LongAdder();
+        }
+        topCombinations = new SpaceSaving[Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2];
+        for (int i = 0; i < topCombinations.length; i++) {
+            topCombinations[i] = new SpaceSaving(trackedCombinations);
+        }
+        slots = new AtomicReferenceArray<>(historySeconds);
+        for (int i = 0; i < historySeconds; i++) {
+            slots.set(i, new Slot(Long.MIN_VALUE));
+        }
+    }
+
+    public void record(CompiledCoffee coffee, PriceTable prices, long timeMillis) {
+        long revenue = prices.getBaseCents();
+        baseRevenueCents.add(revenue);
+        for (Ingredient ingredient : INGREDIENTS) {
+            int count = coffee.getCount(ingredient);
+            if (count > 0) {
+                long cents = count * prices.getCents(ingredient);
+                ingredientRevenueCents[ingredient.ordinal()].add(cents);
+                ingredientUnits[ingredient.ordinal()].add(count);
+                revenue += cents;
+            }
+        }
+        orders.increment();
+        Slot slot = slotFor(timeMillis / 1000);
+        if (slot != null) {
+            slot.add(revenue);
+        }
+        // Thread ids are handed out in sequence, so their low bits spread workers over the stripes
+        SpaceSaving stripe = topCombinations[(int) Thread.currentThread().getId() & (topCombinations.length - 1)];
+        synchronized (stripe) {
+            stripe.offer(coffee.getDescription());
+        }
+    }
+
+    public long getOrders() {
+        return orders.sum();
+    }
+
+    public long getRevenueCents() {
+        long total = baseRevenueCents.sum();
+        for (LongAdder revenue : ingredientRevenueCents) {
+            total += revenue.sum();
+        }
+        return total;
+    }
+
+    // Revenue from base coffees is not counted against any ingredient
+    public long getBaseRevenueCents() {
+        return baseRevenueCents.sum();
+    }
+
+    public long getRevenueCents(Ingredient ingredient) {
+        return ingredientRevenueCents[ingredient.ordinal()].sum();
+    }
+
+    public long getUnits(Ingredient ingredient) {
+        return ingredientUnits[ingredient.ordinal()].sum();
+    }
+
+    // Up to k combinations by estimated count, highest first. An estimate can be too high by at
+    // most its reported error, and any combination ordered more often than orders / capacity
+    // is guaranteed to be present.
+    // The stripes are merged as mergeable summaries: a stripe that is full and does not track a
+    // combination may have seen it up to its smallest count times, so that count is added to the
+    // combination's estimate and to its error.
+    public List<Combination> getTopCombinations(int k) {
+        Map<String, long[]> merged = new HashMap<>();
+        long untrackedCount = 0;
+        for (SpaceSaving stripe : topCombinations) {
+            List<Combination> tracked;
+            long minCount;
+            synchronized (stripe) {
+                tracked = stripe.top(Integer.MAX_VALUE);
+                minCount = stripe.minCount();
+            }
+            untrackedCount += minCount;
+            // Stored relative to minCount, which every stripe's untracked share adds back below
+            for (Combination combination : tracked) {
+                long[] counts = merged.computeIfAbsent(combination.description, key -> new long[2]);
+                counts[0] += combination.count - minCount;
+                counts[1] += combination.error - minCount;
+            }
+        }
+        List<Combination> top = new ArrayList<>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] counts = entry.getValue();
+            top.add(new Combination(entry.getKey(), counts[0] + untrackedCount, counts[1] + untrackedCount));
+        }
+        top.sort(Comparator.comparingLong((Combination combination) -> combination.count).reversed());
+        return top.size() > k ? new ArrayList<>(top.subList(0, k)) : top;
+    }
+
+    // Orders and revenue over the windowSeconds whole seconds before the current one
+    public Window getSlidingWindow(int windowSeconds, long nowMillis) {
+        long end = nowMillis / 1000;
+        return sum(end - windowSeconds, end);
+    }
+
+    // The last `count` complete windows of windowSeconds each, aligned to multiples of
+    // windowSeconds since the epoch, oldest first
+    public List<Window> getTumblingWindows(int windowSeconds, int count, long nowMillis) {
+        long currentStart = Math.floorDiv(nowMillis / 1000, windowSeconds) * windowSeconds;
+        List<Window> windows = new ArrayList<>(count);
+        for (int i = count; i >= 1; i--) {
+            long start = currentStart - (long) i * windowSeconds;
+            windows.add(sum(start, start + windowSeconds));
+        }
+        return windows;
+    }
+
+    // Seconds [from, to); seconds older than the history are counted as empty
+    private Window sum(long from, long to) {
+        int history = slots.length();
+        if (to - from > history - 1) {
+            throw new IllegalArgumentException("Window is longer than the " + (history - 1) + "s of history");
+        }
+        long windowOrders = 0;
+        long windowRevenue = 0;
+        for (long second = from; second < to; second++) {
+            Slot slot = slots.get((int) Math.floorMod(second, (long) history));
+            if (slot.second == second) {
+                windowOrders += slot.orders.sum();
+                windowRevenue += slot.revenueCents.sum();
+            }
+        }
+        return new Window(from * 1000, to * 1000, windowOrders, windowRevenue);
+    }
+
+    // The slot for this second, or null if its place in the ring has already moved on to a later
+    // second; orders that arrive that late are dropped from the windows but stay in the totals
+    private Slot slotFor(long second) {
+        int index = (int) Math.floorMod(second, (long) slots.length());
+        Slot slot = slots.get(index);
+        while (slot.second < second) {
+            Slot fresh = new Slot(second);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+            slot = slots.get(index);
+        }
+        return slot.second == second ? slot : null;
+    }
+
+    // One second of sales. A slot is never reused: the ring gets a new slot when its place moves
+    // on to a later second, so an order added to a slot is always counted in that slot's second.
+    private static final class Slot {
+        final long second;
+        final LongAdder orders = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        Slot(long second) {
+            this.second = second;
+        }
+
+        void add(long revenue) {
+            orders.increment();
+            revenueCents.add(revenue);
+        }
+    }
+
+    static final class Window {
+        final long startMillis;
+        final long endMillis;
+        final long orders;
+        final long revenueCents;
+
+        Window(long startMillis, long endMillis, long orders, long revenueCents) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.orders = orders;
+            this.revenueCents = revenueCents;
+        }
+
+        public double getOrdersPerSecond() {
+            return orders * 1000.0 / (endMillis - startMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d orders, $%,.2f, %,.1f orders/sec", orders, revenueCents / 100.0, getOrdersPerSecond());
+        }
+    }
+
+    static final class Combination {
+        final String description;
+        final long count;
+        final long error;
+
+        Combination(String description, long count, long error) {
+            this.description = description;
+            this.count = count;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d (+-%,d) %s", count, error, description);
+        }
+    }
+
+    // Metwally et al.'s space-saving summary kept as a stream summary: counters grouped into
+    // buckets of equal count, linked in increasing order, so both counting a tracked key and
+    // replacing the least counted one take constant time. Not thread-safe.
+    private static final class SpaceSaving {
+        private final int capacity;
+        private final Map<String, Counter> counters;
+        private Bucket smallest;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+            this.counters = new HashMap<>(capacity * 2);
+        }
+
+        void offer(String key) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                if (counters.size() < capacity) {
+                    counter = new Counter();
+                } else {
+                    // Take over the least counted key; its count becomes our error bound
+                    counter = smallest.first;
+                    counters.remove(counter.key);
+                    counter.error = counter.bucket.count;
+                }
+                counter.key = key;
+                counters.put(key, counter);
+            }
+            increment(counter);
+        }
+
+        private void increment(Counter counter) {
+            Bucket from = counter.bucket;
+            long count = from == null ? 1 : from.count + 1;
+            Bucket to;
+            if (from == null) {
+                to = smallest != null && smallest.count == 1 ? smallest : insertAfter(null, 1);
+            } else {
+                to = from.next != null && from.next.count == count ? from.next : insertAfter(from, count);
+                from.remove(counter);
+                if (from.first == null) {
+                    unlink(from);
+                }
+            }
+            to.add(counter);
+        }
+
+        private Bucket insertAfter(Bucket previous, long count) {
+            Bucket bucket = new Bucket(count);
+            bucket.previous = previous;
+            bucket.next = previous == null ? smallest : previous.next;
+            if (bucket.next != null) {
+                bucket.next.previous = bucket;
+            }
+            if (previous == null) {
+                smallest = bucket;
+            } else {
+                previous.next = bucket;
+            }
+            return bucket;
+        }
+
+        private void unlink(Bucket bucket) {
+            if (bucket.previous == null) {
+                smallest = bucket.next;
+            } else {
+                bucket.previous.next = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.previous = bucket.previous;
+            }
+        }
+
+        // The count a key not tracked here may have reached: the smallest count once full
+        long minCount() {
+            return counters.size() < capacity ? 0 : smallest.count;
+        }
+
+        List<Combination> top(int k) {
+            Bucket largest = smallest;
+            while (largest != null && largest.next != null) {
+                largest = largest.next;
+            }
+            List<Combination> top = new ArrayList<>(Math.min(k, counters.size()));
+            for (Bucket bucket = largest; bucket != null && top.size() < k; bucket = bucket.previous) {
+                for (Counter counter = bucket.first; counter != null && top.size() < k; counter = counter.next) {
+                    top.add(new Combination(counter.key, bucket.count, counter.error));
+                }
+            }
+            return top;
+        }
+
+        private static final class Counter {
+            String key;
+            long error;
+            Bucket bucket;
+            Counter previous;
+            Counter next;
+        }
+
+        private static final class Bucket {
+            final long count;
+            Bucket previous;
+            Bucket next;
+            Counter first;
+
+            Bucket(long count) {
+                this.count = count;
+            }
+
+            void add(Counter counter) {
+                counter.bucket = this;
+                counter.previous = null;
+                counter.next = first;
+                if (first != null) {
+                    first.previous = counter;
+                }
+                first = counter;
+            }
+
+            void remove(Counter counter) {
+                if (counter.previous == null) {
+                    first = counter.next;
+                } else {
+                    counter.previous.next = counter.next;
+                }
+                if (counter.next != null) {
+                    counter.next.previous = counter.previous;
+                }
+                counter.previous = null;
+                counter.next = null;
+            }
+        }
+    }
+}
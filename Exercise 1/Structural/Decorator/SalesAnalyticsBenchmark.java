@@ -0,0 +1,164 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Feeds SalesAnalytics from several threads with a Zipf-distributed mix of combinations while
+// another thread queries it continuously. Reports update cost, query latency, heap retained
+// as the number of orders grows, and how close the space-saving top combinations are to the
+// exact counts.
+// Usage: java SalesAnalyticsBenchmark [orders] [writers] [tracked]
+public class SalesAnalyticsBenchmark {
+    private static final String[] FLAVORS = {"Vanilla", "Caramel", "Hazelnut", "Mocha", "Peppermint"};
+    private static final Ingredient[] PLAIN = {Ingredient.MILK, Ingredient.SUGAR, Ingredient.WHIP};
+
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int tracked = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        // Coffees come from an OrderCache, as in OrderService
+        Random random = new Random(5);
+        OrderCache cache = new OrderCache(1 << 16);
+        List<CompiledCoffee> coffees = new ArrayList<>();
+        Set<CompiledCoffee> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (coffees.size() < 5_000) {
+            CompiledCoffee coffee = cache.get(randomSpec(random));
+            if (seen.add(coffee)) {
+                coffees.add(coffee);
+            }
+        }
+        int[] stream = zipfStream(coffees.size(), 1 << 20, 1.1, random);
+        PriceTable prices = PriceBook.current();
+
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            SalesAnalytics analytics = new SalesAnalytics(tracked, 3600);
+            long[] exact = new long[coffees.size()];
+            long heapBefore = usedHeap();
+            AtomicBoolean writing = new AtomicBoolean(true);
+            LatencyHistogram queries = new LatencyHistogram();
+            Thread reader = new Thread(() -> {
+                while (writing.get()) {
+                    long start = System.nanoTime();
+                    long now = System.currentTimeMillis();
+                    analytics.getTopCombinations(10);
+                    analytics.getSlidingWindow(60, now);
+                    analytics.getTumblingWindows(10, 6, now);
+                    analytics.getRevenueCents();
+                    queries.record(System.nanoTime() - start);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            reader.start();
+
+            List<Thread> threads = new ArrayList<>();
+            int perWriter = orders / writers;
+            long start = System.nanoTime();
+            for (int w = 0; w < writers; w++) {
+                int offset = w * 7919;
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        CompiledCoffee coffee = coffees.get(stream[(offset + i) & (stream.length - 1)]);
+                        analytics.record(coffee, prices, System.currentTimeMillis());
+                    }
+                });
+                threads.add(writer);
+                writer.start();
+            }
+            for (Thread writer : threads) {
+                writer.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            writing.set(false);
+            reader.join();
+            long retained = usedHeap() - heapBefore;
+
+            for (int w = 0; w < writers; w++) {
+                for (int i = 0; i < perWriter; i++) {
+                    exact[stream[(w * 7919 + i) & (stream.length - 1)]]++;
+                }
+            }
+            if (report) {
+                long recorded = (long) perWriter * writers;
+                System.out.printf("%,d orders from %d writers: %,.0f updates/sec, %.0f ns/update%n",
+                        recorded, writers, recorded / seconds, seconds * 1e9 / recorded);
+                System.out.printf("Live queries during the run: %,d, p50 %,d ns, p99 %,d ns%n",
+                        queries.getCount(), queries.getPercentile(50), queries.getPercentile(99));
+                System.out.printf("Heap growth while recording %,d orders: %,d KB%n", recorded, Math.max(0, retained) >> 10);
+                report(analytics, coffees, exact, recorded);
+            }
+        });
+    }
+
+    private static void report(SalesAnalytics analytics, List<CompiledCoffee> coffees, long[] exact, long recorded) {
+        Map<String, Long> exactByDescription = new HashMap<>();
+        for (int i = 0; i < exact.length; i++) {
+            exactByDescription.put(coffees.get(i).getDescription(), exact[i]);
+        }
+        Integer[] ranked = new Integer[exact.length];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = i;
+        }
+        Arrays.sort(ranked, (a, b) -> Long.compare(exact[b], exact[a]));
+        Set<String> trueTop = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            trueTop.add(coffees.get(ranked[i]).getDescription());
+        }
+
+        List<SalesAnalytics.Combination> top = analytics.getTopCombinations(10);
+        int found = 0;
+        double worstError = 0;
+        for (SalesAnalytics.Combination combination : top) {
+            if (trueTop.contains(combination.description)) {
+                found++;
+            }
+            long actual = exactByDescription.get(combination.description);
+            worstError = Math.max(worstError, (double) (combination.count - actual) / actual);
+        }
+        System.out.printf("Top 10 combinations: %d of the true top 10, estimates at most %.2f%% high%n",
+                found, worstError * 100);
+        System.out.println("  #1 " + top.get(0) + " (exact " + exactByDescription.get(top.get(0).description) + ")");
+        if (analytics.getOrders() != recorded) {
+            throw new IllegalStateException("Lost orders: " + analytics.getOrders());
+        }
+    }
+
+    private static OrderSpec randomSpec(Random random) {
+        OrderSpec.Builder builder = OrderSpec.builder();
+        int ingredients = random.nextInt(9);
+        for (int j = 0; j < ingredients; j++) {
+            if (random.nextInt(4) == 0) {
+                builder.syrup(FLAVORS[random.nextInt(FLAVORS.length)]);
+            } else {
+                builder.add(PLAIN[random.nextInt(PLAIN.length)]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Item k (from 1) appears with probability proportional to 1 / k^exponent
+    private static int[] zipfStream(int items, int length, double exponent, Random random) {
+        double[] cumulative = new double[items];
+        double total = 0;
+        for (int k = 0; k < items; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        int[] stream = new int[length];
+        for (int i = 0; i < length; i++) {
+            int k = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            stream[i] = k >= 0 ? k : Math.min(-k - 1, items - 1);
+        }
+        return stream;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,12 @@
+// Concrete Component
+class SimpleCoffee implements Coffee {
+    @Override
+    public String getDescription() {
+        return "Simple Coffee";
+    }
+
+    @Override
+    public long getCostCents(PriceTable prices) {
+        return prices.getBaseCents();
+    }
+}
@@ -0,0 +1,10 @@
+class Sugar extends CoffeeDecorator {
+    public Sugar(Coffee coffee) {
+        super(coffee);
+    }
+
+    @Override
+    public Ingredient getIngredient() {
+        return Ingredient.SUGAR;
+    }
+}
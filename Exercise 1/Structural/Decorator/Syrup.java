@@ -0,0 +1,22 @@
+class Syrup extends CoffeeDecorator {
+    private String flavor;
+
+    public Syrup(Coffee coffee, String flavor) {
+        super(coffee);
+        this.flavor = flavor;
+    }
+
+    public String getFlavor() {
+        return flavor;
+    }
+
+    @Override
+    public Ingredient getIngredient() {
+        return Ingredient.SYRUP;
+    }
+
+    @Override
+    public String getAddition() {
+        return flavor + " Syrup";
+    }
+}
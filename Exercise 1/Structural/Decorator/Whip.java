@@ -0,0 +1,10 @@
+class Whip extends CoffeeDecorator {
+    public Whip(Coffee coffee) {
+        super(coffee);
+    }
+
+    @Override
+    public Ingredient getIngredient() {
+        return Ingredient.WHIP;
+    }
+}
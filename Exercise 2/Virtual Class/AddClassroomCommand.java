@@ -0,0 +1,21 @@
+class AddClassroomCommand implements ClassroomCommand {
+    private ClassroomFacade facade;
+    private String className;
+
+    public AddClassroomCommand(ClassroomFacade facade, String className) {
+        this.facade = facade;
+        this.className = className;
+    }
+
+    @Override
+    public void execute() {
+        facade.addClassroom(className);
+        System.out.println("Classroom [" + className + "] has been created.");
+        System.out.println(facade.getManager().getClassroom(className));
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+}
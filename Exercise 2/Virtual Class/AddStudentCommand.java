@@ -0,0 +1,23 @@
+class AddStudentCommand implements ClassroomCommand {
+    private ClassroomFacade facade;
+    private String studentId;
+    private String className;
+
+    public AddStudentCommand(ClassroomFacade facade, String studentId, String className) {
+        this.facade = facade;
+        this.studentId = studentId;
+        this.className = className;
+    }
+
+    @Override
+    public void execute() {
+        facade.addStudent(studentId, className);
+        System.out.println("Student [" + studentId + "] has been enrolled in [" + className + "].");
+        System.out.println(facade.getManager().getClassroom(className));
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+}
@@ -0,0 +1,22 @@
+class Assignment {
+    private String details;
+    private String className;
+
+    public Assignment(String details, String className) {
+        this.details = details;
+        this.className = className;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public String toString() {
+        return details;
+    }
+}
@@ -0,0 +1,5 @@
+class AssignmentFactory {
+    public Assignment createAssignment(String details, String className) {
+        return new Assignment(details, className);
+    }
+}
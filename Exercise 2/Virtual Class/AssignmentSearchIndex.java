@@ -0,0 +1,506 @@
+import java.util.*;
+
+// Fuzzy search over Assignment.details, tolerant of typos in each word.
+// Details are split into lower-case words (runs of letters and digits). Every distinct word
+// is a term with a postings list: the ids of the assignments containing it, as delta-encoded
+// varints, one or two bytes per entry, or as a bitmap once at least one id in DENSE_RATIO is in
+// it: a few times larger at worst, as the varints carry skip entries and spare capacity too, but
+// read without decoding. Ids are handed out in insertion order, so every list only ever grows
+// at its end. The terms themselves are indexed by trigram (3-character
+// n-grams of the word padded with a space at each end), again as postings of term ids.
+//
+// A query word matches the terms within maxEdits(word) edits of it. An edit changes at most
+// three trigrams, so those terms share at least n - 3 * edits of the word's n trigrams: the
+// hits of each term in the word's trigram lists are counted, and only terms with enough of
+// them are checked with an edit distance.
+//
+// An assignment matches when every query word matches one of its words. The postings of each
+// query word's terms are intersected leapfrog style, starting from the word with the fewest
+// assignments: each list skips ahead to the largest id seen so far, using a skip entry every
+// SKIP_INTERVAL ids, so the cost follows the rarest word more than the common ones.
+//
+// Matches are ranked by total edits, then by age, oldest first. Since ids only grow, once
+// limit matches are kept a later candidate must have fewer edits than the worst of them to
+// get in. That bound prunes every query word's terms: a term whose edits, with the fewest
+// edits each other word can still contribute, would reach the bound is dropped, and the
+// search ends when a word has no terms left. So every candidate is ranked, but a query of
+// common words stops as soon as its best matches are found.
+// Not thread-safe; its manager updates and reads it holding a lock kept for the indexes alone.
+class AssignmentSearchIndex {
+    static final int SKIP_INTERVAL = 32;
+    static final int DENSE_RATIO = 32;
+    // Below this many ids a list stays varints however dense, as the first ids are in every list
+    static final int DENSE_MIN_COUNT = 4_096;
+
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final Map<String, Term> terms = new HashMap<>();
+    private final List<Term> termsById = new ArrayList<>();
+    private final Map<Long, Postings> termTrigrams = new HashMap<>();
+    // Per-term counters reused by every query, all zero between queries
+    private int[] termHits = new int[0];
+
+    public void add(Assignment assignment) {
+        int id = assignments.size();
+        assignments.add(assignment);
+        for (String word : new HashSet<>(words(assignment.getDetails()))) {
+            Term term = terms.get(word);
+            if (term == null) {
+                term = new Term(word, termsById.size());
+                terms.put(word, term);
+                termsById.add(term);
+                for (long trigram : trigrams(word)) {
+                    termTrigrams.computeIfAbsent(trigram, t -> new Postings()).add(term.id);
+                }
+            }
+            term.assignments.add(id);
+        }
+    }
+
+    public int size() {
+        return assignments.size();
+    }
+
+    // Up to limit assignments closest to the query, best first
+    public List<Match> search(String query, int limit) {
+        List<WordCursor> words = new ArrayList<>();
+        int queryLength = 0;
+        for (String word : new LinkedHashSet<>(words(query))) {
+            WordCursor cursor = new WordCursor(expand(word));
+            if (cursor.count == 0) {
+                return new ArrayList<>();
+            }
+            words.add(cursor);
+            queryLength += word.length();
+        }
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        words.sort(Comparator.comparingLong(cursor -> cursor.count));
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.WORST_FIRST);
+        int bound = Integer.MAX_VALUE;
+        int target = 0;
+        candidates:
+        while (words.get(0).advance(target)) {
+            target = words.get(0).id;
+            int edits = words.get(0).edits;
+            for (int i = 1; i < words.size(); i++) {
+                WordCursor word = words.get(i);
+                if (!word.advance(target)) {
+                    break candidates;
+                }
+                if (word.id != target) {
+                    target = word.id;
+                    continue candidates;
+                }
+                edits += word.edits;
+            }
+            best.add(new Match(assignments.get(target), target, edits, queryLength));
+            if (best.size() > limit) {
+                best.poll();
+            }
+            if (best.size() == limit && best.peek().edits < bound) {
+                bound = best.peek().edits;
+                if (!prune(words, bound)) {
+                    break;
+                }
+                words.sort(Comparator.comparingLong(cursor -> cursor.count));
+            }
+            target++;
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(Match.WORST_FIRST.reversed());
+        return matches;
+    }
+
+    // Keeps the terms that can still be part of a match with fewer than bound edits; false if
+    // some word has none left, so no later candidate can be ranked
+    private static boolean prune(List<WordCursor> words, int bound) {
+        int fewest = 0;
+        for (WordCursor word : words) {
+            fewest += word.minEdits();
+        }
+        for (WordCursor word : words) {
+            if (!word.keepWithin(bound - 1 - (fewest - word.minEdits()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Replaces the contents, for when a shard hands classrooms over
+    public void rebuild(Collection<Assignment> remaining) {
+        assignments.clear();
+        terms.clear();
+        termsById.clear();
+        termTrigrams.clear();
+        for (Assignment assignment : remaining) {
+            add(assignment);
+        }
+    }
+
+    // Edits allowed in a query word: none up to 3 characters, 1 up to 7, 2 beyond
+    static int maxEdits(String word) {
+        return word.length() <= 3 ? 0 : word.length() <= 7 ? 1 : 2;
+    }
+
+    // The terms within maxEdits of the word, with their edit distance
+    private Map<Term, Integer> expand(String word) {
+        Map<Term, Integer> expansion = new HashMap<>();
+        int maxEdits = maxEdits(word);
+        if (maxEdits == 0) {
+            Term term = terms.get(word);
+            if (term != null) {
+                expansion.put(term, 0);
+            }
+            return expansion;
+        }
+        long[] wordTrigrams = trigrams(word);
+        int minShared = Math.max(1, wordTrigrams.length - 3 * maxEdits);
+        if (termHits.length < termsById.size()) {
+            termHits = new int[Math.max(termsById.size(), termHits.length * 2)];
+        }
+        // Counts the word's trigrams in each term, remembering the terms seen to reset them after
+        int[] seen = new int[64];
+        int seenCount = 0;
+        for (long trigram : wordTrigrams) {
+            Cursor cursor = new Cursor(termTrigrams.getOrDefault(trigram, Postings.EMPTY));
+            while (cursor.next()) {
+                if (termHits[cursor.id]++ == 0) {
+                    if (seenCount == seen.length) {
+                        seen = Arrays.copyOf(seen, seenCount * 2);
+                    }
+                    seen[seenCount++] = cursor.id;
+                }
+            }
+        }
+        for (int i = 0; i < seenCount; i++) {
+            int termId = seen[i];
+            if (termHits[termId] >= minShared) {
+                Term term = termsById.get(termId);
+                int edits = editDistance(word, term.text, maxEdits);
+                if (edits <= maxEdits) {
+                    expansion.put(term, edits);
+                }
+            }
+            termHits[termId] = 0;
+        }
+        return expansion;
+    }
+
+    // Lower-case runs of letters and digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Distinct trigrams of the word padded with a space at each end, three chars packed per long
+    static long[] trigrams(String word) {
+        long[] trigrams = new long[word.length()];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = (long) charAt(word, i - 1) << 32 | (long) charAt(word, i) << 16 | charAt(word, i + 1);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return distinct == trigrams.length ? trigrams : Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static char charAt(String word, int i) {
+        return i < 0 || i >= word.length() ? ' ' : word.charAt(i);
+    }
+
+    // Levenshtein distance, or max + 1 as soon as it is known to exceed max
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    private static final class Term {
+        final String text;
+        final int id;
+        final Postings assignments = new Postings();
+
+        Term(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    // Ascending ids as varint gaps, with the last id and the end offset of every
+    // SKIP_INTERVAL ids so that a cursor can jump over whole blocks; or, once dense, as a bitmap
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        byte[] bytes = new byte[4];
+        int length;
+        int count;
+        int lastId;
+        int[] skipIds = new int[0];
+        int[] skipOffsets = new int[0];
+        int blocks;
+        // Set when the list turns dense; it stays a bitmap from then on
+        long[] bits;
+
+        void add(int id) {
+            if (bits != null) {
+                if (id >>> 6 >= bits.length) {
+                    bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (id >>> 6) + 1));
+                }
+                bits[id >>> 6] |= 1L << id;
+                count++;
+                lastId = id;
+                return;
+            }
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int delta = id - lastId;
+            while ((delta & ~0x7f) != 0) {
+                bytes[length++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            lastId = id;
+            if (++count % SKIP_INTERVAL == 0) {
+                if (blocks == skipIds.length) {
+                    skipIds = Arrays.copyOf(skipIds, Math.max(4, blocks * 2));
+                    skipOffsets = Arrays.copyOf(skipOffsets, skipIds.length);
+                }
+                skipIds[blocks] = id;
+                skipOffsets[blocks++] = length;
+            }
+            if (count >= DENSE_MIN_COUNT && (long) count * DENSE_RATIO > id) {
+                long[] dense = new long[(id >>> 6) + 1];
+                Cursor cursor = new Cursor(this);
+                while (cursor.next()) {
+                    dense[cursor.id >>> 6] |= 1L << cursor.id;
+                }
+                bits = dense;
+                bytes = null;
+                skipIds = null;
+                skipOffsets = null;
+            }
+        }
+    }
+
+    // Reads one Postings list in order
+    private static final class Cursor {
+        private final Postings list;
+        private int offset;
+        private int index;
+        int id;
+
+        Cursor(Postings list) {
+            this.list = list;
+        }
+
+        // Exact for varints; a bitmap only counts the ids it stopped at, so this is an upper bound
+        int remaining() {
+            return list.count - index;
+        }
+
+        boolean next() {
+            if (list.bits != null) {
+                return nextSetBit(index == 0 ? 0 : id + 1);
+            }
+            if (index == list.count) {
+                return false;
+            }
+            index++;
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list.bytes[offset++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += delta;
+            return true;
+        }
+
+        // Moves to the first id at or after target; false once the list is used up
+        boolean advance(int target) {
+            if (index > 0 && id >= target) {
+                return true;
+            }
+            if (list.bits != null) {
+                return nextSetBit(target);
+            }
+            int block = index / SKIP_INTERVAL;
+            if (block < list.blocks && list.skipIds[block] < target) {
+                // Gallops from the current block, as the target is usually only a block or two on
+                int low = block + 1;
+                int high = low;
+                for (int step = 1; high < list.blocks && list.skipIds[high] < target; step <<= 1) {
+                    low = high + 1;
+                    high += step;
+                }
+                high = Math.min(high, list.blocks);
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (list.skipIds[middle] < target) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                offset = list.skipOffsets[low - 1];
+                id = list.skipIds[low - 1];
+                index = low * SKIP_INTERVAL;
+            }
+            while (next()) {
+                if (id >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean nextSetBit(int from) {
+            long[] bits = list.bits;
+            int word = from >>> 6;
+            if (word >= bits.length) {
+                return false;
+            }
+            long remaining = bits[word] & -1L << from;
+            while (remaining == 0) {
+                if (++word == bits.length) {
+                    return false;
+                }
+                remaining = bits[word];
+            }
+            id = word << 6 | Long.numberOfTrailingZeros(remaining);
+            index++;
+            return true;
+        }
+    }
+
+    // The union of the postings of one query word's terms, with the fewest edits at each id
+    private static final class WordCursor {
+        private final Cursor[] cursors;
+        private final int[] termEdits;
+        private int live;
+        long count;
+        int id = -1;
+        int edits;
+
+        WordCursor(Map<Term, Integer> expansion) {
+            cursors = new Cursor[expansion.size()];
+            termEdits = new int[expansion.size()];
+            long total = 0;
+            for (Map.Entry<Term, Integer> entry : expansion.entrySet()) {
+                cursors[live] = new Cursor(entry.getKey().assignments);
+                termEdits[live++] = entry.getValue();
+                total += entry.getKey().assignments.count;
+            }
+            count = total;
+        }
+
+        int minEdits() {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < live; i++) {
+                min = Math.min(min, termEdits[i]);
+            }
+            return min;
+        }
+
+        // Drops the terms with more than maxEdits edits; false if none is left. Only called when
+        // every cursor has moved past the current id, so id and edits are worked out afresh.
+        boolean keepWithin(int maxEdits) {
+            long total = 0;
+            for (int i = 0; i < live; i++) {
+                if (termEdits[i] > maxEdits) {
+                    live--;
+                    cursors[i] = cursors[live];
+                    termEdits[i--] = termEdits[live];
+                } else {
+                    total += cursors[i].remaining();
+                }
+            }
+            count = total;
+            return live > 0;
+        }
+
+        boolean advance(int target) {
+            if (id >= target) {
+                return true;
+            }
+            int next = Integer.MAX_VALUE;
+            for (int i = 0; i < live; i++) {
+                if (!cursors[i].advance(target)) {
+                    live--;
+                    cursors[i] = cursors[live];
+                    termEdits[i--] = termEdits[live];
+                } else if (cursors[i].id < next || (cursors[i].id == next && termEdits[i] < edits)) {
+                    next = cursors[i].id;
+                    edits = termEdits[i];
+                }
+            }
+            id = next;
+            return live > 0;
+        }
+    }
+
+    // An assignment and how closely its details match the query: 1 minus edits per query character
+    static final class Match {
+        // Lower similarity first, then newer assignments, so the queue can drop its head
+        static final Comparator<Match> WORST_FIRST = Comparator.comparingDouble((Match match) -> match.similarity)
+                .thenComparing(Comparator.comparingInt((Match match) -> match.id).reversed());
+
+        final Assignment assignment;
+        final double similarity;
+        // Position in the index, and total edits over the query's words
+        private final int id;
+        private final int edits;
+
+        Match(Assignment assignment, int id, int edits, int queryLength) {
+            this.assignment = assignment;
+            this.similarity = 1 - (double) edits / queryLength;
+            this.id = id;
+            this.edits = edits;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s, %.0f%%)", assignment, assignment.getClassName(), similarity * 100);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A compact binary form of the four commands for bulk ingestion. A file starts with MAGIC;
+// each command is one byte with CommandType.getCode(), then each of its arguments as a
+// big-endian unsigned 16-bit length followed by that many UTF-8 bytes. There is nothing to
+// search for: a parser reads a byte, then jumps over each argument by its length.
+class BinaryCommandCodec implements CommandParser {
+    static final byte[] MAGIC = {'V', 'C', 'B', '1'};
+    static final int MAX_ARGUMENT_LENGTH = 0xffff;
+
+    @Override
+    public boolean next(ByteBuffer in, RawCommand command) {
+        int start = in.position();
+        int limit = in.limit();
+        if (start == limit) {
+            return false;
+        }
+        int code = in.get(start) & 0xff;
+        CommandType type = CommandType.forCode(code);
+        if (type == null) {
+            // Without a valid code the next command's start cannot be found
+            throw new IllegalStateException("Unknown command code " + code + " in binary command stream");
+        }
+        command.reset(in, start);
+        command.setType(type);
+        int offset = start + 1;
+        for (int i = 0; i < type.getArgumentCount(); i++) {
+            if (offset + 2 > limit) {
+                return false;
+            }
+            int length = in.getShort(offset) & 0xffff;
+            offset += 2;
+            if (offset + length > limit) {
+                return false;
+            }
+            command.addArgument(offset, length);
+            offset += length;
+        }
+        command.setLength(offset - start);
+        in.position(offset);
+        return true;
+    }
+
+    // Writes a parsed command; it must have no error
+    static void encode(RawCommand command, ByteBuffer out) {
+        if (command.getError() != null) {
+            throw new IllegalArgumentException(command.getError() + ": " + command.getSource());
+        }
+        out.put((byte) command.getType().getCode());
+        for (int i = 0; i < command.getType().getArgumentCount(); i++) {
+            out.putShort((short) checkLength(command.getArgumentLength(i)));
+            command.copyArgument(i, out);
+        }
+    }
+
+    static void encode(CommandType type, String[] arguments, ByteBuffer out) {
+        if (arguments.length < type.getArgumentCount()) {
+            throw new IllegalArgumentException(type.getUsage());
+        }
+        out.put((byte) type.getCode());
+        for (int i = 0; i < type.getArgumentCount(); i++) {
+            byte[] bytes = arguments[i].getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) checkLength(bytes.length));
+            out.put(bytes);
+        }
+    }
+
+    private static int checkLength(int length) {
+        if (length > MAX_ARGUMENT_LENGTH) {
+            throw new IllegalArgumentException("Argument of " + length + " bytes is longer than " + MAX_ARGUMENT_LENGTH);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.*;
+
+// Changes go to the manager, which makes them one at a time. Each change replaces the
+// classroom's state with a new immutable version, so the lists handed out never change and
+// can be read from any thread.
+class Classroom {
+    private String name;
+    private volatile ClassroomSnapshot state;
+
+    public Classroom(String name) {
+        this.name = name;
+        this.state = new ClassroomSnapshot(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void addStudent(Student student) {
+        state = state.withStudent(student);
+    }
+
+    // The students enrolled so far, in a list that later enrollments do not change
+    public List<Student> getStudents() {
+        return state.getStudents();
+    }
+
+    public void addAssignment(Assignment assignment) {
+        state = state.withAssignment(assignment);
+    }
+
+    // The assignments scheduled so far, in a list that later ones do not change
+    public List<Assignment> getAssignments() {
+        return state.getAssignments();
+    }
+
+    public ClassroomSnapshot snapshot() {
+        return state;
+    }
+
+    public void notifyAssignmentSubmitted(String message) {
+        System.out.println("Classroom [" + name + "] notified: " + message);
+    }
+
+    @Override
+    public String toString() {
+        return state.toString();
+    }
+}
@@ -0,0 +1,4 @@
+// A command that acts on one classroom, so a router can send it to the shard that owns it
+interface ClassroomCommand extends Command {
+    String getClassName();
+}
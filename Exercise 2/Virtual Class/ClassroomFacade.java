@@ -0,0 +1,36 @@
+class ClassroomFacade {
+    private ClassroomFactory classroomFactory;
+    private StudentFactory studentFactory;
+    private AssignmentFactory assignmentFactory;
+    private VirtualClassroomManager manager;
+
+    public ClassroomFacade() {
+        this(VirtualClassroomManager.getInstance());
+    }
+
+    public ClassroomFacade(VirtualClassroomManager manager) {
+        classroomFactory = new ClassroomFactory();
+        studentFactory = new StudentFactory();
+        assignmentFactory = new AssignmentFactory();
+        this.manager = manager;
+    }
+
+    public void addClassroom(String name) {
+        Classroom classroom = classroomFactory.createClassroom(name);
+        manager.addClassroom(classroom);
+    }
+
+    public void addStudent(String studentId, String className) {
+        Student student = studentFactory.createStudent(studentId, className);
+        manager.addStudent(student);
+    }
+
+    public void scheduleAssignment(String className, String assignmentDetails) {
+        Assignment assignment = assignmentFactory.createAssignment(assignmentDetails, className);
+        manager.addAssignment(assignment);
+    }
+
+    public VirtualClassroomManager getManager() {
+        return manager;
+    }
+}
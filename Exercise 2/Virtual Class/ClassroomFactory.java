@@ -0,0 +1,5 @@
+class ClassroomFactory {
+    public Classroom createClassroom(String name) {
+        return new Classroom(name);
+    }
+}
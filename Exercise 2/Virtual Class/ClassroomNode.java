@@ -0,0 +1,78 @@
+import java.util.concurrent.*;
+
+// One shard: a VirtualClassroomManager and the single thread that runs every operation on
+// it, in arrival order. Since only that thread touches the manager, it needs no locks.
+class ClassroomNode {
+    private static final ThreadLocal<ClassroomNode> CURRENT = new ThreadLocal<>();
+
+    private final String id;
+    private final VirtualClassroomManager manager = new VirtualClassroomManager();
+    private final ExecutorService executor;
+    // The ring the manager's classrooms match, which lags the router's ring while classrooms
+    // are being handed over; set before the first task, then only on this node's thread
+    private ShardRing ring;
+
+    ClassroomNode(String id) {
+        this.id = id;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(() -> {
+                CURRENT.set(this);
+                task.run();
+            }, "shard-" + id);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // The node whose thread is running the caller, or null
+    static ClassroomNode current() {
+        return CURRENT.get();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Only to be used from this node's thread, apart from the manager's snapshot()
+    VirtualClassroomManager getManager() {
+        return manager;
+    }
+
+    ShardRing getRing() {
+        return ring;
+    }
+
+    void setRing(ShardRing ring) {
+        this.ring = ring;
+    }
+
+    // Whether the classroom is on this node, as far as its thread knows
+    boolean holds(String className) {
+        return ring.ownerOf(className) == this;
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    <T> CompletableFuture<T> call(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Exception | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + id;
+    }
+}
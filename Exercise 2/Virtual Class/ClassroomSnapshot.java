@@ -0,0 +1,45 @@
+import java.util.List;
+
+// One immutable version of a classroom's students and assignments. Adding to it returns a
+// new version that shares the unchanged parts (see PersistentVector), so versions are cheap
+// to make and any of them can be read from any thread without locks.
+final class ClassroomSnapshot {
+    private final String name;
+    private final PersistentVector<Student> students;
+    private final PersistentVector<Assignment> assignments;
+
+    ClassroomSnapshot(String name) {
+        this(name, PersistentVector.empty(), PersistentVector.empty());
+    }
+
+    private ClassroomSnapshot(String name, PersistentVector<Student> students, PersistentVector<Assignment> assignments) {
+        this.name = name;
+        this.students = students;
+        this.assignments = assignments;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Student> getStudents() {
+        return students.asList();
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments.asList();
+    }
+
+    ClassroomSnapshot withStudent(Student student) {
+        return new ClassroomSnapshot(name, students.append(student), assignments);
+    }
+
+    ClassroomSnapshot withAssignment(Assignment assignment) {
+        return new ClassroomSnapshot(name, students, assignments.append(assignment));
+    }
+
+    @Override
+    public String toString() {
+        return "Classroom: " + name + ", Students: " + getStudents() + ", Assignments: " + getAssignments();
+    }
+}
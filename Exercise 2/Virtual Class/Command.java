@@ -0,0 +1,3 @@
+interface Command {
+    void execute();
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Streams the commands of a file through one reused direct buffer, in the text format of
+// CommandTokenizer or the binary format of BinaryCommandCodec; binary files are told apart
+// by their leading magic bytes. Parsing allocates nothing per command: the handler gets
+// the same RawCommand each time, valid until it returns.
+class CommandFileReader {
+    static final int BUFFER_SIZE = 1 << 20;
+    // Commands routed to shards that may be in flight at once while loading
+    private static final int MAX_PENDING = 10_000;
+
+    // Passes every command in the file to the handler and returns how many there were
+    static long read(Path file, Consumer<RawCommand> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            boolean endOfFile = false;
+            while (buffer.position() < BinaryCommandCodec.MAGIC.length && !endOfFile) {
+                endOfFile = channel.read(buffer) < 0;
+            }
+            buffer.flip();
+            boolean binary = startsWithMagic(buffer);
+            if (binary) {
+                buffer.position(BinaryCommandCodec.MAGIC.length);
+            }
+            CommandParser parser = binary ? new BinaryCommandCodec() : new CommandTokenizer();
+            RawCommand command = new RawCommand();
+            long count = 0;
+            while (true) {
+                if (endOfFile && !binary && buffer.hasRemaining() && buffer.get(buffer.limit() - 1) != '\n') {
+                    // Ends the last line, which has no newline of its own
+                    buffer.compact().put((byte) '\n').flip();
+                }
+                while (parser.next(buffer, command)) {
+                    handler.accept(command);
+                    count++;
+                }
+                if (endOfFile) {
+                    if (binary && buffer.hasRemaining()) {
+                        throw new IllegalStateException(file + " ends in the middle of a command");
+                    }
+                    return count;
+                }
+                if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                    throw new IllegalStateException(file + " has a command longer than " + BUFFER_SIZE + " bytes");
+                }
+                buffer.compact();
+                endOfFile = channel.read(buffer) < 0;
+                buffer.flip();
+            }
+        }
+    }
+
+    // Runs every command in the file, on the owning shard if a router is given and recorded in
+    // the metrics if given, and returns how many ran; commands that cannot run are reported
+    // and skipped
+    static long load(Path file, ClassroomFacade facade, CommandRouter router, CommandMetrics metrics) throws IOException {
+        ArrayDeque<CompletableFuture<Void>> pending = new ArrayDeque<>();
+        long[] skipped = new long[1];
+        long count = read(file, command -> {
+            if (command.getError() != null) {
+                System.out.println("Skipped [" + command.getSource() + "]: " + command.getError());
+                skipped[0]++;
+                return;
+            }
+            ClassroomCommand classroomCommand = command.create(facade, metrics);
+            if (router == null) {
+                classroomCommand.execute();
+                return;
+            }
+            pending.add(router.route(classroomCommand));
+            if (pending.size() > MAX_PENDING) {
+                pending.poll().join();
+            }
+        });
+        for (CompletableFuture<Void> future : pending) {
+            future.join();
+        }
+        return count - skipped[0];
+    }
+
+    // Writes the commands of a text file to a binary one and returns how many; commands that
+    // cannot be encoded are reported and skipped. The binary file is written under a temporary
+    // name and replaces the old one only once it is complete.
+    static long encode(Path textFile, Path binaryFile) throws IOException {
+        Path temporary = binaryFile.resolveSibling(binaryFile.getFileName() + ".tmp");
+        long count;
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.put(BinaryCommandCodec.MAGIC);
+            long[] skipped = new long[1];
+            try {
+                count = read(textFile, command -> {
+                    if (command.getError() != null) {
+                        System.out.println("Skipped [" + command.getSource() + "]: " + command.getError());
+                        skipped[0]++;
+                        return;
+                    }
+                    if (buffer.remaining() < encodedLength(command)) {
+                        flush(buffer, out);
+                    }
+                    int start = buffer.position();
+                    try {
+                        BinaryCommandCodec.encode(command, buffer);
+                    } catch (IllegalArgumentException e) {
+                        // Drops whatever part of the command was written
+                        buffer.position(start);
+                        System.out.println("Skipped [" + command.getSource() + "]: " + e.getMessage());
+                        skipped[0]++;
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            flush(buffer, out);
+            count -= skipped[0];
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static int encodedLength(RawCommand command) {
+        int length = 1;
+        for (int i = 0; i < command.getArgumentCount(); i++) {
+            length += 2 + command.getArgumentLength(i);
+        }
+        return length;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private static boolean startsWithMagic(ByteBuffer buffer) {
+        if (buffer.remaining() < BinaryCommandCodec.MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < BinaryCommandCodec.MAGIC.length; i++) {
+            if (buffer.get(i) != BinaryCommandCodec.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
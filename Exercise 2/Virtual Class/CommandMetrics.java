@@ -0,0 +1,272 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+// Execution metrics for the classroom commands, filled in by the InstrumentedCommands that
+// instrument() returns. Each command type has latency histograms for how long its commands
+// ran, how long the routed ones queued, and how long the ones that had to wait for a lock
+// waited, plus a failure count. Recording is a few atomic increments, with no lock and no
+// allocation unless the command took at least the slow threshold; those are kept, with their
+// arguments, in a ring of the last SLOW_SAMPLES.
+//
+// The metrics can be read through JMX after register(), and written to a file periodically
+// with startDump().
+class CommandMetrics implements CommandMetricsMBean {
+    static final String DOMAIN = "VirtualClassroom";
+    static final int SLOW_SAMPLES = 100;
+
+    private final TypeMetrics[] types = new TypeMetrics[CommandType.values().length];
+    private volatile long slowThresholdNanos;
+    private final String[] slow = new String[SLOW_SAMPLES];
+    private long slowCount;
+    private ScheduledExecutorService dumper;
+
+    public CommandMetrics(long slowThresholdMicros) {
+        for (CommandType type : CommandType.values()) {
+            types[type.ordinal()] = new TypeMetrics();
+        }
+        setSlowThresholdMicros(slowThresholdMicros);
+    }
+
+    // The command, wrapped so that running it is recorded here
+    public ClassroomCommand instrument(CommandType type, String[] arguments, ClassroomCommand command) {
+        return new InstrumentedCommand(this, type, arguments, command);
+    }
+
+    // queueNanos is -1 for a command that was not queued
+    void record(CommandType type, String[] arguments, long queueNanos, long executeNanos, long lockNanos, boolean failed) {
+        TypeMetrics metrics = types[type.ordinal()];
+        metrics.execution.record(executeNanos);
+        if (queueNanos >= 0) {
+            metrics.queueWait.record(queueNanos);
+        }
+        if (lockNanos > 0) {
+            metrics.lockWait.record(lockNanos);
+        }
+        if (failed) {
+            metrics.failures.increment();
+        }
+        if (executeNanos >= slowThresholdNanos) {
+            recordSlow(type, arguments, queueNanos, executeNanos, lockNanos, failed);
+        }
+    }
+
+    private void recordSlow(CommandType type, String[] arguments, long queueNanos, long executeNanos, long lockNanos,
+                            boolean failed) {
+        String sample = String.format("%s %s %s: ran %,.1f us%s, waited for locks %,.1f us%s",
+                Instant.now(), type.getKeyword(), String.join(" ", arguments), executeNanos / 1e3,
+                queueNanos >= 0 ? String.format(", queued %,.1f us", queueNanos / 1e3) : "", lockNanos / 1e3,
+                failed ? ", failed" : "");
+        synchronized (slow) {
+            slow[(int) (slowCount++ % SLOW_SAMPLES)] = sample;
+        }
+    }
+
+    public TypeMetrics get(CommandType type) {
+        return types[type.ordinal()];
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (TypeMetrics metrics : types) {
+            count += metrics.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFailureCount() {
+        long count = 0;
+        for (TypeMetrics metrics : types) {
+            count += metrics.getFailures();
+        }
+        return count;
+    }
+
+    @Override
+    public long getSlowThresholdMicros() {
+        return slowThresholdNanos / 1_000;
+    }
+
+    @Override
+    public void setSlowThresholdMicros(long micros) {
+        if (micros < 0) {
+            throw new IllegalArgumentException("Slow threshold cannot be negative: " + micros);
+        }
+        slowThresholdNanos = micros * 1_000;
+    }
+
+    @Override
+    public String[] getSlowCommands() {
+        synchronized (slow) {
+            int kept = (int) Math.min(slowCount, SLOW_SAMPLES);
+            String[] samples = new String[kept];
+            for (int i = 0; i < kept; i++) {
+                samples[i] = slow[(int) ((slowCount - kept + i) % SLOW_SAMPLES)];
+            }
+            return samples;
+        }
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Command metrics at ").append(Instant.now()).append(" (times in us)\n");
+        report.append(String.format("%-20s %10s %8s %9s %9s %9s %9s %10s %10s %8s %9s %10s%n", "command", "count",
+                "failures", "mean", "p50", "p99", "p99.9", "max", "queue p99", "waited", "lock p99", "lock max"));
+        for (CommandType type : CommandType.values()) {
+            TypeMetrics metrics = types[type.ordinal()];
+            report.append(String.format("%-20s %,10d %,8d %9.1f %9.1f %9.1f %9.1f %10.1f %10.1f %,8d %9.1f %10.1f%n",
+                    type.getKeyword(), metrics.getCount(), metrics.getFailures(), metrics.getMeanMicros(),
+                    metrics.getP50Micros(), metrics.getP99Micros(), metrics.getP999Micros(), metrics.getMaxMicros(),
+                    metrics.getQueueWaitP99Micros(), metrics.getLockWaits(), metrics.getLockWaitP99Micros(),
+                    metrics.getLockWaitMaxMicros()));
+        }
+        String[] samples = getSlowCommands();
+        report.append("Slow commands (at least ").append(getSlowThresholdMicros()).append(" us), last ")
+                .append(samples.length).append(":\n");
+        for (String sample : samples) {
+            report.append("  ").append(sample).append('\n');
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (TypeMetrics metrics : types) {
+            metrics.reset();
+        }
+        synchronized (slow) {
+            Arrays.fill(slow, null);
+            slowCount = 0;
+        }
+    }
+
+    // Makes the metrics available through the platform MBean server
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=CommandMetrics"));
+            for (CommandType type : CommandType.values()) {
+                server.registerMBean(new StandardMBean(types[type.ordinal()], CommandTypeMetricsMBean.class),
+                        new ObjectName(DOMAIN + ":type=CommandMetrics,command=" + type.getKeyword()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the command metrics: " + e.getMessage(), e);
+        }
+    }
+
+    // Rewrites the file with getReport() every period, from a background thread, until
+    // stopDump() or another startDump(). Each version replaces the last in one move, so the
+    // file is never seen half-written.
+    public synchronized void startDump(Path file, long periodSeconds) {
+        if (periodSeconds < 1) {
+            throw new IllegalArgumentException("Dump period must be at least a second: " + periodSeconds);
+        }
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "command-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+    }
+
+    public void dump(Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, getReport().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write command metrics to [" + file + "]: " + e);
+        }
+    }
+
+    static final class TypeMetrics implements CommandTypeMetricsMBean {
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram lockWait = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        @Override
+        public long getCount() {
+            return execution.getCount();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return execution.getMean() / 1e3;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return execution.getPercentile(50) / 1e3;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return execution.getPercentile(99) / 1e3;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return execution.getPercentile(99.9) / 1e3;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return execution.getMax() / 1e3;
+        }
+
+        @Override
+        public double getQueueWaitP99Micros() {
+            return queueWait.getPercentile(99) / 1e3;
+        }
+
+        @Override
+        public double getQueueWaitMaxMicros() {
+            return queueWait.getMax() / 1e3;
+        }
+
+        @Override
+        public long getLockWaits() {
+            return lockWait.getCount();
+        }
+
+        @Override
+        public double getLockWaitP99Micros() {
+            return lockWait.getPercentile(99) / 1e3;
+        }
+
+        @Override
+        public double getLockWaitMaxMicros() {
+            return lockWait.getMax() / 1e3;
+        }
+
+        void reset() {
+            execution.reset();
+            queueWait.reset();
+            lockWait.reset();
+            failures.reset();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import javax.management.ObjectName;
+
+// Measures what CommandMetrics costs. First the wrapper alone, around a command that does
+// nothing; then a mix of real commands (45% add_student, 20% schedule_assignment, 30%
+// submit_assignment, 5% add_classroom) run directly on one manager, with and without metrics.
+// Then the same mix from two threads sharing a manager, and routed over 4 shards, both
+// instrumented, to show lock and queue waits; the last report is also read back through JMX.
+// Command output goes to /dev/null.
+// Usage: java CommandMetricsBenchmark [commands]
+public class CommandMetricsBenchmark {
+    private static final int CLASSROOMS = 1_000;
+    private static volatile long executed;
+
+    public static void main(String[] args) throws Exception {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 1 << 16)));
+        try {
+            console.printf("%,d commands, %d cores%n", commands, Runtime.getRuntime().availableProcessors());
+            BenchmarkHarness.warmUpThenMeasure(report -> {
+                double plain = wrapperOnly(commands * 10, null);
+                double instrumented = wrapperOnly(commands * 10, new CommandMetrics(10_000));
+                // Best of four, taking turns to go first, as runs vary more than the metrics cost
+                double direct = Double.MAX_VALUE;
+                double measured = Double.MAX_VALUE;
+                for (int run = 0; run < 4; run++) {
+                    if (run % 2 == 0) {
+                        direct = Math.min(direct, mix(commands, null));
+                        measured = Math.min(measured, mix(commands, new CommandMetrics(10_000)));
+                    } else {
+                        measured = Math.min(measured, mix(commands, new CommandMetrics(10_000)));
+                        direct = Math.min(direct, mix(commands, null));
+                    }
+                }
+                if (report) {
+                    console.printf("no-op command:   %6.1f ns plain, %6.1f ns instrumented, %+6.1f ns per command%n",
+                            plain, instrumented, instrumented - plain);
+                    console.printf("command mix:     %,10.0f commands/sec plain, %,10.0f instrumented, %+.1f%%%n",
+                            1e9 / direct, 1e9 / measured, (measured - direct) / direct * 100);
+                }
+            });
+
+            CommandMetrics metrics = new CommandMetrics(50_000);
+            concurrent(commands, metrics);
+            console.println("Two threads sharing one manager:");
+            console.print(metrics.getReport());
+
+            metrics = new CommandMetrics(50_000);
+            metrics.register();
+            sharded(commands, metrics);
+            console.println("Routed over 4 shards:");
+            console.print(metrics.getReport());
+            ObjectName students = new ObjectName(CommandMetrics.DOMAIN + ":type=CommandMetrics,command=add_student");
+            console.printf("Through JMX: %s commands, add_student p99 %s us, queue wait p99 %s us%n",
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(
+                            new ObjectName(CommandMetrics.DOMAIN + ":type=CommandMetrics"), "CommandCount"),
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(students, "P99Micros"),
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(students, "QueueWaitP99Micros"));
+        } finally {
+            System.out.flush();
+            System.setOut(console);
+        }
+    }
+
+    // Nanoseconds per command for a command that only counts, instrumented if metrics is given
+    private static double wrapperOnly(int commands, CommandMetrics metrics) {
+        String[] arguments = {"class1"};
+        ClassroomCommand noOp = new ClassroomCommand() {
+            @Override
+            public void execute() {
+                executed++;
+            }
+
+            @Override
+            public String getClassName() {
+                return "class1";
+            }
+        };
+        // One timed run of the whole loop, as a call through the harness per command would cost
+        // more than the command
+        return BenchmarkHarness.measure(() -> {
+            for (int i = 0; i < commands; i++) {
+                ClassroomCommand command = metrics != null ? metrics.instrument(CommandType.ADD_CLASSROOM, arguments, noOp) : noOp;
+                command.execute();
+            }
+        }).getNanos() / (double) commands;
+    }
+
+    // Nanoseconds per command for the mix on a fresh manager
+    private static double mix(int commands, CommandMetrics metrics) {
+        ClassroomFacade facade = new ClassroomFacade(new VirtualClassroomManager());
+        List<ClassroomCommand> batch = commands(facade, metrics, new Random(1), commands);
+        System.gc();
+        return BenchmarkHarness.measure(() -> {
+            for (ClassroomCommand command : batch) {
+                command.execute();
+            }
+        }).getNanos() / (double) commands;
+    }
+
+    private static void concurrent(int commands, CommandMetrics metrics) throws InterruptedException {
+        ClassroomFacade facade = new ClassroomFacade(new VirtualClassroomManager());
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < CLASSROOMS; c++) {
+            create(facade, metrics, CommandType.ADD_CLASSROOM, "class" + c).execute();
+        }
+        for (int t = 0; t < 2; t++) {
+            Random random = new Random(t);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < commands / 2; i++) {
+                    command(facade, metrics, random, i).execute();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void sharded(int commands, CommandMetrics metrics) {
+        ShardedClassroomManager shards = new ShardedClassroomManager(4, 128);
+        CommandRouter router = new CommandRouter(shards);
+        ClassroomFacade facade = new ClassroomFacade(shards);
+        ArrayDeque<CompletableFuture<Void>> pending = new ArrayDeque<>();
+        Random random = new Random(1);
+        for (int i = 0; i < commands; i++) {
+            pending.add(router.route(command(facade, metrics, random, i)));
+            if (pending.size() > 10_000) {
+                pending.poll().join();
+            }
+        }
+        pending.forEach(CompletableFuture::join);
+        shards.shutdown();
+    }
+
+    // Every classroom first, then the mix; built up front so that only running them is timed
+    private static List<ClassroomCommand> commands(ClassroomFacade facade, CommandMetrics metrics, Random random, int count) {
+        List<ClassroomCommand> batch = new ArrayList<>(count + CLASSROOMS);
+        for (int c = 0; c < CLASSROOMS; c++) {
+            batch.add(create(facade, metrics, CommandType.ADD_CLASSROOM, "class" + c));
+        }
+        for (int i = 0; i < count; i++) {
+            batch.add(command(facade, metrics, random, i));
+        }
+        return batch;
+    }
+
+    private static ClassroomCommand command(ClassroomFacade facade, CommandMetrics metrics, Random random, int i) {
+        int kind = random.nextInt(100);
+        String className = "class" + random.nextInt(CLASSROOMS);
+        if (kind < 5) {
+            return create(facade, metrics, CommandType.ADD_CLASSROOM, className);
+        } else if (kind < 50) {
+            return create(facade, metrics, CommandType.ADD_STUDENT, "student" + i, className);
+        } else if (kind < 70) {
+            return create(facade, metrics, CommandType.SCHEDULE_ASSIGNMENT, className, "Assignment_" + i);
+        }
+        return create(facade, metrics, CommandType.SUBMIT_ASSIGNMENT, "student" + random.nextInt(i + 1), className,
+                "Assignment_" + random.nextInt(i + 1));
+    }
+
+    private static ClassroomCommand create(ClassroomFacade facade, CommandMetrics metrics, CommandType type, String... arguments) {
+        ClassroomCommand command = type.create(facade, arguments);
+        return metrics != null ? metrics.instrument(type, arguments, command) : command;
+    }
+}
@@ -0,0 +1,19 @@
+// JMX view of CommandMetrics, registered as VirtualClassroom:type=CommandMetrics. Times are
+// in microseconds.
+public interface CommandMetricsMBean {
+    long getCommandCount();
+
+    long getFailureCount();
+
+    long getSlowThresholdMicros();
+
+    void setSlowThresholdMicros(long micros);
+
+    // The most recent commands that took at least the slow threshold, oldest first
+    String[] getSlowCommands();
+
+    // The text written to the metrics dump file
+    String getReport();
+
+    void reset();
+}
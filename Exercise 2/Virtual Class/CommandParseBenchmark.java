@@ -0,0 +1,122 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Random;
+
+// Writes a command file of the given size (5% add_classroom, 45% add_student, 20%
+// schedule_assignment, 30% submit_assignment), converts it to the binary format, and parses
+// both, reporting commands/sec, MB/sec and bytes allocated per command. The text file is
+// parsed twice: as main() used to, with BufferedReader.readLine(), split(" ") and a switch,
+// and with CommandTokenizer. Parsing touches every argument byte so that none of it can be
+// skipped, but no command is run. Files are reused if present.
+// Usage: java CommandParseBenchmark [megabytes] [directory]
+public class CommandParseBenchmark {
+    private static long checksum;
+    private static long parsed;
+
+    public static void main(String[] args) throws IOException {
+        long bytes = (args.length > 0 ? Long.parseLong(args[0]) : 1024) << 20;
+        Path directory = Paths.get(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir"));
+        Path text = directory.resolve("classroom-commands-" + (bytes >> 20) + "m.txt");
+        Path binary = directory.resolve("classroom-commands-" + (bytes >> 20) + "m.bin");
+        if (!Files.exists(text)) {
+            write(text, bytes);
+        }
+        if (!Files.exists(binary)) {
+            CommandFileReader.encode(text, binary);
+        }
+        System.out.printf("text %,d MB, binary %,d MB%n", Files.size(text) >> 20, Files.size(binary) >> 20);
+
+        // The warm-up pass also brings the files into the page cache
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            measure("readLine + split", text, report, () -> parseWithSplit(text));
+            measure("CommandTokenizer", text, report, () -> CommandFileReader.read(text, CommandParseBenchmark::consume));
+            measure("BinaryCommandCodec", binary, report, () -> CommandFileReader.read(binary, CommandParseBenchmark::consume));
+        });
+    }
+
+    private interface Parse {
+        long run() throws IOException;
+    }
+
+    private static void measure(String name, Path file, boolean report, Parse parse) throws IOException {
+        BenchmarkHarness.Measurement parsing = BenchmarkHarness.measure(() -> parsed = parse.run());
+        double seconds = parsing.getNanos() / 1e9;
+        if (report) {
+            System.out.printf("%-20s %,12.0f commands/sec %,8.0f MB/sec %8.2f bytes allocated/command%n",
+                    name, parsed / seconds, (Files.size(file) >> 20) / seconds, (double) parsing.getAllocatedBytes() / parsed);
+        }
+    }
+
+    private static void consume(RawCommand command) {
+        long sum = command.getType() == null ? 0 : command.getType().getCode();
+        for (int i = 0; i < command.getArgumentCount(); i++) {
+            for (int j = 0; j < command.getArgumentLength(i); j++) {
+                sum += command.getArgumentByte(i, j);
+            }
+        }
+        checksum += sum;
+    }
+
+    // The parsing main() did before CommandTokenizer, minus creating and running the commands
+    private static long parseWithSplit(Path file) throws IOException {
+        long commands = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                long sum;
+                switch (parts[0]) {
+                    case "add_classroom":
+                        sum = 1;
+                        break;
+                    case "add_student":
+                        sum = 2;
+                        break;
+                    case "schedule_assignment":
+                        sum = 3;
+                        break;
+                    case "submit_assignment":
+                        sum = 4;
+                        break;
+                    default:
+                        sum = 0;
+                }
+                for (int i = 1; i < parts.length; i++) {
+                    for (int j = 0; j < parts[i].length(); j++) {
+                        sum += parts[i].charAt(j);
+                    }
+                }
+                checksum += sum;
+                commands++;
+            }
+        }
+        return commands;
+    }
+
+    private static void write(Path file, long bytes) throws IOException {
+        Random random = new Random(1);
+        long written = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.US_ASCII), 1 << 16)) {
+            StringBuilder line = new StringBuilder(96);
+            while (written < bytes) {
+                line.setLength(0);
+                int kind = random.nextInt(100);
+                String className = "class" + random.nextInt(5_000);
+                if (kind < 5) {
+                    line.append("add_classroom ").append(className);
+                } else if (kind < 50) {
+                    line.append("add_student student").append(random.nextInt(10_000_000)).append(' ').append(className);
+                } else if (kind < 70) {
+                    line.append("schedule_assignment ").append(className).append(" Assignment_").append(random.nextInt(100_000));
+                } else {
+                    line.append("submit_assignment student").append(random.nextInt(10_000_000)).append(' ')
+                            .append(className).append(" Assignment_").append(random.nextInt(100_000));
+                }
+                line.append('\n');
+                out.append(line);
+                written += line.length();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+import java.nio.ByteBuffer;
+
+// Reads commands from the bytes between a buffer's position and limit, one at a time
+interface CommandParser {
+    // Fills command with the next complete command and moves the position past it. Returns
+    // false, leaving the position alone, when the rest of the buffer holds no complete one.
+    boolean next(ByteBuffer in, RawCommand command);
+}
@@ -0,0 +1,23 @@
+import java.util.concurrent.CompletableFuture;
+
+// Sends each command to the shard that owns its classroom and runs it there, so commands for
+// different shards run in parallel and commands for one classroom run in the order they were
+// routed. The commands' facade must be built on the same ShardedClassroomManager.
+class CommandRouter {
+    private final ShardedClassroomManager shards;
+
+    public CommandRouter(ShardedClassroomManager shards) {
+        this.shards = shards;
+    }
+
+    public CompletableFuture<Void> route(ClassroomCommand command) {
+        if (command instanceof InstrumentedCommand) {
+            ((InstrumentedCommand) command).queued();
+        }
+        return shards.submit(command.getClassName(), command::execute);
+    }
+
+    public ShardedClassroomManager getShards() {
+        return shards;
+    }
+}
@@ -0,0 +1,76 @@
+import java.nio.ByteBuffer;
+
+// Parses the text format typed into VirtualClassroomApp: one command per line, a keyword
+// followed by arguments, separated by spaces or tabs. Works on the bytes in place: the
+// keyword is compared byte by byte and arguments are recorded as positions, so a command
+// costs no allocation. Blank lines are skipped, a trailing \r is ignored, and arguments
+// beyond the command's count are ignored as they always were. A line with an unknown
+// keyword or too few arguments comes back with an error instead of throwing.
+class CommandTokenizer implements CommandParser {
+    @Override
+    public boolean next(ByteBuffer in, RawCommand command) {
+        int limit = in.limit();
+        int lineStart = in.position();
+        while (true) {
+            int newline = lineStart;
+            while (newline < limit && in.get(newline) != '\n') {
+                newline++;
+            }
+            if (newline == limit) {
+                in.position(lineStart);
+                return false;
+            }
+            int lineEnd = newline > lineStart && in.get(newline - 1) == '\r' ? newline - 1 : newline;
+            if (parseLine(in, lineStart, lineEnd, command)) {
+                in.position(newline + 1);
+                return true;
+            }
+            lineStart = newline + 1;
+        }
+    }
+
+    // Returns false for a blank line
+    private static boolean parseLine(ByteBuffer in, int start, int end, RawCommand command) {
+        command.reset(in, start);
+        command.setLength(end - start);
+        int tokenStart = skipBlanks(in, start, end);
+        if (tokenStart == end) {
+            return false;
+        }
+        int tokenEnd = skipToken(in, tokenStart, end);
+        CommandType type = CommandType.forKeyword(in, tokenStart, tokenEnd - tokenStart);
+        if (type == null) {
+            command.setError(RawCommand.UNKNOWN_COMMAND);
+            return true;
+        }
+        command.setType(type);
+        while (command.getArgumentCount() < type.getArgumentCount()) {
+            tokenStart = skipBlanks(in, tokenEnd, end);
+            if (tokenStart == end) {
+                command.setError(RawCommand.MISSING_ARGUMENTS);
+                return true;
+            }
+            tokenEnd = skipToken(in, tokenStart, end);
+            command.addArgument(tokenStart, tokenEnd - tokenStart);
+        }
+        return true;
+    }
+
+    private static int skipBlanks(ByteBuffer in, int from, int end) {
+        while (from < end && isBlank(in.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int skipToken(ByteBuffer in, int from, int end) {
+        while (from < end && !isBlank(in.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
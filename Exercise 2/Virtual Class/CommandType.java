@@ -0,0 +1,97 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// The four classroom commands: their keyword in the text format, their code in the binary
+// format, and how many arguments they take.
+enum CommandType {
+    ADD_CLASSROOM("add_classroom", 1, "add_classroom <class>") {
+        @Override
+        ClassroomCommand create(ClassroomFacade facade, String[] arguments) {
+            return new AddClassroomCommand(facade, arguments[0]);
+        }
+    },
+    ADD_STUDENT("add_student", 2, "add_student <student id> <class>") {
+        @Override
+        ClassroomCommand create(ClassroomFacade facade, String[] arguments) {
+            return new AddStudentCommand(facade, arguments[0], arguments[1]);
+        }
+    },
+    SCHEDULE_ASSIGNMENT("schedule_assignment", 2, "schedule_assignment <class> <details>") {
+        @Override
+        ClassroomCommand create(ClassroomFacade facade, String[] arguments) {
+            return new ScheduleAssignmentCommand(facade, arguments[0], arguments[1]);
+        }
+    },
+    SUBMIT_ASSIGNMENT("submit_assignment", 3, "submit_assignment <student id> <class> <details>") {
+        @Override
+        ClassroomCommand create(ClassroomFacade facade, String[] arguments) {
+            return new SubmitAssignmentCommand(facade.getManager(), arguments[0], arguments[1], arguments[2]);
+        }
+    };
+
+    static final int MAX_ARGUMENTS = 3;
+    private static final CommandType[] TYPES = values();
+
+    private final String keyword;
+    private final byte[] keywordBytes;
+    private final int argumentCount;
+    private final String usage;
+
+    CommandType(String keyword, int argumentCount, String usage) {
+        this.keyword = keyword;
+        this.keywordBytes = keyword.getBytes(StandardCharsets.US_ASCII);
+        this.argumentCount = argumentCount;
+        this.usage = usage;
+    }
+
+    // The command for these arguments; there must be at least getArgumentCount() of them
+    abstract ClassroomCommand create(ClassroomFacade facade, String[] arguments);
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    public String getUsage() {
+        return "Usage: " + usage;
+    }
+
+    // The byte identifying the command in the binary format
+    public int getCode() {
+        return ordinal() + 1;
+    }
+
+    public static CommandType forKeyword(String keyword) {
+        for (CommandType type : TYPES) {
+            if (type.keyword.equals(keyword)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    public static CommandType forCode(int code) {
+        return code >= 1 && code <= TYPES.length ? TYPES[code - 1] : null;
+    }
+
+    // The type whose keyword is the length bytes of the buffer at start, or null
+    static CommandType forKeyword(ByteBuffer buffer, int start, int length) {
+        for (CommandType type : TYPES) {
+            byte[] expected = type.keywordBytes;
+            if (expected.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && buffer.get(start + i) == expected[i]) {
+                i++;
+            }
+            if (i == length) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+// JMX view of one command type's metrics, registered as
+// VirtualClassroom:type=CommandMetrics,command=<keyword>. Times are in microseconds; the
+// execution time includes any lock wait.
+public interface CommandTypeMetricsMBean {
+    long getCount();
+
+    long getFailures();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    // Over the commands that went through a CommandRouter
+    double getQueueWaitP99Micros();
+
+    double getQueueWaitMaxMicros();
+
+    // How many commands had to wait for a lock; the lock wait times are over these only
+    long getLockWaits();
+
+    double getLockWaitP99Micros();
+
+    double getLockWaitMaxMicros();
+}
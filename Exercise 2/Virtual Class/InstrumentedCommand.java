@@ -0,0 +1,42 @@
+// Wraps a command so that running it is recorded in CommandMetrics: how long it ran, how much
+// of that it spent waiting for a TimedLock and, when a CommandRouter queued it, how long it
+// waited in its shard's queue.
+final class InstrumentedCommand implements ClassroomCommand {
+    private final CommandMetrics metrics;
+    private final CommandType type;
+    private final String[] arguments;
+    private final ClassroomCommand command;
+    // When it was queued, or 0 if it was not
+    private long queued;
+
+    InstrumentedCommand(CommandMetrics metrics, CommandType type, String[] arguments, ClassroomCommand command) {
+        this.metrics = metrics;
+        this.type = type;
+        this.arguments = arguments;
+        this.command = command;
+    }
+
+    // Called by the router as it queues the command
+    void queued() {
+        queued = System.nanoTime();
+    }
+
+    @Override
+    public void execute() {
+        long lockWaitBefore = TimedLock.waitedByCurrentThread();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            command.execute();
+            failed = false;
+        } finally {
+            metrics.record(type, arguments, queued != 0 ? start - queued : -1, System.nanoTime() - start,
+                    TimedLock.waitedByCurrentThread() - lockWaitBefore, failed);
+        }
+    }
+
+    @Override
+    public String getClassName() {
+        return command.getClassName();
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A consistent, point-in-time view of every classroom of a VirtualClassroomManager. The
+// manager publishes a new one after each change, sharing the structure of the last, and
+// VirtualClassroomManager.snapshot() hands out the latest with a single volatile read. A
+// reader can keep using one for as long as it likes; later changes never show up in it.
+final class ManagerSnapshot {
+    private final long version;
+    private final PersistentVector<ClassroomSnapshot> classrooms;
+    // Name to position of the first classroom with that name. Shared by successive versions,
+    // which only ever add to it, so positions beyond this version's size are ignored.
+    private final Map<String, Integer> positions;
+    private final int studentCount;
+    private final int assignmentCount;
+
+    ManagerSnapshot(Map<String, Integer> positions) {
+        this(0, PersistentVector.empty(), positions, 0, 0);
+    }
+
+    private ManagerSnapshot(long version, PersistentVector<ClassroomSnapshot> classrooms, Map<String, Integer> positions,
+                            int studentCount, int assignmentCount) {
+        this.version = version;
+        this.classrooms = classrooms;
+        this.positions = positions;
+        this.studentCount = studentCount;
+        this.assignmentCount = assignmentCount;
+    }
+
+    // How many changes led to this version
+    public long getVersion() {
+        return version;
+    }
+
+    public List<ClassroomSnapshot> getClassrooms() {
+        return classrooms.asList();
+    }
+
+    public ClassroomSnapshot getClassroom(String name) {
+        Integer position = positions.get(name);
+        return position != null && position < classrooms.size() ? classrooms.get(position) : null;
+    }
+
+    // Enrollments over all classrooms
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    public int getAssignmentCount() {
+        return assignmentCount;
+    }
+
+    // One snapshot holding the classrooms of all the parts, in order
+    static ManagerSnapshot combine(List<ManagerSnapshot> parts) {
+        ManagerSnapshot combined = new ManagerSnapshot(new HashMap<>());
+        long version = 0;
+        for (ManagerSnapshot part : parts) {
+            for (ClassroomSnapshot classroom : part.getClassrooms()) {
+                combined.positions.putIfAbsent(classroom.getName(), combined.classrooms.size());
+                combined = combined.withClassroom(classroom);
+            }
+            version += part.version;
+        }
+        return new ManagerSnapshot(version, combined.classrooms, combined.positions,
+                combined.studentCount, combined.assignmentCount);
+    }
+
+    ManagerSnapshot withClassroom(ClassroomSnapshot classroom) {
+        return new ManagerSnapshot(version + 1, classrooms.append(classroom), positions,
+                studentCount + classroom.getStudents().size(), assignmentCount + classroom.getAssignments().size());
+    }
+
+    // The next version with no classrooms, using a new positions map
+    ManagerSnapshot emptied(Map<String, Integer> newPositions) {
+        return new ManagerSnapshot(version + 1, PersistentVector.empty(), newPositions, 0, 0);
+    }
+
+    // Replaces the classroom at the position with its next version
+    ManagerSnapshot withUpdated(int position, ClassroomSnapshot classroom) {
+        ClassroomSnapshot previous = classrooms.get(position);
+        return new ManagerSnapshot(version + 1, classrooms.set(position, classroom), positions,
+                studentCount + classroom.getStudents().size() - previous.getStudents().size(),
+                assignmentCount + classroom.getAssignments().size() - previous.getAssignments().size());
+    }
+}
@@ -0,0 +1,110 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// One parsed command, held as positions in the buffer it was read from so that parsing
+// copies and allocates nothing. Arguments only become Strings when asked for. A parser
+// refills the same instance for every command, so it is only valid until the next one and
+// until the buffer is compacted or refilled.
+final class RawCommand {
+    static final String UNKNOWN_COMMAND = "unknown command";
+    static final String MISSING_ARGUMENTS = "missing arguments";
+
+    private ByteBuffer buffer;
+    private int start;
+    private int length;
+    private CommandType type;
+    private String error;
+    private int argumentCount;
+    private final int[] argumentStarts = new int[CommandType.MAX_ARGUMENTS];
+    private final int[] argumentLengths = new int[CommandType.MAX_ARGUMENTS];
+
+    void reset(ByteBuffer buffer, int start) {
+        this.buffer = buffer;
+        this.start = start;
+        length = 0;
+        type = null;
+        error = null;
+        argumentCount = 0;
+    }
+
+    void setType(CommandType type) {
+        this.type = type;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    void addArgument(int start, int length) {
+        argumentStarts[argumentCount] = start;
+        argumentLengths[argumentCount++] = length;
+    }
+
+    // Null when the command could not be recognized
+    public CommandType getType() {
+        return type;
+    }
+
+    // Why the command cannot run, or null if it can
+    public String getError() {
+        return error;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    public int getArgumentLength(int index) {
+        return argumentLengths[index];
+    }
+
+    public byte getArgumentByte(int index, int offset) {
+        return buffer.get(argumentStarts[index] + offset);
+    }
+
+    public String getArgument(int index) {
+        return decode(argumentStarts[index], argumentLengths[index]);
+    }
+
+    public String[] getArguments() {
+        String[] arguments = new String[argumentCount];
+        for (int i = 0; i < argumentCount; i++) {
+            arguments[i] = getArgument(i);
+        }
+        return arguments;
+    }
+
+    // Copies the argument's bytes to the current position of out
+    public void copyArgument(int index, ByteBuffer out) {
+        out.put(buffer.slice(argumentStarts[index], argumentLengths[index]));
+    }
+
+    // The whole command as it was read, for error messages
+    public String getSource() {
+        return decode(start, length);
+    }
+
+    public ClassroomCommand create(ClassroomFacade facade) {
+        return create(facade, null);
+    }
+
+    // The command, instrumented with the metrics unless they are null
+    public ClassroomCommand create(ClassroomFacade facade, CommandMetrics metrics) {
+        if (error != null) {
+            throw new IllegalStateException(error + ": " + getSource());
+        }
+        String[] arguments = getArguments();
+        ClassroomCommand command = type.create(facade, arguments);
+        return metrics != null ? metrics.instrument(type, arguments, command) : command;
+    }
+
+    private String decode(int from, int count) {
+        byte[] bytes = new byte[count];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+class ScheduleAssignmentCommand implements ClassroomCommand {
+    private ClassroomFacade facade;
+    private String className;
+    private String assignmentDetails;
+
+    public ScheduleAssignmentCommand(ClassroomFacade facade, String className, String assignmentDetails) {
+        this.facade = facade;
+        this.className = className;
+        this.assignmentDetails = assignmentDetails;
+    }
+
+    @Override
+    public void execute() {
+        facade.scheduleAssignment(className, assignmentDetails);
+        System.out.println("Assignment for [" + className + "] has been scheduled.");
+        System.out.println(facade.getManager().getClassroom(className));
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+}
@@ -0,0 +1,264 @@
+import java.util.*;
+
+// Fills a StudentIdIndex and an AssignmentSearchIndex one entry at a time, as addStudent and
+// addAssignment do, and reports the insert rate and query latency percentiles.
+// Student IDs are "s" and 8 scattered digits; prefix queries take 2 to 6 characters of a
+// random ID. Assignment details are a course, a kind, a number and three title words drawn
+// from a vocabulary of 50,000 random words with Zipf frequencies; fuzzy queries are a random
+// assignment's details or its title alone, with one letter of a 4+ letter word changed, and
+// recall is the share of queries that return that assignment in the top 10. Small runs are first
+// checked against a TreeSet and against ranking every assignment.
+// Usage: java -Xmx3g SearchIndexBenchmark [entries] [queries]
+public class SearchIndexBenchmark {
+    private static final String[] COURSES = {"Algebra", "Biology", "Chemistry", "History", "Literature",
+            "Physics", "Economics", "Geography", "Statistics", "Philosophy", "Art", "Music"};
+    private static final String[] KINDS = {"homework", "essay", "lab report", "quiz", "project", "reading"};
+    // English letter frequencies in tenths of a percent, a to z
+    private static final int[] LETTER_WEIGHTS = {82, 15, 28, 43, 127, 22, 20, 61, 70, 2, 8, 40, 24,
+            67, 75, 19, 1, 60, 63, 91, 28, 10, 24, 2, 20, 1};
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        checkPrefixSearch(200_000);
+        checkFuzzySearch(50_000, 200);
+
+        benchmarkPrefixSearch(entries, queries);
+
+        AssignmentSearchIndex assignments = new AssignmentSearchIndex();
+        String[] vocabulary = vocabulary(50_000, new Random(2));
+        double[] zipf = zipfCumulative(vocabulary.length);
+        Assignment[] all = new Assignment[entries];
+        Random random = new Random(3);
+        long start = System.nanoTime();
+        for (int i = 0; i < entries; i++) {
+            all[i] = new Assignment(details(random, vocabulary, zipf), COURSES[i % COURSES.length]);
+            assignments.add(all[i]);
+        }
+        report("assignments", entries, System.nanoTime() - start);
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            for (boolean titleOnly : new boolean[]{false, true}) {
+                long[] latencies = new long[queries];
+                int recalled = 0;
+                for (int q = 0; q < queries; q++) {
+                    Assignment target = all[random.nextInt(entries)];
+                    String text = target.getDetails();
+                    String query = typo(titleOnly ? text.substring(text.indexOf(": ") + 2) : text, random);
+                    long queryStart = System.nanoTime();
+                    List<AssignmentSearchIndex.Match> matches = assignments.search(query, 10);
+                    latencies[q] = System.nanoTime() - queryStart;
+                    for (AssignmentSearchIndex.Match match : matches) {
+                        if (match.assignment == target) {
+                            recalled++;
+                            break;
+                        }
+                    }
+                }
+                if (report) {
+                    printLatencies(titleOnly ? "fuzzy search, title with a typo" : "fuzzy search, details with a typo",
+                            latencies, String.format("recall %.1f%%", 100.0 * recalled / queries));
+                }
+            }
+        });
+        Assignment sample = all[0];
+        System.out.println("Example: \"" + typo(sample.getDetails(), new Random(4)) + "\" -> "
+                + assignments.search(typo(sample.getDetails(), new Random(4)), 3));
+    }
+
+    // Builds a StudentIdIndex and times prefix queries; the index is dropped on return
+    private static void benchmarkPrefixSearch(int entries, int queries) {
+        StudentIdIndex students = new StudentIdIndex();
+        String[] ids = new String[entries];
+        long start = System.nanoTime();
+        for (int i = 0; i < entries; i++) {
+            ids[i] = studentId(i);
+            students.add(ids[i]);
+        }
+        report("student IDs", entries, System.nanoTime() - start);
+        Random random = new Random(1);
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            long[] latencies = new long[queries];
+            long found = 0;
+            for (int q = 0; q < queries; q++) {
+                String id = ids[random.nextInt(entries)];
+                String prefix = id.substring(0, 2 + random.nextInt(5));
+                long queryStart = System.nanoTime();
+                found += students.findByPrefix(prefix, 10).size();
+                latencies[q] = System.nanoTime() - queryStart;
+            }
+            if (report) {
+                printLatencies("prefix search, limit 10", latencies, String.format("%.1f IDs per query", (double) found / queries));
+            }
+        });
+    }
+
+    // Compares prefix results with a TreeSet while the index merges its buffer several times
+    private static void checkPrefixSearch(int count) {
+        StudentIdIndex index = new StudentIdIndex();
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < count; i++) {
+            String id = studentId(random.nextInt(count * 2));
+            index.add(id);
+            expected.add(id);
+            if (i % 997 == 0) {
+                String prefix = id.substring(0, 1 + random.nextInt(id.length()));
+                List<String> want = new ArrayList<>();
+                for (String match : expected.subSet(prefix, prefix + Character.MAX_VALUE)) {
+                    if (want.size() == 25) {
+                        break;
+                    }
+                    want.add(match);
+                }
+                if (!want.equals(index.findByPrefix(prefix, 25))) {
+                    throw new IllegalStateException("Prefix search for " + prefix + " is wrong after " + i + " IDs");
+                }
+            }
+        }
+        if (index.size() != expected.size()) {
+            throw new IllegalStateException(index.size() + " IDs indexed, expected " + expected.size());
+        }
+    }
+
+    // Compares fuzzy results with ranking every assignment by its edits, then its position
+    private static void checkFuzzySearch(int count, int queries) {
+        AssignmentSearchIndex index = new AssignmentSearchIndex();
+        String[] vocabulary = vocabulary(2_000, new Random(6));
+        double[] zipf = zipfCumulative(vocabulary.length);
+        Assignment[] all = new Assignment[count];
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            all[i] = new Assignment(details(random, vocabulary, zipf), COURSES[i % COURSES.length]);
+            index.add(all[i]);
+        }
+        for (int q = 0; q < queries; q++) {
+            String text = all[random.nextInt(count)].getDetails();
+            String query = typo(q % 2 == 0 ? text : text.substring(text.indexOf(": ") + 2), random);
+            List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(AssignmentSearchIndex.words(query)));
+            // Matching positions, packed as edits and then position so that sorting ranks them
+            List<Long> ranked = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int edits = editsToMatch(queryWords, AssignmentSearchIndex.words(all[i].getDetails()));
+                if (edits >= 0) {
+                    ranked.add((long) edits << 32 | i);
+                }
+            }
+            Collections.sort(ranked);
+            List<Assignment> want = new ArrayList<>();
+            for (long rank : ranked.subList(0, Math.min(10, ranked.size()))) {
+                want.add(all[(int) rank]);
+            }
+            List<Assignment> got = new ArrayList<>();
+            for (AssignmentSearchIndex.Match match : index.search(query, 10)) {
+                got.add(match.assignment);
+            }
+            if (!want.equals(got)) {
+                throw new IllegalStateException("Fuzzy search for \"" + query + "\" returned " + got + ", expected " + want);
+            }
+        }
+    }
+
+    // Total edits for every query word to match one of the words, or -1 if one does not
+    private static int editsToMatch(List<String> queryWords, List<String> words) {
+        int total = 0;
+        for (String queryWord : queryWords) {
+            int maxEdits = AssignmentSearchIndex.maxEdits(queryWord);
+            int fewest = maxEdits + 1;
+            for (String word : words) {
+                fewest = Math.min(fewest, AssignmentSearchIndex.editDistance(queryWord, word, maxEdits));
+            }
+            if (fewest > maxEdits) {
+                return -1;
+            }
+            total += fewest;
+        }
+        return total;
+    }
+
+    private static String studentId(int i) {
+        // Multiplying by a number coprime to 10^8 scatters the IDs without repeating any
+        long scattered = (i * 2654435761L) % 100_000_000L;
+        String digits = Long.toString(scattered);
+        return "s" + "00000000".substring(digits.length()) + digits;
+    }
+
+    // Random words of 4 to 11 letters drawn with English letter frequencies
+    private static String[] vocabulary(int size, Random random) {
+        int total = Arrays.stream(LETTER_WEIGHTS).sum();
+        Set<String> words = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        while (words.size() < size) {
+            word.setLength(0);
+            for (int letters = 4 + random.nextInt(8); letters > 0; letters--) {
+                int pick = random.nextInt(total);
+                int letter = 0;
+                while (pick >= LETTER_WEIGHTS[letter]) {
+                    pick -= LETTER_WEIGHTS[letter++];
+                }
+                word.append((char) ('a' + letter));
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private static String details(Random random, String[] vocabulary, double[] zipf) {
+        StringBuilder details = new StringBuilder(48)
+                .append(COURSES[random.nextInt(COURSES.length)]).append(' ')
+                .append(KINDS[random.nextInt(KINDS.length)]).append(' ')
+                .append(1 + random.nextInt(50)).append(':');
+        for (int w = 0; w < 3; w++) {
+            int rank = Arrays.binarySearch(zipf, random.nextDouble());
+            details.append(' ').append(vocabulary[Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1)]);
+        }
+        return details.toString();
+    }
+
+    // Replaces one letter of a word long enough to allow an edit
+    private static String typo(String text, Random random) {
+        char[] chars = text.toCharArray();
+        int i;
+        do {
+            i = random.nextInt(chars.length);
+        } while (!Character.isLetter(chars[i]) || wordLength(chars, i) < 4);
+        chars[i] = (char) ('a' + (Character.toLowerCase(chars[i]) - 'a' + 1 + random.nextInt(25)) % 26);
+        return new String(chars);
+    }
+
+    private static int wordLength(char[] chars, int i) {
+        int start = i;
+        int end = i;
+        while (start > 0 && Character.isLetterOrDigit(chars[start - 1])) {
+            start--;
+        }
+        while (end < chars.length && Character.isLetterOrDigit(chars[end])) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private static void report(String what, int entries, long nanos) {
+        System.out.printf("Indexed %,d %s in %.1f s (%,.0f/sec), heap used %,d MB%n", entries, what, nanos / 1e9,
+                entries / (nanos / 1e9), (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20);
+    }
+
+    private static void printLatencies(String what, long[] latencies, String note) {
+        Arrays.sort(latencies);
+        System.out.printf("%-34s p50 %6.1f us, p99 %7.1f us, max %8.1f us, %s%n", what,
+                latencies[latencies.length / 2] / 1e3, latencies[latencies.length * 99 / 100] / 1e3,
+                latencies[latencies.length - 1] / 1e3, note);
+    }
+}
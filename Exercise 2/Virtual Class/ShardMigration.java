@@ -0,0 +1,12 @@
+import java.util.*;
+
+// Classrooms and students on their way from one shard to another
+class ShardMigration {
+    final List<Classroom> classrooms;
+    final List<Student> students;
+
+    ShardMigration(List<Classroom> classrooms, List<Student> students) {
+        this.classrooms = classrooms;
+        this.students = students;
+    }
+}
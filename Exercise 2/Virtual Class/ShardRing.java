@@ -0,0 +1,69 @@
+import java.util.*;
+
+// Consistent-hash ring: each shard is placed at many pseudo-random points ("virtual nodes"),
+// and a classroom belongs to the first shard point at or after the hash of its name, wrapping
+// around. Adding a shard only moves the classrooms that now fall just before its points,
+// about 1/N of them, and virtual nodes keep the shards' shares even.
+// Immutable; adding a shard returns a new ring.
+final class ShardRing {
+    private final long[] points;
+    private final ClassroomNode[] owners;
+
+    private ShardRing(long[] points, ClassroomNode[] owners) {
+        this.points = points;
+        this.owners = owners;
+    }
+
+    static ShardRing empty() {
+        return new ShardRing(new long[0], new ClassroomNode[0]);
+    }
+
+    ShardRing with(ClassroomNode node, int virtualNodes) {
+        int size = points.length + virtualNodes;
+        long[] newPoints = Arrays.copyOf(points, size);
+        ClassroomNode[] newOwners = Arrays.copyOf(owners, size);
+        for (int i = 0; i < virtualNodes; i++) {
+            newPoints[points.length + i] = hash(node.getId() + "#" + i);
+            newOwners[points.length + i] = node;
+        }
+        // Sort the points and carry their owners along
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(newPoints[a], newPoints[b]));
+        long[] sortedPoints = new long[size];
+        ClassroomNode[] sortedOwners = new ClassroomNode[size];
+        for (int i = 0; i < size; i++) {
+            sortedPoints[i] = newPoints[order[i]];
+            sortedOwners[i] = newOwners[order[i]];
+        }
+        return new ShardRing(sortedPoints, sortedOwners);
+    }
+
+    ClassroomNode ownerOf(String className) {
+        if (points.length == 0) {
+            throw new IllegalStateException("No shards");
+        }
+        int index = Arrays.binarySearch(points, hash(className));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // 64-bit FNV-1a over the characters, then MurmurHash3's finalizer to spread the bits
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// A VirtualClassroomManager whose classrooms are partitioned by name across shards with a
+// consistent-hash ring. Each shard is a ClassroomNode with its own manager and thread.
+// Students and assignments live on the shard of their classroom.
+//
+// Operations are routed to the owning shard's thread: submit() queues them, and the
+// manager methods called from other threads queue them and wait. A command already
+// running on a shard's thread uses that shard's manager directly, and may only reach
+// classrooms on that shard, since waiting there for another shard could deadlock.
+//
+// addShard() rebalances while commands keep flowing. The new shard first queues a task that
+// waits for the classrooms it will take over. Then the ring is switched and, once every
+// command routed with the old ring has been queued, each old shard queues a task that hands
+// over the classrooms that now belong to the new shard. So a command routed before the switch
+// runs on the old shard ahead of the hand-over, and one routed after it waits on the new
+// shard behind the hand-overs: each classroom's commands keep their order.
+//
+// The state this class inherits from VirtualClassroomManager stays empty: every classroom
+// lives in a shard's own manager, and the methods that work on the manager's own state
+// directly (extract(), install() and runLocked()) throw instead.
+class ShardedClassroomManager extends VirtualClassroomManager {
+    private final int virtualNodes;
+    private final List<ClassroomNode> nodes = new CopyOnWriteArrayList<>();
+    private volatile Routing routing;
+
+    public ShardedClassroomManager(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one shard and one virtual node per shard");
+        }
+        this.virtualNodes = virtualNodes;
+        ShardRing ring = ShardRing.empty();
+        for (int i = 0; i < shards; i++) {
+            ClassroomNode node = new ClassroomNode(Integer.toString(i));
+            nodes.add(node);
+            ring = ring.with(node, virtualNodes);
+        }
+        for (ClassroomNode node : nodes) {
+            node.setRing(ring);
+        }
+        routing = new Routing(ring);
+    }
+
+    // Runs the task on the shard that owns the classroom once it gets there
+    public CompletableFuture<Void> submit(String className, Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        dispatch(className, task, done);
+        return done;
+    }
+
+    private void dispatch(String className, Runnable task, CompletableFuture<Void> done) {
+        Routing routed = routing;
+        routed.dispatching.incrementAndGet();
+        while (routing != routed) {
+            // Switched in between, and addShard() may have found no dispatches left on it
+            routed.dispatching.decrementAndGet();
+            routed = routing;
+            routed.dispatching.incrementAndGet();
+        }
+        try {
+            ClassroomNode owner = routed.ring.ownerOf(className);
+            owner.execute(() -> {
+                if (!owner.holds(className)) {
+                    // The classroom left this shard after the command was routed here
+                    dispatch(className, task, done);
+                    return;
+                }
+                try {
+                    task.run();
+                    done.complete(null);
+                } catch (RuntimeException | Error e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } finally {
+            routed.dispatching.decrementAndGet();
+        }
+    }
+
+    private <T> T onOwner(String className, Function<VirtualClassroomManager, T> operation) {
+        ClassroomNode current = ClassroomNode.current();
+        if (current != null) {
+            if (!current.holds(className)) {
+                throw new IllegalStateException("Classroom " + className + " is not on " + current
+                        + ", and a shard thread cannot wait for another shard");
+            }
+            return operation.apply(current.getManager());
+        }
+        Object[] result = new Object[1];
+        join(submit(className, () -> result[0] = operation.apply(ClassroomNode.current().getManager())));
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    @Override
+    public void addClassroom(Classroom classroom) {
+        onOwner(classroom.getName(), manager -> {
+            manager.addClassroom(classroom);
+            return null;
+        });
+    }
+
+    @Override
+    public void addStudent(Student student) {
+        onOwner(student.getClassName(), manager -> {
+            manager.addStudent(student);
+            return null;
+        });
+    }
+
+    @Override
+    public void addAssignment(Assignment assignment) {
+        onOwner(assignment.getClassName(), manager -> {
+            manager.addAssignment(assignment);
+            return null;
+        });
+    }
+
+    @Override
+    public void submitAssignment(String studentId, String className, String assignmentDetails) {
+        onOwner(className, manager -> {
+            manager.submitAssignment(studentId, className, assignmentDetails);
+            return null;
+        });
+    }
+
+    @Override
+    public Classroom getClassroom(String className) {
+        return onOwner(className, manager -> manager.getClassroom(className));
+    }
+
+    // Gathers a copy of every shard's classroom list; not available on a shard's own thread
+    @Override
+    public List<Classroom> getClassrooms() {
+        List<Classroom> all = new ArrayList<>();
+        for (List<Classroom> part : onEveryShard("getClassrooms()", manager -> new ArrayList<>(manager.getClassrooms()))) {
+            all.addAll(part);
+        }
+        return all;
+    }
+
+    // Combines the latest snapshot of every shard, read without waiting for any of them. Each
+    // shard's part is consistent on its own, but the parts are not taken at the same instant,
+    // and while addShard() moves classrooms they can be missing from both shards' parts.
+    // Building the combination takes time in proportion to the number of classrooms.
+    @Override
+    public ManagerSnapshot snapshot() {
+        List<ManagerSnapshot> parts = new ArrayList<>(nodes.size());
+        for (ClassroomNode node : nodes) {
+            parts.add(node.getManager().snapshot());
+        }
+        return ManagerSnapshot.combine(parts);
+    }
+
+    // Merges each shard's first IDs; not available on a shard's own thread
+    @Override
+    public List<String> findStudentsByPrefix(String prefix, int limit) {
+        List<String> all = new ArrayList<>();
+        for (List<String> part : onEveryShard("findStudentsByPrefix()", manager -> manager.findStudentsByPrefix(prefix, limit))) {
+            all.addAll(part);
+        }
+        Collections.sort(all);
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    // Merges each shard's best matches; not available on a shard's own thread
+    @Override
+    public List<AssignmentSearchIndex.Match> searchAssignments(String query, int limit) {
+        List<AssignmentSearchIndex.Match> all = new ArrayList<>();
+        for (List<AssignmentSearchIndex.Match> part : onEveryShard("searchAssignments()", manager -> manager.searchAssignments(query, limit))) {
+            all.addAll(part);
+        }
+        all.sort(AssignmentSearchIndex.Match.WORST_FIRST.reversed());
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    // Classrooms only move between shards through addShard()
+    @Override
+    ShardMigration extract(Predicate<String> classNames) {
+        throw new UnsupportedOperationException("Classrooms are extracted from a shard's own manager");
+    }
+
+    @Override
+    void install(ShardMigration migration) {
+        throw new UnsupportedOperationException("Classrooms are installed in a shard's own manager");
+    }
+
+    // Shards take no lock: each runs its operations one at a time on its own thread
+    @Override
+    void runLocked(Runnable action) {
+        throw new UnsupportedOperationException("A sharded manager has no lock to hold");
+    }
+
+    // Runs the operation on every shard's thread in parallel and waits for all the results
+    private <T> List<T> onEveryShard(String name, Function<VirtualClassroomManager, T> operation) {
+        if (ClassroomNode.current() != null) {
+            throw new IllegalStateException(name + " waits for every shard and cannot run on a shard thread");
+        }
+        List<CompletableFuture<T>> parts = new ArrayList<>();
+        for (ClassroomNode node : nodes) {
+            parts.add(node.call(() -> operation.apply(node.getManager())));
+        }
+        List<T> results = new ArrayList<>(parts.size());
+        for (CompletableFuture<T> part : parts) {
+            results.add(join(part));
+        }
+        return results;
+    }
+
+    // Adds a shard and moves over the classrooms it now owns; returns how many moved. If an
+    // old shard fails to hand over, every classroom goes back where it was and this throws;
+    // commands routed to the new shard in the meantime are forwarded, and may run after
+    // commands for the same classroom routed later.
+    public synchronized int addShard(String id) {
+        for (ClassroomNode node : nodes) {
+            if (node.getId().equals(id)) {
+                throw new IllegalArgumentException("Shard [" + id + "] already exists.");
+            }
+        }
+        ClassroomNode target = new ClassroomNode(id);
+        Routing previous = routing;
+        ShardRing newRing = previous.ring.with(target, virtualNodes);
+        target.setRing(newRing);
+        List<ClassroomNode> sources = new ArrayList<>(nodes);
+        List<CompletableFuture<ShardMigration>> handedOver = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            handedOver.add(new CompletableFuture<>());
+        }
+        CompletableFuture<Integer> installed = target.call(() -> install(target, sources, handedOver, previous.ring));
+        nodes.add(target);
+        Routing switched = new Routing(newRing);
+        routing = switched;
+        // Commands routed with the old ring must be queued ahead of the hand-overs
+        awaitDispatches(previous);
+        for (int i = 0; i < sources.size(); i++) {
+            ClassroomNode source = sources.get(i);
+            CompletableFuture<ShardMigration> migration = handedOver.get(i);
+            source.execute(() -> {
+                try {
+                    migration.complete(source.getManager().extract(className -> newRing.ownerOf(className) == target));
+                    source.setRing(newRing);
+                } catch (RuntimeException | Error e) {
+                    migration.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            return join(installed);
+        } catch (RuntimeException e) {
+            // The old ring is back, so once no dispatch can still pick the new shard, it only
+            // has to forward what it was sent
+            nodes.remove(target);
+            awaitDispatches(switched);
+            target.shutdown();
+            throw e;
+        }
+    }
+
+    // Runs on the new shard. Installs what every old shard handed over, or if any of them
+    // failed, gives the classrooms back to the shards they came from and restores the old ring.
+    private int install(ClassroomNode target, List<ClassroomNode> sources,
+                        List<CompletableFuture<ShardMigration>> handedOver, ShardRing oldRing) {
+        List<ShardMigration> migrations = new ArrayList<>(handedOver.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<ShardMigration> migration : handedOver) {
+            try {
+                migrations.add(join(migration));
+            } catch (RuntimeException e) {
+                migrations.add(null);
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            int moved = 0;
+            for (ShardMigration classrooms : migrations) {
+                target.getManager().install(classrooms);
+                moved += classrooms.classrooms.size();
+            }
+            return moved;
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            ClassroomNode source = sources.get(i);
+            ShardMigration classrooms = migrations.get(i);
+            if (classrooms != null) {
+                source.execute(() -> {
+                    source.getManager().install(classrooms);
+                    source.setRing(oldRing);
+                });
+            }
+        }
+        // Commands queued here behind this task are then forwarded to the old owners, behind
+        // the classrooms they are given back
+        target.setRing(oldRing);
+        routing = new Routing(oldRing);
+        throw new IllegalStateException("Could not add " + target + ": " + failure.getMessage(), failure);
+    }
+
+    // Waits until every dispatch that read this routing has queued its command
+    private static void awaitDispatches(Routing routing) {
+        while (routing.dispatching.get() != 0) {
+            Thread.yield();
+        }
+    }
+
+    public int getShardCount() {
+        return nodes.size();
+    }
+
+    // Number of classrooms on each shard, by shard id
+    public Map<String, Integer> getClassroomCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (ClassroomNode node : nodes) {
+            counts.put(node.getId(), join(node.call(() -> node.getManager().getClassrooms().size())));
+        }
+        return counts;
+    }
+
+    public void shutdown() {
+        for (ClassroomNode node : nodes) {
+            node.shutdown();
+        }
+    }
+
+    // A ring and the number of dispatches that have read it but not yet queued their command
+    private static final class Routing {
+        final ShardRing ring;
+        final AtomicInteger dispatching = new AtomicInteger();
+
+        Routing(ShardRing ring) {
+            this.ring = ring;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One writer enrolls students and schedules assignments across the classrooms while reporting
+// threads keep totalling every classroom's students and assignments. Run twice: with readers
+// that lock the manager to iterate the live classrooms, as reporting had to before, and with
+// readers that iterate manager.snapshot(). Reports writes/sec, the writer's p50/p99/p99.9/max
+// latency, reports/sec, and how many snapshot reports disagreed with the snapshot's totals.
+// Usage: java SnapshotBenchmark [classrooms] [writes] [readers]
+public class SnapshotBenchmark {
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int classrooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int writes = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        System.out.printf("%,d classrooms, %,d writes, %d readers, %d cores%n",
+                classrooms, writes, readers, Runtime.getRuntime().availableProcessors());
+        BenchmarkHarness.warmUpThenMeasure(report -> {
+            run("locked live lists", classrooms, writes, readers, false, report);
+            run("snapshots", classrooms, writes, readers, true, report);
+        });
+    }
+
+    private static void run(String name, int classrooms, int writes, int readers, boolean snapshots, boolean print)
+            throws InterruptedException {
+        VirtualClassroomManager manager = new VirtualClassroomManager();
+        for (int c = 0; c < classrooms; c++) {
+            manager.addClassroom(new Classroom("class" + c));
+        }
+        AtomicLong reports = new AtomicLong();
+        AtomicLong inconsistent = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        boolean[] stop = new boolean[1];
+        for (int r = 0; r < readers; r++) {
+            Thread reader = new Thread(() -> {
+                while (!isStopped(stop)) {
+                    if (snapshots) {
+                        ManagerSnapshot snapshot = manager.snapshot();
+                        long students = 0;
+                        long assignments = 0;
+                        for (ClassroomSnapshot classroom : snapshot.getClassrooms()) {
+                            students += count(classroom.getStudents());
+                            assignments += count(classroom.getAssignments());
+                        }
+                        if (students != snapshot.getStudentCount() || assignments != snapshot.getAssignmentCount()) {
+                            inconsistent.incrementAndGet();
+                        }
+                        sink += students + assignments;
+                    } else {
+                        manager.runLocked(() -> {
+                            long total = 0;
+                            for (Classroom classroom : manager.getClassrooms()) {
+                                total += count(classroom.getStudents()) + count(classroom.getAssignments());
+                            }
+                            sink += total;
+                        });
+                    }
+                    reports.incrementAndGet();
+                }
+            });
+            reader.start();
+            threads.add(reader);
+        }
+
+        Random random = new Random(1);
+        long[] latencies = new long[writes];
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            String className = "class" + random.nextInt(classrooms);
+            long began = System.nanoTime();
+            if (i % 10 < 8) {
+                manager.addStudent(new Student("student" + i, className));
+            } else {
+                manager.addAssignment(new Assignment("Assignment_" + i, className));
+            }
+            latencies[i] = System.nanoTime() - began;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        synchronized (stop) {
+            stop[0] = true;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Arrays.sort(latencies);
+        if (print) {
+            System.out.printf("%-18s %,10.0f writes/sec  writer p50 %,7.2f us  p99 %,9.2f us  p99.9 %,9.2f us  max %,9.2f ms  %,8.1f reports/sec  %d inconsistent%n",
+                    name, writes / seconds, latencies[writes / 2] / 1e3, latencies[(int) (writes * 0.99)] / 1e3,
+                    latencies[(int) (writes * 0.999)] / 1e3, latencies[writes - 1] / 1e6, reports.get() / seconds, inconsistent.get());
+        }
+    }
+
+    private static boolean isStopped(boolean[] stop) {
+        synchronized (stop) {
+            return stop[0];
+        }
+    }
+
+    // Walks the list so that the read is not just size()
+    private static long count(List<?> list) {
+        long n = 0;
+        for (Object ignored : list) {
+            n++;
+        }
+        return n;
+    }
+}
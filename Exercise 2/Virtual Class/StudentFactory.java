@@ -0,0 +1,5 @@
+class StudentFactory {
+    public Student createStudent(String id, String className) {
+        return new Student(id, className);
+    }
+}
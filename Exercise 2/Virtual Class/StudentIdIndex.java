@@ -0,0 +1,95 @@
+import java.util.*;
+
+// Sorted index of student IDs for prefix (type-ahead) search.
+// Most IDs sit in one sorted array that refers to the Student's own ID strings, so the index
+// costs a reference per student and no copies of the text. New IDs go into a sorted buffer
+// that is merged into the array once it holds an eighth as many (and at least MIN_BUFFERED),
+// so each ID is copied about nine times in all and a lookup is a binary search in each of the two.
+// Not thread-safe; its manager updates and reads it holding a lock kept for the indexes alone.
+class StudentIdIndex {
+    private static final int MIN_BUFFERED = 1 << 16;
+
+    private String[] sorted = new String[0];
+    private final TreeSet<String> buffered = new TreeSet<>();
+
+    public void add(String id) {
+        if (Arrays.binarySearch(sorted, id) >= 0 || !buffered.add(id)) {
+            return;
+        }
+        if (buffered.size() >= Math.max(MIN_BUFFERED, sorted.length / 8)) {
+            merge();
+        }
+    }
+
+    public int size() {
+        return sorted.length + buffered.size();
+    }
+
+    // Up to limit IDs starting with prefix, in order
+    public List<String> findByPrefix(String prefix, int limit) {
+        List<String> found = new ArrayList<>(Math.min(limit, 64));
+        int index = lowerBound(prefix);
+        Iterator<String> recent = buffered.tailSet(prefix, true).iterator();
+        String nextRecent = nextMatching(recent, prefix);
+        while (found.size() < limit) {
+            String nextSorted = index < sorted.length && sorted[index].startsWith(prefix) ? sorted[index] : null;
+            if (nextSorted == null && nextRecent == null) {
+                break;
+            }
+            if (nextRecent == null || (nextSorted != null && nextSorted.compareTo(nextRecent) < 0)) {
+                found.add(nextSorted);
+                index++;
+            } else {
+                found.add(nextRecent);
+                nextRecent = nextMatching(recent, prefix);
+            }
+        }
+        return found;
+    }
+
+    // Replaces the contents, for when a shard hands students over
+    public void rebuild(Collection<String> ids) {
+        buffered.clear();
+        sorted = ids.toArray(new String[0]);
+        Arrays.sort(sorted);
+    }
+
+    private static String nextMatching(Iterator<String> ids, String prefix) {
+        if (ids.hasNext()) {
+            String id = ids.next();
+            if (id.startsWith(prefix)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void merge() {
+        String[] merged = new String[sorted.length + buffered.size()];
+        int i = 0;
+        int out = 0;
+        for (String id : buffered) {
+            while (i < sorted.length && sorted[i].compareTo(id) < 0) {
+                merged[out++] = sorted[i++];
+            }
+            merged[out++] = id;
+        }
+        System.arraycopy(sorted, i, merged, out, sorted.length - i);
+        sorted = merged;
+        buffered.clear();
+    }
+}
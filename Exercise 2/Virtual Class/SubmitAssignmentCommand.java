@@ -0,0 +1,23 @@
+class SubmitAssignmentCommand implements ClassroomCommand {
+    private VirtualClassroomManager manager;
+    private String studentId;
+    private String className;
+    private String assignmentDetails;
+
+    public SubmitAssignmentCommand(VirtualClassroomManager manager, String studentId, String className, String assignmentDetails) {
+        this.manager = manager;
+        this.studentId = studentId;
+        this.className = className;
+        this.assignmentDetails = assignmentDetails;
+    }
+
+    @Override
+    public void execute() {
+        manager.submitAssignment(studentId, className, assignmentDetails);
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+}
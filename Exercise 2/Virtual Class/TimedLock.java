@@ -0,0 +1,28 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+// A reentrant lock that adds the time each thread spends waiting for it to a running total
+// for that thread, so that CommandMetrics can tell how much of a command was lock wait. An
+// uncontended lock() takes the lock with tryLock() and reads no clock.
+final class TimedLock {
+    private static final ThreadLocal<long[]> WAITED = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    void lock() {
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        WAITED.get()[0] += System.nanoTime() - start;
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    // Nanoseconds the calling thread has waited for any TimedLock
+    static long waitedByCurrentThread() {
+        return WAITED.get()[0];
+    }
+}
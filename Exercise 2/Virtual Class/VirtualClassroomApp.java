@@ -1,321 +1,112 @@
-
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
 
-
-interface Command {
-    void execute();
-}
-
-
-class Classroom {
-    private String name;
-    private List<Assignment> assignments;
-    private List<Student> students;
-
-    public Classroom(String name) {
-        this.name = name;
-        this.assignments = new ArrayList<>();
-        this.students = new ArrayList<>();
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void addStudent(Student student) {
-        students.add(student);
-    }
-
-    public List<Student> getStudents() {
-        return students;
-    }
-
-    public void addAssignment(Assignment assignment) {
-        assignments.add(assignment);
-    }
-
-    public List<Assignment> getAssignments() {
-        return assignments;
-    }
-
-    public void notifyAssignmentSubmitted(String message) {
-        System.out.println("Classroom [" + name + "] notified: " + message);
-    }
-
-    @Override
-    public String toString() {
-        return "Classroom: " + name + ", Students: " + students + ", Assignments: " + assignments;
-    }
-}
-
-class Student {
-    private String id;
-    private String className;
-
-    public Student(String id, String className) {
-        this.id = id;
-        this.className = className;
-    }
-
-    public String getId() {
-        return id;
-    }
-
-    public String getClassName() {
-        return className;
-    }
-
-    @Override
-    public String toString() {
-        return id;
-    }
-}
-
-class Assignment {
-    private String details;
-    private String className;
-
-    public Assignment(String details, String className) {
-        this.details = details;
-        this.className = className;
-    }
-
-    public String getDetails() {
-        return details;
-    }
-
-    public String getClassName() {
-        return className;
-    }
-
-    @Override
-    public String toString() {
-        return details;
-    }
-}
-
-class ClassroomFactory {
-    public Classroom createClassroom(String name) {
-        return new Classroom(name);
-    }
-}
-
-class StudentFactory {
-    public Student createStudent(String id, String className) {
-        return new Student(id, className);
-    }
-}
-
-class AssignmentFactory {
-    public Assignment createAssignment(String details, String className) {
-        return new Assignment(details, className);
-    }
-}
-
-class VirtualClassroomManager {
-    private static VirtualClassroomManager instance;
-    private List<Classroom> classrooms;
-    private Map<String, Student> students;
-
-    private VirtualClassroomManager() {
-        classrooms = new ArrayList<>();
-        students = new HashMap<>();
-    }
-
-    public static VirtualClassroomManager getInstance() {
-        if (instance == null) {
-            instance = new VirtualClassroomManager();
-        }
-        return instance;
-    }
-
-    public void addClassroom(Classroom classroom) {
-        classrooms.add(classroom);
-    }
-
-    public void addStudent(Student student) {
-        students.put(student.getId(), student);
-        // Find and enroll student in the appropriate classroom
-        for (Classroom classroom : classrooms) {
-            if (classroom.getName().equals(student.getClassName())) {
-                classroom.addStudent(student);
-                break;
-            }
-        }
-    }
-
-    public void addAssignment(Assignment assignment) {
-        for (Classroom classroom : classrooms) {
-            if (classroom.getName().equals(assignment.getClassName())) {
-                classroom.addAssignment(assignment);
-                break;
-            }
-        }
-    }
-
-    public void submitAssignment(String studentId, String className, String assignmentDetails) {
-        for (Classroom classroom : classrooms) {
-            if (classroom.getName().equals(className)) {
-                classroom.notifyAssignmentSubmitted("Assignment [" + assignmentDetails + "] submitted by Student [" + studentId + "]");
-                return;
-            }
-        }
-        System.out.println("Classroom not found for assignment submission.");
-    }
-
-    public List<Classroom> getClassrooms() {
-        return classrooms;
-    }
-}
-
-class AddClassroomCommand implements Command {
-    private ClassroomFacade facade;
-    private String className;
-
-    public AddClassroomCommand(ClassroomFacade facade, String className) {
-        this.facade = facade;
-        this.className = className;
-    }
-
-    @Override
-    public void execute() {
-        facade.addClassroom(className);
-        System.out.println("Classroom [" + className + "] has been created.");
-        System.out.println(facade.getManager().getClassrooms());
-    }
-}
-
-class AddStudentCommand implements Command {
-    private ClassroomFacade facade;
-    private String studentId;
-    private String className;
-
-    public AddStudentCommand(ClassroomFacade facade, String studentId, String className) {
-        this.facade = facade;
-        this.studentId = studentId;
-        this.className = className;
-    }
-
-    @Override
-    public void execute() {
-        facade.addStudent(studentId, className);
-        System.out.println("Student [" + studentId + "] has been enrolled in [" + className + "].");
-        System.out.println(facade.getManager().getClassrooms());
-    }
-}
-
-class ScheduleAssignmentCommand implements Command {
-    private ClassroomFacade facade;
-    private String className;
-    private String assignmentDetails;
-
-    public ScheduleAssignmentCommand(ClassroomFacade facade, String className, String assignmentDetails) {
-        this.facade = facade;
-        this.className = className;
-        this.assignmentDetails = assignmentDetails;
-    }
-
-    @Override
-    public void execute() {
-        facade.scheduleAssignment(className, assignmentDetails);
-        System.out.println("Assignment for [" + className + "] has been scheduled.");
-        System.out.println(facade.getManager().getClassrooms());
-    }
-}
-
-class SubmitAssignmentCommand implements Command {
-    private VirtualClassroomManager manager;
-    private String studentId;
-    private String className;
-    private String assignmentDetails;
-
-    public SubmitAssignmentCommand(VirtualClassroomManager manager, String studentId, String className, String assignmentDetails) {
-        this.manager = manager;
-        this.studentId = studentId;
-        this.className = className;
-        this.assignmentDetails = assignmentDetails;
-    }
-
-    @Override
-    public void execute() {
-        manager.submitAssignment(studentId, className, assignmentDetails);
-    }
-}
-
-class ClassroomFacade {
-    private ClassroomFactory classroomFactory;
-    private StudentFactory studentFactory;
-    private AssignmentFactory assignmentFactory;
-    private VirtualClassroomManager manager;
-
-    public ClassroomFacade() {
-        classroomFactory = new ClassroomFactory();
-        studentFactory = new StudentFactory();
-        assignmentFactory = new AssignmentFactory();
-        manager = VirtualClassroomManager.getInstance();
-    }
-
-    public void addClassroom(String name) {
-        Classroom classroom = classroomFactory.createClassroom(name);
-        manager.addClassroom(classroom);
-    }
-
-    public void addStudent(String studentId, String className) {
-        Student student = studentFactory.createStudent(studentId, className);
-        manager.addStudent(student);
-    }
-
-    public void scheduleAssignment(String className, String assignmentDetails) {
-        Assignment assignment = assignmentFactory.createAssignment(assignmentDetails, className);
-        manager.addAssignment(assignment);
-    }
-
-    public VirtualClassroomManager getManager() {
-        return manager;
-    }
-}
-
-
+// Usage: java VirtualClassroomApp [shards]
+// With a shard count, classrooms are spread over that many shards and the extra command
+// "add_shard <id>" adds one while the application runs.
+// "find_students <prefix>" lists registered student IDs with that prefix, and
+// "search_assignments <text>" lists the scheduled assignments whose details are closest to it.
+// "load <file>" runs every command in a file, either one per line as typed here or in the
+// binary format of BinaryCommandCodec.
+// Every classroom command is recorded in CommandMetrics, which are registered with JMX under
+// VirtualClassroom:type=CommandMetrics. "metrics" prints them, and "metrics_dump <file>
+// [seconds]" rewrites the file with them every so many seconds (10 by default).
 public class VirtualClassroomApp {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
-        ClassroomFacade facade = new ClassroomFacade();
-        VirtualClassroomManager manager = VirtualClassroomManager.getInstance();
+        ShardedClassroomManager shards = args.length > 0 ? new ShardedClassroomManager(Integer.parseInt(args[0]), 128) : null;
+        VirtualClassroomManager manager = shards != null ? shards : VirtualClassroomManager.getInstance();
+        ClassroomFacade facade = new ClassroomFacade(manager);
+        CommandRouter router = shards != null ? new CommandRouter(shards) : null;
+        CommandMetrics metrics = new CommandMetrics(10_000);
+        metrics.register();
+
+        CommandTokenizer tokenizer = new CommandTokenizer();
+        RawCommand parsed = new RawCommand();
 
         while (true) {
             System.out.print("Enter command: ");
             String input = scanner.nextLine();
-            String[] parts = input.split(" ");
-            String commandType = parts[0];
+            if (!tokenizer.next(ByteBuffer.wrap((input + "\n").getBytes(StandardCharsets.UTF_8)), parsed)) {
+                continue;
+            }
+            if (parsed.getType() != null) {
+                if (parsed.getError() != null) {
+                    System.out.println(parsed.getType().getUsage());
+                    continue;
+                }
+                ClassroomCommand command = parsed.create(facade, metrics);
+                if (router != null) {
+                    router.route(command).join();
+                } else {
+                    command.execute();
+                }
+                continue;
+            }
 
-            Command command = null;
+            String[] parts = input.trim().split("[ \t]+");
+            String commandType = parts[0];
             switch (commandType) {
-                case "add_classroom":
-                    command = new AddClassroomCommand(facade, parts[1]);
+                case "add_shard":
+                    if (shards == null) {
+                        System.out.println("Not running with shards.");
+                    } else if (parts.length < 2) {
+                        System.out.println("Usage: add_shard <id>");
+                    } else {
+                        try {
+                            int moved = shards.addShard(parts[1]);
+                            System.out.println("Shard [" + parts[1] + "] added; " + moved + " classrooms moved to it.");
+                        } catch (RuntimeException e) {
+                            System.out.println(e.getMessage());
+                        }
+                    }
+                    break;
+                case "find_students":
+                    System.out.println(manager.findStudentsByPrefix(parts.length > 1 ? parts[1] : "", 20));
                     break;
-                case "add_student":
-                    command = new AddStudentCommand(facade, parts[1], parts[2]);
+                case "search_assignments":
+                    // The query is everything after the command, so it may contain spaces
+                    System.out.println(manager.searchAssignments(input.trim().substring(commandType.length()).trim(), 10));
                     break;
-                case "schedule_assignment":
-                    command = new ScheduleAssignmentCommand(facade, parts[1], parts[2]);
+                case "load":
+                    if (parts.length < 2) {
+                        System.out.println("Usage: load <command file>");
+                        break;
+                    }
+                    try {
+                        long loaded = CommandFileReader.load(Paths.get(parts[1]), facade, router, metrics);
+                        System.out.println(loaded + " commands loaded from [" + parts[1] + "].");
+                    } catch (IOException | RuntimeException e) {
+                        System.out.println("Could not load [" + parts[1] + "]: " + e.getMessage());
+                    }
                     break;
-                case "submit_assignment":
-                    command = new SubmitAssignmentCommand(manager, parts[1], parts[2], parts[3]);
+                case "metrics":
+                    System.out.print(metrics.getReport());
+                    break;
+                case "metrics_dump":
+                    if (parts.length < 2) {
+                        System.out.println("Usage: metrics_dump <file> [seconds]");
+                        break;
+                    }
+                    try {
+                        long seconds = parts.length > 2 ? Long.parseLong(parts[2]) : 10;
+                        metrics.startDump(Paths.get(parts[1]), seconds);
+                        System.out.println("Writing command metrics to [" + parts[1] + "] every " + seconds + " seconds.");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Could not start the metrics dump: " + e.getMessage());
+                    }
                     break;
                 case "exit":
                     System.out.println("Exiting the application.");
                     scanner.close();
                     System.exit(0);
+                    break;
                 default:
                     System.out.println("Invalid command.");
-                    continue;
-            }
-
-            if (command != null) {
-                command.execute();
             }
         }
     }
 }
-
-
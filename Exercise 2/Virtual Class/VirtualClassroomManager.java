@@ -0,0 +1,264 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+// The application normally uses the single instance from getInstance(). Shards of a
+// ShardedClassroomManager each hold their own instance.
+//
+// Changes hold the manager's lock, a TimedLock so that waiting for it shows in CommandMetrics,
+// and each one publishes a new ManagerSnapshot sharing structure with the previous one.
+// Readers never lock: snapshot() returns the latest in O(1), and getClassrooms() and
+// getClassroom() read the current immutable classroom list.
+//
+// Searches lock only the search indexes, which have a lock of their own. Changes never wait
+// for it: they queue what the indexes need and apply the queue themselves only if the lock is
+// free, so a long search holds up other searches but never a change. A search applies the
+// queue first, so it sees every change made before it started.
+class VirtualClassroomManager {
+    private static VirtualClassroomManager instance;
+    private final TimedLock lock = new TimedLock();
+    private volatile Roster roster;
+    private Map<String, Student> students;
+    private volatile ManagerSnapshot current;
+    private volatile Indexes indexes;
+
+    VirtualClassroomManager() {
+        roster = new Roster(PersistentVector.empty(), new ConcurrentHashMap<>());
+        students = new HashMap<>();
+        current = new ManagerSnapshot(roster.positions);
+        indexes = new Indexes(new StudentIdIndex(), new AssignmentSearchIndex());
+    }
+
+    public static synchronized VirtualClassroomManager getInstance() {
+        if (instance == null) {
+            instance = new VirtualClassroomManager();
+        }
+        return instance;
+    }
+
+    public void addClassroom(Classroom classroom) {
+        lock.lock();
+        try {
+            roster = roster.with(classroom);
+            current = current.withClassroom(classroom.snapshot());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addStudent(Student student) {
+        lock.lock();
+        try {
+            students.put(student.getId(), student);
+            indexes.addStudentId(student.getId());
+            // Find and enroll student in the appropriate classroom
+            Integer position = roster.positions.get(student.getClassName());
+            if (position != null) {
+                Classroom classroom = roster.classrooms.get(position);
+                classroom.addStudent(student);
+                current = current.withUpdated(position, classroom.snapshot());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addAssignment(Assignment assignment) {
+        lock.lock();
+        try {
+            Integer position = roster.positions.get(assignment.getClassName());
+            if (position != null) {
+                Classroom classroom = roster.classrooms.get(position);
+                classroom.addAssignment(assignment);
+                indexes.addAssignment(assignment);
+                current = current.withUpdated(position, classroom.snapshot());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void submitAssignment(String studentId, String className, String assignmentDetails) {
+        Classroom classroom = getClassroom(className);
+        if (classroom != null) {
+            classroom.notifyAssignmentSubmitted("Assignment [" + assignmentDetails + "] submitted by Student [" + studentId + "]");
+            return;
+        }
+        System.out.println("Classroom not found for assignment submission.");
+    }
+
+    // The classrooms so far, in a list that later additions do not change
+    public List<Classroom> getClassrooms() {
+        return roster.classrooms.asList();
+    }
+
+    public Classroom getClassroom(String className) {
+        Roster current = roster;
+        Integer position = current.positions.get(className);
+        return position != null && position < current.classrooms.size() ? current.classrooms.get(position) : null;
+    }
+
+    // The state of every classroom as of the last change, without waiting for writers
+    public ManagerSnapshot snapshot() {
+        return current;
+    }
+
+    // Runs the action holding the lock that changes take, shutting them out until it returns
+    void runLocked(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Up to limit registered student IDs starting with prefix, in order
+    public List<String> findStudentsByPrefix(String prefix, int limit) {
+        Indexes searched = indexes;
+        searched.lock.lock();
+        try {
+            searched.catchUp();
+            return searched.studentIds.findByPrefix(prefix, limit);
+        } finally {
+            searched.lock.unlock();
+        }
+    }
+
+    // Up to limit scheduled assignments whose details are close to the query, best first
+    public List<AssignmentSearchIndex.Match> searchAssignments(String query, int limit) {
+        Indexes searched = indexes;
+        searched.lock.lock();
+        try {
+            searched.catchUp();
+            return searched.assignments.search(query, limit);
+        } finally {
+            searched.lock.unlock();
+        }
+    }
+
+    // Removes the classrooms, and the students registered for them, whose names match
+    ShardMigration extract(Predicate<String> classNames) {
+        lock.lock();
+        try {
+            List<Classroom> movedClassrooms = new ArrayList<>();
+            List<Classroom> kept = new ArrayList<>();
+            for (Classroom classroom : roster.classrooms.asList()) {
+                (classNames.test(classroom.getName()) ? movedClassrooms : kept).add(classroom);
+            }
+            // Positions change, so the new versions start from a fresh positions map and the
+            // older ones keep theirs
+            Roster next = new Roster(PersistentVector.empty(), new ConcurrentHashMap<>());
+            ManagerSnapshot nextSnapshot = current.emptied(next.positions);
+            for (Classroom classroom : kept) {
+                next = next.with(classroom);
+                nextSnapshot = nextSnapshot.withClassroom(classroom.snapshot());
+            }
+            roster = next;
+            current = nextSnapshot;
+
+            List<Student> movedStudents = new ArrayList<>();
+            students.values().removeIf(student -> classNames.test(student.getClassName()) && movedStudents.add(student));
+            // Fresh indexes, as a search may still be reading the old ones
+            StudentIdIndex studentIds = new StudentIdIndex();
+            studentIds.rebuild(students.keySet());
+            List<Assignment> remaining = new ArrayList<>();
+            for (Classroom classroom : kept) {
+                remaining.addAll(classroom.getAssignments());
+            }
+            AssignmentSearchIndex assignments = new AssignmentSearchIndex();
+            assignments.rebuild(remaining);
+            indexes = new Indexes(studentIds, assignments);
+            return new ShardMigration(movedClassrooms, movedStudents);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes over classrooms and students extracted from another manager
+    void install(ShardMigration migration) {
+        lock.lock();
+        try {
+            for (Classroom classroom : migration.classrooms) {
+                addClassroom(classroom);
+            }
+            for (Student student : migration.students) {
+                students.put(student.getId(), student);
+                indexes.addStudentId(student.getId());
+            }
+            for (Classroom classroom : migration.classrooms) {
+                for (Assignment assignment : classroom.getAssignments()) {
+                    indexes.addAssignment(assignment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The search indexes with their lock and what changes have queued for them. Changes add to
+    // the queues holding the manager's lock, so entries are queued in the order they were made.
+    private static final class Indexes {
+        final ReentrantLock lock = new ReentrantLock();
+        final StudentIdIndex studentIds;
+        final AssignmentSearchIndex assignments;
+        private final Queue<String> pendingStudentIds = new ConcurrentLinkedQueue<>();
+        private final Queue<Assignment> pendingAssignments = new ConcurrentLinkedQueue<>();
+
+        Indexes(StudentIdIndex studentIds, AssignmentSearchIndex assignments) {
+            this.studentIds = studentIds;
+            this.assignments = assignments;
+        }
+
+        void addStudentId(String id) {
+            pendingStudentIds.add(id);
+            catchUpIfFree();
+        }
+
+        void addAssignment(Assignment assignment) {
+            pendingAssignments.add(assignment);
+            catchUpIfFree();
+        }
+
+        // Called holding lock
+        void catchUp() {
+            for (String id; (id = pendingStudentIds.poll()) != null; ) {
+                studentIds.add(id);
+            }
+            for (Assignment assignment; (assignment = pendingAssignments.poll()) != null; ) {
+                assignments.add(assignment);
+            }
+        }
+
+        // Leaves the queues to whoever holds the lock, who catches up before searching or later
+        private void catchUpIfFree() {
+            if (lock.tryLock()) {
+                try {
+                    catchUp();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // The classrooms and the position of the first one with each name, replaced together so
+    // that readers always see a matching pair. Positions are only ever added to the map, which
+    // the manager's snapshots share; positions beyond a version's size are ignored.
+    private static final class Roster {
+        final PersistentVector<Classroom> classrooms;
+        final Map<String, Integer> positions;
+
+        Roster(PersistentVector<Classroom> classrooms, Map<String, Integer> positions) {
+            this.classrooms = classrooms;
+            this.positions = positions;
+        }
+
+        Roster with(Classroom classroom) {
+            positions.putIfAbsent(classroom.getName(), classrooms.size());
+            return new Roster(classrooms.append(classroom), positions);
+        }
+    }
+}